@@ -0,0 +1,195 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.iemr.common.identity.utils.WorkloadContext;
+import com.iemr.common.identity.utils.WorkloadContext.Workload;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Connection pools for the identity database.
+ *
+ * Each workload (see {@link WorkloadContext}) has its own primary pool, so a
+ * full reindex or a burst of mobile syncs waits on its own pool instead of
+ * taking connections from interactive requests:
+ * <ul>
+ *   <li>INTERACTIVE: spring.datasource.hikari.*</li>
+ *   <li>ES_SYNC: spring.datasource.pools.es-sync.hikari.*</li>
+ *   <li>MOBILE_SYNC: spring.datasource.pools.mobile-sync.hikari.*</li>
+ * </ul>
+ * Workload pools inherit spring.datasource.hikari.* and override per key.
+ *
+ * When spring.datasource.replica.url is set, each workload also gets a replica
+ * pool, and work running in a @Transactional(readOnly = true) transaction
+ * takes its connection from it. Everything else, including non-transactional
+ * JdbcTemplate calls, stays on the primary. The lazy proxy defers fetching the
+ * physical connection until the first statement, when the workload and the
+ * transaction's read-only flag are both known.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    private static final String REPLICA_URL = "spring.datasource.replica.url";
+    private static final String REPLICA_SUFFIX = "-replica";
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties, Environment environment) {
+        return pool("identity-primary", false, null, properties, environment);
+    }
+
+    /**
+     * Replica pool for interactive reads. Pool settings can be overridden
+     * under spring.datasource.replica.hikari.*; credentials default to the
+     * primary's.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(REPLICA_URL)
+    public HikariDataSource replicaDataSource(DataSourceProperties properties, Environment environment) {
+        return pool("identity-replica", true, "spring.datasource.replica.hikari", properties, environment);
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource esSyncDataSource(DataSourceProperties properties, Environment environment) {
+        return pool("identity-es-sync", false, "spring.datasource.pools.es-sync.hikari", properties, environment);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(REPLICA_URL)
+    public HikariDataSource esSyncReplicaDataSource(DataSourceProperties properties, Environment environment) {
+        return pool("identity-es-sync-replica", true, "spring.datasource.pools.es-sync.hikari", properties,
+                environment);
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource mobileSyncDataSource(DataSourceProperties properties, Environment environment) {
+        return pool("identity-mobile-sync", false, "spring.datasource.pools.mobile-sync.hikari", properties,
+                environment);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(REPLICA_URL)
+    public HikariDataSource mobileSyncReplicaDataSource(DataSourceProperties properties, Environment environment) {
+        return pool("identity-mobile-sync-replica", true, "spring.datasource.pools.mobile-sync.hikari", properties,
+                environment);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+            @Qualifier("esSyncDataSource") HikariDataSource esSync,
+            @Qualifier("mobileSyncDataSource") HikariDataSource mobileSync,
+            @Qualifier("replicaDataSource") ObjectProvider<HikariDataSource> replica,
+            @Qualifier("esSyncReplicaDataSource") ObjectProvider<HikariDataSource> esSyncReplica,
+            @Qualifier("mobileSyncReplicaDataSource") ObjectProvider<HikariDataSource> mobileSyncReplica) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Workload.INTERACTIVE.name(), primary);
+        targets.put(Workload.ES_SYNC.name(), esSync);
+        targets.put(Workload.MOBILE_SYNC.name(), mobileSync);
+
+        HikariDataSource interactiveReplica = replica.getIfAvailable();
+        boolean hasReplica = interactiveReplica != null;
+        if (hasReplica) {
+            targets.put(Workload.INTERACTIVE.name() + REPLICA_SUFFIX, interactiveReplica);
+            targets.put(Workload.ES_SYNC.name() + REPLICA_SUFFIX, esSyncReplica.getObject());
+            targets.put(Workload.MOBILE_SYNC.name() + REPLICA_SUFFIX, mobileSyncReplica.getObject());
+            logger.info("Read-only transactions are routed to the replica pools");
+        }
+
+        WorkloadRoutingDataSource routing = new WorkloadRoutingDataSource(hasReplica);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private static HikariDataSource pool(String name, boolean replica, String overridePrefix,
+            DataSourceProperties properties, Environment environment) {
+        HikariDataSource pool = new HikariDataSource();
+        if (replica) {
+            pool.setJdbcUrl(environment.getProperty(REPLICA_URL));
+            pool.setUsername(environment.getProperty("spring.datasource.replica.username",
+                    properties.determineUsername()));
+            pool.setPassword(environment.getProperty("spring.datasource.replica.password",
+                    properties.determinePassword()));
+        } else {
+            pool.setJdbcUrl(properties.determineUrl());
+            pool.setUsername(properties.determineUsername());
+            pool.setPassword(properties.determinePassword());
+        }
+        pool.setDriverClassName(properties.determineDriverClassName());
+        Binder binder = Binder.get(environment);
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        if (overridePrefix != null) {
+            binder.bind(overridePrefix, Bindable.ofInstance(pool));
+        }
+        pool.setPoolName(name);
+        if (replica) {
+            pool.setReadOnly(true);
+        }
+        return pool;
+    }
+
+    /**
+     * Picks the pool from the current thread's workload and, when replicas
+     * are configured, the read-only flag of the current transaction.
+     */
+    private static class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+
+        private final boolean hasReplica;
+
+        WorkloadRoutingDataSource(boolean hasReplica) {
+            this.hasReplica = hasReplica;
+        }
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            String workload = WorkloadContext.get().name();
+            if (hasReplica && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                return workload + REPLICA_SUFFIX;
+            }
+            return workload;
+        }
+    }
+}
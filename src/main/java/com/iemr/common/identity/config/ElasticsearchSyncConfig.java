@@ -29,6 +29,9 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import com.iemr.common.identity.utils.WorkloadContext;
+import com.iemr.common.identity.utils.WorkloadContext.Workload;
+
 /**
  * Configuration for async processing and scheduling
  */
@@ -50,6 +53,8 @@ public class ElasticsearchSyncConfig {
         executor.setMaxPoolSize(4);
         executor.setQueueCapacity(100);
         executor.setThreadNamePrefix("es-sync-");
+        // sync jobs take connections from the ES sync pool, not the interactive one
+        executor.setTaskDecorator(WorkloadContext.decorator(Workload.ES_SYNC));
         executor.setKeepAliveSeconds(60);
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(60);
@@ -25,7 +25,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import com.iemr.common.identity.utils.WorkloadContext.Workload;
 import com.iemr.common.identity.utils.http.HTTPRequestInterceptor;
+import com.iemr.common.identity.utils.http.WorkloadInterceptor;
 
 @Configuration
 public class InterceptorConfig implements WebMvcConfigurer {
@@ -36,5 +38,8 @@ public class InterceptorConfig implements WebMvcConfigurer {
 	@Override
 	public void addInterceptors(InterceptorRegistry registry) {
 		registry.addInterceptor(requestInterceptor);
+		// mobile sync and ES sync endpoints draw from their own connection pools
+		registry.addInterceptor(new WorkloadInterceptor(Workload.MOBILE_SYNC)).addPathPatterns("/rmnch/**");
+		registry.addInterceptor(new WorkloadInterceptor(Workload.ES_SYNC)).addPathPatterns("/elasticsearch/**");
 	}
 }
\ No newline at end of file
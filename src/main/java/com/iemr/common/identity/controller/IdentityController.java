@@ -35,11 +35,17 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -47,7 +53,6 @@ import org.springframework.web.bind.annotation.RestController;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.reflect.TypeToken;
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
@@ -59,6 +64,10 @@ import com.iemr.common.identity.dto.BenIdImportDTO;
 import com.iemr.common.identity.dto.BeneficiariesDTO;
 import com.iemr.common.identity.dto.BeneficiariesPartialDTO;
 import com.iemr.common.identity.dto.BeneficiaryCreateResp;
+import com.iemr.common.identity.dto.BeneficiaryProjection;
+import com.iemr.common.identity.dto.BeneficiarySearchPageDTO;
+import com.iemr.common.identity.dto.BeneficiarySyncPageDTO;
+import com.iemr.common.identity.dto.FaceSearchDTO;
 import com.iemr.common.identity.dto.IdentityDTO;
 import com.iemr.common.identity.dto.IdentityEditDTO;
 import com.iemr.common.identity.dto.IdentitySearchDTO;
@@ -68,9 +77,11 @@ import com.iemr.common.identity.exception.MissingMandatoryFieldsException;
 import com.iemr.common.identity.mapper.IdentityMapper;
 import com.iemr.common.identity.mapper.InputMapper;
 import com.iemr.common.identity.mapper.OutputMapper;
+import com.iemr.common.identity.service.BeneficiaryImageService;
 import com.iemr.common.identity.service.IdentityService;
 import com.iemr.common.identity.utils.OutputResponse;
 import com.iemr.common.identity.utils.exception.IEMRException;
+import com.iemr.common.identity.utils.mapper.JsonMappers;
 
 import io.lettuce.core.dynamic.annotation.Param;
 import io.swagger.v3.oas.annotations.Operation;
@@ -88,6 +99,9 @@ public class IdentityController {
 	@Autowired
 	IdentityMapper mapper;
 
+	@Autowired
+	BeneficiaryImageService imageService;
+
 	@Operation(summary = "Get beneficiaries by advance search")
 	@PostMapping(path = "/advanceSearch", headers = "Authorization")
 	public String getBeneficiaries(
@@ -95,17 +109,32 @@ public class IdentityController {
 					+ "\"currentAddress\":{\"stateId\":\"Integer\",\"districtId\":\"Integer\",\"villageId\":\"Integer\", \"blockID\":\"Integer\"},"
 					+ "\"permanentAddress\":{\"stateId\":\"Integer\",\"districtId\":\"Integer\",\"villageId\":\"Integer\", \"blockID\":\"Integer\"},"
 					+ "\"emergencyAddress\":{\"stateId\":\"Integer\",\"districtId\":\"Integer\",\"villageId\":\"Integer\",\"blockID\":\"Integer\"},"
-					+ "\"dob\":\"Timestamp\"}") @RequestBody String searchFilter) {
+					+ "\"dob\":\"Timestamp\"}") @RequestBody String searchFilter,
+			@RequestParam(value = "view", required = false) String view,
+			@RequestParam(value = "fields", required = false) String fields) {
 		logger.info("IdentityController.getBeneficiary - start");
+		BeneficiaryProjection projection = parseProjection(view, fields);
 		String response;
 		try {
 			JsonElement json = JsonParser.parseString(searchFilter);
 			IdentitySearchDTO searchParams = InputMapper.getInstance().gson().fromJson(json, IdentitySearchDTO.class);
 
-			List<BeneficiariesDTO> list = svc.getBeneficiaries(searchParams);
-			list.removeIf(Objects::isNull);
-			Collections.sort(list);
-			response = getSuccessResponseString(list, 200, "success", "getBeneficiariesByAdvanceSearch");
+			if (Boolean.TRUE.equals(searchParams.getIncludeTotalCount())) {
+				BeneficiarySearchPageDTO result = svc.getBeneficiariesPage(searchParams, projection);
+				List<BeneficiariesDTO> list = result.getData();
+				list.removeIf(Objects::isNull);
+				Collections.sort(list);
+				JsonObject page = new JsonObject();
+				page.add("data", toJsonTree(list, projection));
+				page.addProperty("totalCount", result.getTotalCount());
+				response = getSuccessResponseString(page.toString(), 200, "success", "getBeneficiariesByAdvanceSearch");
+			} else {
+				List<BeneficiariesDTO> list = svc.getBeneficiaries(searchParams, projection);
+				list.removeIf(Objects::isNull);
+				Collections.sort(list);
+				response = getSuccessResponseString(list, projection, 200, "success",
+						"getBeneficiariesByAdvanceSearch");
+			}
 
 			logger.info("IdentityController.getBeneficiary - end");
 		} catch (Exception e) {
@@ -177,7 +206,10 @@ public class IdentityController {
 	@Operation(summary = "Search beneficiary based on phone number")
 	@PostMapping(path = "/getByPhoneNum", headers = "Authorization")
 	public String getBeneficiariesByPhoneNum(
-			@Param(value = "\"String\"") @RequestParam("phoneNum") String phoneNum) {
+			@Param(value = "\"String\"") @RequestParam("phoneNum") String phoneNum,
+			@RequestParam(value = "view", required = false) String view,
+			@RequestParam(value = "fields", required = false) String fields) {
+		BeneficiaryProjection projection = parseProjection(view, fields);
 		String response;
 		try {
 			String phoneNumValue = "";
@@ -190,10 +222,10 @@ public class IdentityController {
 
 			phoneNumValue = phoneNum;
 
-			List<BeneficiariesDTO> list = svc.getBeneficiariesByPhoneNum(phoneNumValue);
+			List<BeneficiariesDTO> list = svc.getBeneficiariesByPhoneNum(phoneNumValue, projection);
 			list.removeIf(Objects::isNull);
 			Collections.sort(list);
-			response = getSuccessResponseString(list, 200, "success", "getIdentityByAgent");
+			response = getSuccessResponseString(list, projection, 200, "success", "getIdentityByAgent");
 
 			logger.info("IdentityController.getBeneficiary - end");
 		} catch (Exception e) {
@@ -269,7 +301,10 @@ public class IdentityController {
 	@Operation(summary = "Search beneficiary based on family id")
 	@PostMapping(path = "/searchByFamilyId", headers = "Authorization")
 	public String searhBeneficiaryByFamilyId(
-			@Param(value = "\"String\"") @RequestParam("familyId") String familyId) {
+			@Param(value = "\"String\"") @RequestParam("familyId") String familyId,
+			@RequestParam(value = "view", required = false) String view,
+			@RequestParam(value = "fields", required = false) String fields) {
+		BeneficiaryProjection projection = parseProjection(view, fields);
 		String response;
 		try {
 
@@ -280,10 +315,10 @@ public class IdentityController {
 				return response;
 			}
 
-			List<BeneficiariesDTO> list = svc.searhBeneficiaryByFamilyId(familyId);
+			List<BeneficiariesDTO> list = svc.searhBeneficiaryByFamilyId(familyId, projection);
 			list.removeIf(Objects::isNull);
 			Collections.sort(list);
-			response = getSuccessResponseString(list, 200, "success", "getIdentityByAgent");
+			response = getSuccessResponseString(list, projection, 200, "success", "getIdentityByAgent");
 
 			logger.info("IdentityController.getBeneficiary - end");
 		} catch (Exception e) {
@@ -294,6 +329,32 @@ public class IdentityController {
 		return response;
 	}
 
+	@Operation(summary = "Search beneficiaries by closest face embedding")
+	@PostMapping(path = "/searchByFaceEmbedding", headers = "Authorization")
+	public String searchBeneficiaryByFaceEmbedding(
+			@Param(value = "{\"faceEmbedding\":\"List<Float>\",\"topK\":\"Integer\",\"minSimilarity\":\"Float\"}") @RequestBody String faceSearch) {
+		String response;
+		try {
+			JsonElement json = JsonParser.parseString(faceSearch);
+			FaceSearchDTO searchParams = InputMapper.getInstance().gson().fromJson(json, FaceSearchDTO.class);
+			if (searchParams == null || searchParams.getFaceEmbedding() == null
+					|| searchParams.getFaceEmbedding().isEmpty()) {
+				return getErrorResponseString("Null/Empty face embedding.", 5000, "failure", "");
+			}
+
+			List<BeneficiariesDTO> list = svc.searchByFaceEmbedding(searchParams);
+			list.removeIf(Objects::isNull);
+			response = getSuccessResponseString(list, 200, "success", "searchByFaceEmbedding");
+
+			logger.info("IdentityController.searchBeneficiaryByFaceEmbedding - end");
+		} catch (Exception e) {
+			logger.error("error in beneficiary search by face embedding : " + e.getLocalizedMessage());
+			response = getErrorResponseString(
+					"error in beneficiary search by face embedding : " + e.getLocalizedMessage(), 5000, "failure", "");
+		}
+		return response;
+	}
+
 	// search beneficiary by lastModDate and districtID
 	@Operation(summary ="Search beneficiary by villageId and last modified date-time")
 	@PostMapping(path = "/searchByVillageIdAndLastModifiedDate")
@@ -306,9 +367,16 @@ public class IdentityController {
 			JsonElement json = JsonParser.parseString(object);
 
 			SearchSyncDTO search = InputMapper.getInstance().gson().fromJson(json, SearchSyncDTO.class);
-			List<BeneficiariesDTO> list = svc.searchBeneficiaryByVillageIdAndLastModifyDate(search.getVillageID(), new Timestamp(search.getLastModifiedDate()));
+			if (search.getPageSize() != null) {
+				BeneficiarySyncPageDTO page = svc.searchBeneficiaryByVillageIdAndLastModifyDate(search.getVillageID(),
+						new Timestamp(search.getLastModifiedDate()), search.getPageSize(), search.getAfterBenRegId());
+				response = getSuccessResponseString(OutputMapper.getInstance().gson().toJson(page), 200, "success",
+						"getIdentityByVillageAndLastSyncTime");
+			} else {
+				List<BeneficiariesDTO> list = svc.searchBeneficiaryByVillageIdAndLastModifyDate(search.getVillageID(), new Timestamp(search.getLastModifiedDate()));
 
-			response = getSuccessResponseString(list, 200, "success", "getIdentityByVillageAndLastSyncTime");
+				response = getSuccessResponseString(list, 200, "success", "getIdentityByVillageAndLastSyncTime");
+			}
 
 			logger.info("IdentityController.getBeneficiary - end");
 		} catch (Exception e) {
@@ -608,7 +676,7 @@ public class IdentityController {
 			+ "  \"createdDate\": \"Timestamp\"\r\n" + "  \"faceEmbedding\": [\"Float\"]\r\n" + "}") @RequestBody String identityData) throws IEMRException {
 		logger.info("IdentityController.createIdentity - start");
 	
-		IdentityDTO identity = new Gson().fromJson(identityData, IdentityDTO.class);
+		IdentityDTO identity = JsonMappers.plainGson().fromJson(identityData, IdentityDTO.class);
 		logger.info("identity hit: " + identity);
 		BeneficiaryCreateResp map;
 		map = svc.createIdentity(identity);
@@ -697,7 +765,9 @@ public class IdentityController {
 	@Operation(summary = "Get beneficiaries by beneficiary registration id")
 	@PostMapping(path = "/getByBenRegIdList", headers = "Authorization")
 	public String getBeneficiariesByBenRegIds(
-	        @RequestBody Long[] benRegIds) {  // Accepting an array of Longs directly
+	        @RequestBody Long[] benRegIds,  // Accepting an array of Longs directly
+	        @RequestParam(value = "view", required = false) String view,
+	        @RequestParam(value = "fields", required = false) String fields) {
 				logger.info("IdentityController.getBeneficiariesByBenRegIds - start. benRegIdList = " + benRegIds.length);
 
 	    // If benRegIds is null or empty, return an error response
@@ -710,17 +780,45 @@ public class IdentityController {
 	                                       .map(BigInteger::valueOf)
 	                                       .toArray(BigInteger[]::new);
 	    
-	    List<BeneficiariesDTO> list = svc.getBeneficiariesDeatilsByBenRegIdList(Arrays.asList(benRegIdArray));
+	    BeneficiaryProjection projection = parseProjection(view, fields);
+
+	    List<BeneficiariesDTO> list = svc.getBeneficiariesDeatilsByBenRegIdList(Arrays.asList(benRegIdArray), projection);
 	    list.removeIf(Objects::isNull);
 	    Collections.sort(list);
 
-	    String response = getSuccessResponseString(list, 200, "success", "getBeneficiariesByBenRegIds");
+	    String response = getSuccessResponseString(list, projection, 200, "success", "getBeneficiariesByBenRegIds");
 
 	    logger.info("IdentityController.getBeneficiariesByBenRegIds - end : ");
 	    return response;
 	}
 
 
+	/**
+	 * Parses the view= and fields= parameters of the list endpoints. Call it
+	 * before the endpoint's own try block so that an invalid view reaches
+	 * {@link #handleInvalidProjection} and is answered with 400.
+	 */
+	private BeneficiaryProjection parseProjection(String view, String fields) {
+		try {
+			return BeneficiaryProjection.of(view, fields);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidProjectionException(e.getMessage());
+		}
+	}
+
+	@ExceptionHandler(InvalidProjectionException.class)
+	public String handleInvalidProjection(InvalidProjectionException e) {
+		return getErrorResponseString(e.getMessage(), 400, "error", "");
+	}
+
+	static final class InvalidProjectionException extends IllegalArgumentException {
+		private static final long serialVersionUID = 1L;
+
+		InvalidProjectionException(String message) {
+			super(message);
+		}
+	}
+
 	/**
 	 * Overloaded method with string
 	 * 
@@ -756,6 +854,37 @@ public class IdentityController {
 		return response.toString();
 	}
 
+	private String getSuccessResponseString(List<BeneficiariesDTO> list, BeneficiaryProjection projection,
+			Integer statusCode, String statusMsg, String methodName) {
+		if (projection.getFields().isEmpty()) {
+			return getSuccessResponseString(list, statusCode, statusMsg, methodName);
+		}
+		logger.info("data response size:" + (list != null ? list.size() : "No Beneficiary Found"));
+		return getSuccessResponseString(toJsonTree(list, projection).toString(), statusCode, statusMsg, methodName);
+	}
+
+	/**
+	 * Serializes the list keeping only the requested top-level fields
+	 */
+	private JsonArray toJsonTree(List<BeneficiariesDTO> list, BeneficiaryProjection projection) {
+		JsonArray rows = OutputMapper.getInstance().gson().toJsonTree(list).getAsJsonArray();
+		if (projection.getFields().isEmpty()) {
+			return rows;
+		}
+		JsonArray trimmed = new JsonArray(rows.size());
+		for (JsonElement row : rows) {
+			JsonObject source = row.getAsJsonObject();
+			JsonObject target = new JsonObject();
+			for (String field : projection.getFields()) {
+				if (source.has(field)) {
+					target.add(field, source.get(field));
+				}
+			}
+			trimmed.add(target);
+		}
+		return trimmed;
+	}
+
 	/**
 	 * 
 	 * @param map
@@ -782,7 +911,7 @@ public class IdentityController {
 	}
 
 	public String getJsonAsString(Object obj) {
-		ObjectMapper objectmapper = new ObjectMapper();
+		ObjectMapper objectmapper = JsonMappers.objectMapper();
 		StringBuilder sb = new StringBuilder();
 		try {
 			sb.append(objectmapper.writeValueAsString(obj));
@@ -828,6 +957,49 @@ public class IdentityController {
 		return benImage;
 	}
 
+	@Operation(summary = "Get beneficiary image as raw bytes by beneficiary registration id")
+	@GetMapping(path = "/benImage/{benRegId}")
+	public ResponseEntity<byte[]> getBeneficiaryImageBytes(@PathVariable("benRegId") BigInteger benRegId,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		try {
+			BeneficiaryImageService.ImageVersion version = imageService.getImageVersion(benRegId);
+			if (version == null) {
+				return ResponseEntity.notFound().build();
+			}
+			if (eTagMatches(ifNoneMatch, version.getETag())) {
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version.getETag())
+						.cacheControl(CacheControl.noCache().cachePrivate()).build();
+			}
+
+			BeneficiaryImageService.ImageContent image = imageService.getImageContent(version);
+			if (image == null) {
+				return ResponseEntity.notFound().build();
+			}
+			return ResponseEntity.ok().eTag(version.getETag()).cacheControl(CacheControl.noCache().cachePrivate())
+					.contentType(MediaType.parseMediaType(image.getContentType()))
+					.contentLength(image.getData().length).body(image.getData());
+		} catch (Exception e) {
+			logger.error("Error while getBeneficiaryImageBytes : " + e.getMessage());
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+		}
+	}
+
+	private static boolean eTagMatches(String ifNoneMatch, String eTag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			String tag = candidate.trim();
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if ("*".equals(tag) || tag.equals(eTag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Operation(summary = "Edit education or community by agent")
 	@PostMapping(path = "/editEducationOrCommunity", headers = "Authorization")
 	public String editIdentityEducationOrCommunity(@Param(value = "{\r\n"
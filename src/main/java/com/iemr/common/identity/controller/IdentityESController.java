@@ -33,6 +33,7 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.iemr.common.identity.service.IdentityService;
 import com.iemr.common.identity.service.elasticsearch.ElasticsearchService;
+import com.iemr.common.identity.service.elasticsearch.SearchPage;
 import com.iemr.common.identity.utils.CookieUtil;
 import com.iemr.common.identity.utils.JwtUtil;
 
@@ -64,23 +65,43 @@ public class IdentityESController {
      * 
      * Usage: GET /beneficiary/search?query=vani
      * Usage: GET /beneficiary/search?query=9876543210
+     * Usage: GET /beneficiary/search?query=vani&pageSize=10&cursor={nextCursor}
      */
     @GetMapping("/search")
-    public ResponseEntity<Map<String, Object>> search(@RequestParam String query, HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> search(@RequestParam String query,
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "false") boolean includeTotalCount,
+            HttpServletRequest request) {
         try {
             String jwtToken = CookieUtil.getJwtTokenFromCookie(request);
             String userId = jwtUtil.getUserIdFromToken(jwtToken);
             int userID = Integer.parseInt(userId);
-            List<Map<String, Object>> results = elasticsearchService.universalSearch(query, userID);
+            SearchPage page = elasticsearchService.universalSearch(query, userID, pageSize, cursor,
+                    includeTotalCount);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("data", results);
+            response.put("data", page.getResults());
+            if (page.getNextCursor() != null) {
+                response.put("nextCursor", page.getNextCursor());
+            }
+            if (page.getTotalHits() != null) {
+                response.put("totalCount", page.getTotalHits());
+            }
             response.put("statusCode", 200);
             response.put("errorMessage", "Success");
             response.put("status", "Success");
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("data", new ArrayList<>());
+            errorResponse.put("statusCode", 400);
+            errorResponse.put("errorMessage", e.getMessage());
+            errorResponse.put("status", "Error");
+
+            return ResponseEntity.badRequest().body(errorResponse);
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("data", new ArrayList<>());
@@ -122,6 +143,9 @@ public class IdentityESController {
             String healthId = getString(searchParams, "healthId");
             String aadharNo = getString(searchParams, "aadharNo");
             Boolean is1097 = getBoolean(searchParams, "is1097");
+            Integer pageSize = getInteger(searchParams, "pageSize");
+            String cursor = getString(searchParams, "cursor");
+            boolean includeTotalCount = Boolean.TRUE.equals(getBoolean(searchParams, "includeTotalCount"));
 
             Integer stateId = getLocationInt(searchParams, "stateId");
             Integer districtId = getLocationInt(searchParams, "districtId");
@@ -140,17 +164,31 @@ public class IdentityESController {
                     stateId, districtId, blockId, villageId,
                     fatherName, spouseName, maritalStatus, phoneNumber,
                     beneficiaryId, healthId, aadharNo,
-                    userID, null, is1097);
+                    userID, null, is1097, pageSize, cursor, includeTotalCount);
 
             response.put("data", searchResults.get("data"));
             response.put("count", searchResults.get("count"));
             response.put("source", searchResults.get("source"));
+            if (searchResults.containsKey("nextCursor")) {
+                response.put("nextCursor", searchResults.get("nextCursor"));
+            }
+            if (searchResults.containsKey("totalCount")) {
+                response.put("totalCount", searchResults.get("totalCount"));
+            }
             response.put("statusCode", 200);
             response.put("errorMessage", "Success");
             response.put("status", "Success");
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            response.put("data", Collections.emptyList());
+            response.put("count", 0);
+            response.put("source", "error");
+            response.put("statusCode", 400);
+            response.put("errorMessage", e.getMessage());
+            response.put("status", "Error");
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             logger.error("Error in beneficiary ES advance search", e);
             response.put("data", Collections.emptyList());
@@ -76,28 +76,38 @@ public class ElasticsearchSyncController {
     /**
      * Start async full sync (RECOMMENDED for millions of records)
      * Returns immediately with job ID for tracking
+     * Optional window: cron expression of the minutes the job may run in,
+     * e.g. "0 * 22-23,0-5 * * *"; outside it the job pauses at its checkpoint
      * 
      * Usage: POST http://localhost:8094/elasticsearch/start
      */
     @PostMapping("/start")
     public ResponseEntity<Map<String, Object>> startAsyncFullSync(
-            @RequestParam(required = false, defaultValue = "API") String triggeredBy) {
+            @RequestParam(required = false, defaultValue = "API") String triggeredBy,
+            @RequestParam(required = false) String window) {
         
         logger.info("Received request to start ASYNC full sync");
         
         Map<String, Object> response = new HashMap<>();
         
         try {
-            ElasticsearchSyncJob job = syncJobService.startFullSyncJob(triggeredBy);
+            ElasticsearchSyncJob job = syncJobService.startFullSyncJob(triggeredBy, window);
             
             response.put("status", "success");
-            response.put("message", "Sync job started in background");
+            response.put("message", "PAUSED".equals(job.getStatus())
+                    ? "Sync job scheduled for its maintenance window" : "Sync job started in background");
             response.put("jobId", job.getJobId());
             response.put("jobStatus", job.getStatus());
+            response.put("window", job.getWindowCron());
             response.put("checkStatusUrl", "/elasticsearch/status/" + job.getJobId());
             
             return ResponseEntity.ok(response);
             
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            
         } catch (RuntimeException e) {
             logger.error("Error starting async sync: {}", e.getMessage());
             response.put("status", "error");
@@ -112,6 +122,47 @@ public class ElasticsearchSyncController {
         }
     }
 
+    /**
+     * Start async DB-vs-ES reconciliation
+     * Re-indexes only the BenRegId ranges whose digests differ
+     * 
+     * Usage: POST http://localhost:8094/elasticsearch/reconcile
+     */
+    @PostMapping("/reconcile")
+    public ResponseEntity<Map<String, Object>> startReconcile(
+            @RequestParam(required = false, defaultValue = "API") String triggeredBy,
+            @RequestParam(required = false) String window) {
+        
+        logger.info("Received request to start reconcile job");
+        
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            ElasticsearchSyncJob job = syncJobService.startReconcileJob(triggeredBy, window);
+            
+            response.put("status", "success");
+            response.put("message", "PAUSED".equals(job.getStatus())
+                    ? "Reconcile job scheduled for its maintenance window" : "Reconcile job started in background");
+            response.put("jobId", job.getJobId());
+            response.put("jobStatus", job.getStatus());
+            response.put("window", job.getWindowCron());
+            response.put("checkStatusUrl", "/elasticsearch/status/" + job.getJobId());
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            
+        } catch (RuntimeException e) {
+            logger.error("Error starting reconcile job: {}", e.getMessage());
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+    }
+
     /**
      * Get job status by ID
      * 
@@ -138,6 +189,7 @@ public class ElasticsearchSyncController {
             response.put("startedAt", job.getStartedAt());
             response.put("completedAt", job.getCompletedAt());
             response.put("errorMessage", job.getErrorMessage());
+            response.put("window", job.getWindowCron());
             
             return ResponseEntity.ok(response);
             
@@ -34,6 +34,7 @@ import org.springframework.web.bind.annotation.RestController;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import com.iemr.common.identity.service.health.HealthService;
+import com.iemr.common.identity.service.schema.QueryPlanVerifier;
 import com.iemr.common.identity.utils.JwtAuthenticationUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -50,10 +51,13 @@ public class HealthController {
 
     private final HealthService healthService;
     private final JwtAuthenticationUtil jwtAuthenticationUtil;
+    private final QueryPlanVerifier queryPlanVerifier;
     
-    public HealthController(HealthService healthService, JwtAuthenticationUtil jwtAuthenticationUtil) {
+    public HealthController(HealthService healthService, JwtAuthenticationUtil jwtAuthenticationUtil,
+            QueryPlanVerifier queryPlanVerifier) {
         this.healthService = healthService;
         this.jwtAuthenticationUtil = jwtAuthenticationUtil;
+        this.queryPlanVerifier = queryPlanVerifier;
     }
     @GetMapping
     @Operation(summary = "Check infrastructure health", 
@@ -87,4 +91,16 @@ public class HealthController {
             return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
         }
     }
+
+    @GetMapping("/queryPlans")
+    @Operation(summary = "Verify hot query plans",
+               description = "Runs EXPLAIN on the hot identity queries and flags tables read by full scan or without an index")
+    public ResponseEntity<Map<String, Object>> verifyQueryPlans() {
+        try {
+            return new ResponseEntity<>(queryPlanVerifier.verify(), HttpStatus.OK);
+        } catch (Exception e) {
+            logger.error("Query plan verification failed", e);
+            return new ResponseEntity<>(Map.of("status", "ERROR"), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 }
@@ -23,7 +23,6 @@ package com.iemr.common.identity.controller.rmnch;
 
 import java.sql.Timestamp;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +37,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.iemr.common.identity.service.rmnch.RmnchDataSyncService;
 import com.iemr.common.identity.utils.response.OutputResponse;
+import com.iemr.common.identity.utils.mapper.JsonMappers;
 
 import io.lettuce.core.dynamic.annotation.Param;
 import io.swagger.v3.oas.annotations.Operation;
@@ -90,7 +90,7 @@ public class RMNCHMobileAppController {
 				return ResponseEntity.badRequest().body("Invalid/NULL request obj");
 			}
 
-			JsonObject requestObj = new Gson().fromJson(requestOBJ, JsonObject.class);
+			JsonObject requestObj = JsonMappers.plainGson().fromJson(requestOBJ, JsonObject.class);
 
 			Long beneficiaryID = requestObj.has("benficieryid") && !requestObj.get("benficieryid").isJsonNull()
 					? requestObj.get("benficieryid").getAsLong()
@@ -40,10 +40,10 @@ public class ElasticsearchSyncJob {
     private Long jobId;
 
     @Column(name = "job_type", length = 50, nullable = false)
-    private String jobType; // FULL_SYNC, INCREMENTAL_SYNC, SINGLE_BENEFICIARY
+    private String jobType; // FULL_SYNC, INCREMENTAL_SYNC, SINGLE_BENEFICIARY, RECONCILE
 
     @Column(name = "status", length = 50, nullable = false)
-    private String status; // PENDING, RUNNING, COMPLETED, FAILED, CANCELLED
+    private String status; // PENDING, RUNNING, PAUSED, COMPLETED, FAILED, CANCELLED
 
     @Column(name = "total_records")
     private Long totalRecords;
@@ -84,6 +84,9 @@ public class ElasticsearchSyncJob {
     @Column(name = "processing_speed")
     private Double processingSpeed; // records per second
 
+    @Column(name = "window_cron", length = 100)
+    private String windowCron; // minutes the job may run in, e.g. "0 * 22-23,0-5 * * *"; null = any time
+
     @PrePersist
     protected void onCreate() {
         createdDate = new Timestamp(System.currentTimeMillis());
@@ -107,10 +110,10 @@ public class ElasticsearchSyncJob {
     }
 
     /**
-     * Check if job is active (running)
+     * Check if job is active (running, or paused outside its window)
      */
     @Transient
     public boolean isActive() {
-        return "RUNNING".equals(status) || "PENDING".equals(status);
+        return "RUNNING".equals(status) || "PENDING".equals(status) || "PAUSED".equals(status);
     }
 }
\ No newline at end of file
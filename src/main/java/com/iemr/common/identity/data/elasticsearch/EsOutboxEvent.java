@@ -0,0 +1,65 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.data.elasticsearch;
+
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Pending Elasticsearch re-index of one beneficiary, written in the same
+ * transaction as the change that made the index stale
+ */
+@Entity
+@Table(name = "t_es_outbox")
+@Data
+public class EsOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "outbox_id")
+    private Long outboxId;
+
+    @Column(name = "ben_reg_id", nullable = false)
+    private BigInteger benRegId;
+
+    @Column(name = "source", length = 50)
+    private String source; // CREATE, EDIT, FAMILY_TAG, RMNCH_SYNC
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "next_attempt_at")
+    private Timestamp nextAttemptAt;
+
+    @Column(name = "created_date", nullable = false, updatable = false)
+    private Timestamp createdDate;
+
+    @PrePersist
+    protected void onCreate() {
+        createdDate = new Timestamp(System.currentTimeMillis());
+    }
+}
@@ -30,6 +30,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 
 import com.google.gson.annotations.Expose;
 
@@ -114,6 +115,11 @@ public class BenFamilyMapping {
 	@Column(name = "SyncedDate")
 	private Timestamp syncedDate;
 
+	// optimistic lock, also bumped by the atomic member count updates
+	@Version
+	@Column(name = "Version")
+	private Long version;
+
 	@Transient
 	private Integer districtId;
 
@@ -0,0 +1,73 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.domain;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+
+/**
+ * The persistent class for the beneficiary_phone_index database table. One row
+ * per (normalized phone number, BenRegId, phone slot) of a beneficiary contact,
+ * indexed on PhoneNum so that a phone search is a single index seek.
+ */
+@Entity
+@Table(name = "beneficiary_phone_index")
+@Data
+public class MBeneficiaryPhoneIndex implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "PhoneIndexID", unique = true, nullable = false)
+	private BigInteger phoneIndexID;
+
+	// last 10 digits of the number, country code and trunk prefix removed
+	@Column(name = "PhoneNum", nullable = false, length = 15)
+	private String phoneNum;
+
+	@Column(name = "BenRegId", nullable = false)
+	private BigInteger benRegId;
+
+	// preferred, phone1 .. phone5, emergency
+	@Column(name = "PhoneSlot", nullable = false, length = 15)
+	private String phoneSlot;
+
+	@Column(name = "BenContactsID")
+	private BigInteger benContactsID;
+
+	@Column(name = "VanID")
+	private Integer vanID;
+
+	@Column(name = "CreatedDate", updatable = false)
+	private Timestamp createdDate;
+
+}
@@ -115,6 +115,9 @@ public class MBeneficiarydetail implements Serializable {
 	@Column(name = "faceEmbedding")
 	private String faceEmbedding;
 
+	@Column(name = "FaceEmbeddingBin")
+	private byte[] faceEmbeddingBin;
+
 
 	@Column(length = 20)
 	private String maritalStatus;
@@ -28,6 +28,7 @@ import java.util.List;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -166,7 +167,8 @@ public class MBeneficiarymapping implements Serializable {
 	 * New columns added for MMU integration 11-04-2018
 	 */
 	// uni-directional one-to-one association
-	@OneToOne
+	// lazy so that list responses do not drag the photo along with every mapping
+	@OneToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "BenImageId")
 	private MBeneficiaryImage mBeneficiaryImage;
 
@@ -0,0 +1,90 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.dto;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+
+/**
+ * How much of a beneficiary a list endpoint returns, taken from the optional
+ * view= and fields= request parameters.
+ *
+ * The summary view never loads the photo and biometric row and leaves out the
+ * face embedding. A fields= list also trims each row to the named top-level
+ * properties, and implies the summary view unless faceEmbedding is asked for.
+ */
+@Getter
+public class BeneficiaryProjection {
+
+	public static final String VIEW_SUMMARY = "summary";
+	public static final String VIEW_FULL = "full";
+
+	private static final String FACE_EMBEDDING = "faceEmbedding";
+
+	public static final BeneficiaryProjection FULL = new BeneficiaryProjection(false, Collections.emptySet());
+
+	private final boolean summary;
+
+	/**
+	 * Top-level properties to keep, empty for all
+	 */
+	private final Set<String> fields;
+
+	private BeneficiaryProjection(boolean summary, Set<String> fields) {
+		this.summary = summary;
+		this.fields = fields;
+	}
+
+	public static BeneficiaryProjection of(String view, String fields) {
+		Set<String> fieldSet = Collections.emptySet();
+		if (fields != null && !fields.isBlank()) {
+			Set<String> requested = Arrays.stream(fields.split(",")).map(String::trim).filter(f -> !f.isEmpty())
+					.collect(Collectors.toCollection(LinkedHashSet::new));
+			fieldSet = Collections.unmodifiableSet(requested);
+		}
+
+		boolean summary;
+		if (view == null || view.isBlank()) {
+			summary = !fieldSet.isEmpty() && !fieldSet.contains(FACE_EMBEDDING);
+		} else if (VIEW_SUMMARY.equalsIgnoreCase(view.trim())) {
+			summary = true;
+		} else if (VIEW_FULL.equalsIgnoreCase(view.trim())) {
+			summary = false;
+		} else {
+			throw new IllegalArgumentException("Unknown view '" + view + "', expected summary or full");
+		}
+
+		if (!summary && fieldSet.isEmpty()) {
+			return FULL;
+		}
+		return new BeneficiaryProjection(summary, fieldSet);
+	}
+
+	public boolean includesHeavyFields() {
+		return !summary;
+	}
+}
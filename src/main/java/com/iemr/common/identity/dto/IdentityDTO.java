@@ -136,4 +136,11 @@ public class IdentityDTO {
 	private Boolean beneficiaryConsent;
 	// private Object otherFields;
 
+	/**
+	 * Paging for finite search, page size capped server side
+	 */
+	private Integer pageNo;
+	private Integer pageSize;
+	private Boolean containsMatch;
+
 }
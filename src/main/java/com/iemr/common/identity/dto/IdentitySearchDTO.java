@@ -59,4 +59,13 @@ public class IdentitySearchDTO {
 	private Long houseHoldID;
 	private Boolean isD2D;
 
+	/**
+	 * Paging for search: zero based page number, page size capped server side.
+	 * containsMatch switches name filters from prefix to substring match.
+	 */
+	private Integer pageNo;
+	private Integer pageSize;
+	private Boolean includeTotalCount;
+	private Boolean containsMatch;
+
 }
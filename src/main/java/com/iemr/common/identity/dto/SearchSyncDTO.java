@@ -31,4 +31,12 @@ public class SearchSyncDTO {
 	private Long lastModifiedDate;
 	private List<Integer> villageID;
 
+	/**
+	 * Optional paging for incremental sync. When pageSize is supplied the response
+	 * carries at most pageSize records with BenRegId greater than afterBenRegId,
+	 * along with the cursor to send for the next page.
+	 */
+	private Integer pageSize;
+	private Long afterBenRegId;
+
 }
@@ -25,28 +25,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
-import com.google.gson.LongSerializationPolicy;
 import com.iemr.common.identity.exception.IEMRException;
+import com.iemr.common.identity.utils.mapper.JsonMappers;
 
 public class InputMapper
 {
 	private static final Logger logger = LoggerFactory.getLogger(InputMapper.class);
 
-	private static GsonBuilder builder;
 	private static InputMapper instance = null;
 
 	private InputMapper()
 	{
-		builder = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
-				// .excludeFieldsWithoutExposeAnnotation()
-				.serializeNulls().setLongSerializationPolicy(LongSerializationPolicy.STRING);
 	}
 
 	public static InputMapper getInstance()
@@ -61,12 +56,12 @@ public class InputMapper
 
 	public Gson gson()
 	{
-		return builder.create();
+		return JsonMappers.gson();
 	}
 
 	public <T> T fromJson(String json, Class<T> classOfT) throws IEMRException
 	{
-		return builder.create().fromJson(json, classOfT);
+		return JsonMappers.gson().fromJson(json, classOfT);
 	}
 
 	public boolean validate(String json) throws IEMRException
@@ -22,19 +22,14 @@
 package com.iemr.common.identity.mapper;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.LongSerializationPolicy;
+import com.iemr.common.identity.utils.mapper.JsonMappers;
 
 public class OutputMapper
 {
-	private static GsonBuilder builder;
 	private static OutputMapper instance = null;
 
 	private OutputMapper()
 	{
-		builder = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
-				// .excludeFieldsWithoutExposeAnnotation()
-				.serializeNulls().setLongSerializationPolicy(LongSerializationPolicy.STRING);
 	}
 
 	public static OutputMapper getInstance()
@@ -49,6 +44,6 @@ public class OutputMapper
 
 	public Gson gson()
 	{
-		return builder.create();
+		return JsonMappers.gson();
 	}
 }
@@ -57,9 +57,14 @@ public interface BenContactRepo extends CrudRepository<MBeneficiarycontact, BigI
 
 
 
-	@Query("select c from MBeneficiarycontact c where c.preferredPhoneNum = :phoneNum or c.phoneNum1 = :phoneNum "
-			+ "or c.phoneNum2 = :phoneNum or c.phoneNum3 = :phoneNum or c.phoneNum4 = :phoneNum "
-			+ "or c.phoneNum5 = :phoneNum or c.emergencyContactNum = :phoneNum order by c.benContactsID")
+	/**
+	 * Contacts having the number in any phone slot, resolved through the
+	 * beneficiary_phone_index table. phoneNum must already be normalized, see
+	 * BeneficiaryPhoneIndexService.normalize.
+	 */
+	@Query("select c from MBeneficiarycontact c where c.benContactsID in "
+			+ "(select p.benContactsID from MBeneficiaryPhoneIndex p where p.phoneNum = :phoneNum) "
+			+ "order by c.benContactsID")
 	List<MBeneficiarycontact> findByAllPhoneNum(@Param("phoneNum") String phoneNum);
 
 	@Transactional
@@ -145,9 +145,30 @@ public interface BenDetailRepo extends CrudRepository<MBeneficiarydetail, BigInt
 	int untagFamily(@Param("modifiedBy") String modifiedBy, @Param("vanSerialNo") BigInteger vanSerialNo,
 			@Param("vanID") Integer vanID);
 
+	@Transactional
+	@Modifying
+	@Query("UPDATE MBeneficiarydetail c SET c.familyId = null,c.headOfFamily_RelationID = null,c.other = null, "
+			+ " c.headOfFamily_Relation = null,c.modifiedBy = :modifiedBy "
+			+ " WHERE c.vanSerialNo IN :vanSerialNos AND c.vanID =:vanID ")
+	int untagFamilyMembers(@Param("modifiedBy") String modifiedBy,
+			@Param("vanSerialNos") List<BigInteger> vanSerialNos, @Param("vanID") Integer vanID);
+
 	@Query("SELECT b FROM MBeneficiarydetail b WHERE b.familyId =:familyid  ")
 	List<MBeneficiarydetail> searchByFamilyId(@Param("familyid") String familyid);
 
+	@Query(value = "SELECT m.BenRegId, d.FaceEmbeddingBin, d.faceEmbedding FROM i_beneficiarydetails d "
+			+ "JOIN i_beneficiarymapping m ON m.BenDetailsId = d.BeneficiaryDetailsId "
+			+ "WHERE (d.FaceEmbeddingBin IS NOT NULL OR d.faceEmbedding IS NOT NULL) AND m.BenRegId > :after "
+			+ "ORDER BY m.BenRegId LIMIT :limit", nativeQuery = true)
+	List<Object[]> getFaceEmbeddingsAfter(@Param("after") BigInteger after, @Param("limit") int limit);
+
+	// LastModDate is kept as is so the backfill does not show up in incremental syncs
+	@Transactional
+	@Modifying
+	@Query(value = "UPDATE i_beneficiarydetails d JOIN i_beneficiarymapping m ON m.BenDetailsId = d.BeneficiaryDetailsId "
+			+ "SET d.FaceEmbeddingBin = :bin, d.LastModDate = d.LastModDate WHERE m.BenRegId = :benRegId", nativeQuery = true)
+	int updateFaceEmbeddingBin(@Param("benRegId") BigInteger benRegId, @Param("bin") byte[] bin);
+
 	  /**
      * Find complete beneficiary data by IDs from Elasticsearch
      */
@@ -24,9 +24,13 @@ package com.iemr.common.identity.repo;
 import java.math.BigInteger;
 import java.sql.Timestamp;
 import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -38,8 +42,78 @@ import com.iemr.common.identity.domain.VBenAdvanceSearch;
 import com.iemr.common.identity.dto.IdentityDTO;
 import com.iemr.common.identity.dto.IdentitySearchDTO;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface BenMappingRepo extends CrudRepository<MBeneficiarymapping, BigInteger>, BenMappingRepoCustom {
+
+    /**
+     * Last modification of the indexed data in epoch millis: the latest of the
+     * mapping, details, address and contact rows, since edits to the latter do
+     * not always touch the mapping. Needs the d, addr and contact joins of
+     * COMPLETE_DATA_QUERY.
+     */
+    String LAST_MOD_DATE_MILLIS = "UNIX_TIMESTAMP(GREATEST(m.LastModDate, " +
+        "COALESCE(d.LastModDate, m.LastModDate), " +
+        "COALESCE(addr.LastModDate, m.LastModDate), " +
+        "COALESCE(contact.LastModDate, m.LastModDate))) * 1000";
+
+    /**
+     * COMPLETE DATA FETCH - Single query with all joins
+     * This is the key query that fetches everything needed for ES indexing.
+     * Gender and marital status names come from MasterDataCacheService.
+     */
+    String COMPLETE_DATA_QUERY = "SELECT " +
+        "m.BenRegId, " +                                        // 0
+        "brm.BeneficiaryId, " +                                 // 1
+        "d.FirstName, " +                                       // 2
+        "d.MiddleName, " +                                      // 3
+        "d.LastName, " +                                        // 4
+        "d.GenderID, " +                                        // 5
+        "d.DOB, " +                                             // 6
+        "TIMESTAMPDIFF(YEAR, d.DOB, CURDATE()), " +            // 7 - age
+        "d.FatherName, " +                                      // 8
+        "d.SpouseName, " +                                      // 9
+        "d.MaritalStatusID, " +                                 // 10
+        "d.IsHIVPositive, " +                                   // 11
+        "m.CreatedBy, " +                                       // 12
+        "m.CreatedDate, " +                                     // 13
+        LAST_MOD_DATE_MILLIS + ", " +                           // 14
+        "m.BenAccountID, " +                                    // 15
+        "contact.PreferredPhoneNum, " +                         // 16
+        "fam.BenFamilyMapId, " +                                // 17
+        "addr.CurrStateId, " +                                  // 18
+        "addr.CurrState, " +                                    // 19
+        "addr.CurrDistrictId, " +                               // 20
+        "addr.CurrDistrict, " +                                 // 21
+        "addr.CurrSubDistrictId, " +                            // 22
+        "addr.CurrSubDistrict, " +                              // 23
+        "addr.CurrVillageId, " +                                // 24
+        "addr.CurrVillage, " +                                  // 25
+        "addr.CurrPinCode, " +                                  // 26
+        "addr.CurrServicePointId, " +                           // 27
+        "addr.CurrServicePoint, " +                             // 28
+        "addr.ParkingPlaceID, " +                               // 29
+        "addr.PermStateId, " +                                  // 30
+        "addr.PermState, " +                                    // 31
+        "addr.PermDistrictId, " +                               // 32
+        "addr.PermDistrict, " +                                 // 33
+        "addr.PermSubDistrictId, " +                            // 34
+        "addr.PermSubDistrict, " +                              // 35
+        "addr.PermVillageId, " +                                // 36
+        "addr.PermVillage " +                                   // 37
+        "FROM i_beneficiarymapping m " +
+        "LEFT JOIN i_beneficiarydetails d ON m.BenDetailsId = d.BeneficiaryDetailsID " +
+        "LEFT JOIN i_beneficiaryaddress addr ON m.BenAddressId = addr.BenAddressID " +
+        "LEFT JOIN i_beneficiarycontacts contact ON m.BenContactsId = contact.BenContactsID " +
+        "LEFT JOIN m_beneficiaryregidmapping brm ON brm.BenRegId = m.BenRegId " +
+        "LEFT JOIN db_iemr.m_benhealthidmapping h ON m.BenRegId = h.BeneficiaryRegID " +
+        "LEFT JOIN i_beneficiaryfamilymapping fam " +
+        "       ON m.BenRegId = fam.AssociatedBenRegID " +
+        "      AND fam.Deleted = false " +
+        "WHERE m.BenRegId IN :benRegIds " +
+        "AND m.Deleted = false";
+
 	MBeneficiarymapping findByBenMapIdOrderByBenMapIdAsc(BigInteger benMapId);
 
 	MBeneficiarymapping findByBenRegIdOrderByBenMapIdAsc(BigInteger benRegId);
@@ -90,12 +164,43 @@ public interface BenMappingRepo extends CrudRepository<MBeneficiarymapping, BigI
 			+ " WHERE BenRegId IN :benRegIDList ORDER BY BenMapId Desc ", nativeQuery = true)
 	public List<Object[]> getBenMappingByRegIDList(@Param("benRegIDList") List<BigInteger> benRegIDList);
 
+	/**
+	 * D2D phone search filters, applied before hydration. Details and address
+	 * are joined the way the DTO builder loads them (VanSerialNo + VanID);
+	 * null parameters are ignored.
+	 */
+	@Query(value = "SELECT m.BenRegId FROM i_beneficiarymapping m "
+			+ " LEFT JOIN i_beneficiarydetails d ON d.VanSerialNo = m.BenDetailsId AND d.VanID = m.VanID "
+			+ " LEFT JOIN i_beneficiaryaddress a ON a.VanSerialNo = m.BenAddressId AND a.VanID = m.VanID "
+			+ " WHERE m.BenRegId IN :benRegIDList "
+			+ " AND (:firstName IS NULL OR d.FirstName = :firstName) "
+			+ " AND (:lastName IS NULL OR d.LastName = :lastName) "
+			+ " AND (:genderId IS NULL OR d.GenderID = :genderId) "
+			+ " AND (:stateId IS NULL OR a.CurrStateId = :stateId) "
+			+ " AND (:districtId IS NULL OR a.CurrDistrictId = :districtId) "
+			+ " AND (:villageId IS NULL OR a.CurrVillageId = :villageId) "
+			+ " AND (:houseHoldId IS NULL OR EXISTS (SELECT 1 FROM i_beneficiarydetails_rmnch r "
+			+ "      WHERE r.BeneficiaryRegID = m.BenRegId AND r.houseoldId = :houseHoldId)) ", nativeQuery = true)
+	public List<Object> filterBenRegIdsForD2D(@Param("benRegIDList") List<BigInteger> benRegIDList,
+			@Param("firstName") String firstName, @Param("lastName") String lastName,
+			@Param("genderId") Integer genderId, @Param("houseHoldId") Long houseHoldId,
+			@Param("stateId") Integer stateId, @Param("districtId") Integer districtId,
+			@Param("villageId") Integer villageId);
+
 	@Query("SELECT t FROM MBeneficiarymapping t WHERE t.benRegId =:benRegId")
 	public MBeneficiarymapping getBenDetailsId(@Param("benRegId") BigInteger benRegId);
 
 	@Query("SELECT t.benRegId FROM MBeneficiarymapping t WHERE t.benDetailsId =:benDetailsId AND vanID = :vanID")
 	public BigInteger getBenRegId(@Param("benDetailsId") BigInteger benDetailsId, @Param("vanID") Integer vanID);
 
+	@Query("SELECT t.benDetailsId, t.vanID, t.benRegId FROM MBeneficiarymapping t "
+			+ " WHERE t.benDetailsId IN :benDetailsIds ")
+	public List<Object[]> getBenRegIdsByBenDetailsIds(@Param("benDetailsIds") List<BigInteger> benDetailsIds);
+
+	@Query("SELECT t.benRegId, t.benDetailsId, t.vanID FROM MBeneficiarymapping t "
+			+ " WHERE t.benRegId IN :benRegIds ")
+	public List<Object[]> getBenDetailsIdsByRegIDList(@Param("benRegIds") List<BigInteger> benRegIds);
+
 	@Query("SELECT t.benMapId, t.benAddressId, t.benConsentId, t.benContactsId, t.benDetailsId, "
 			+ " t.benRegId, t.benImageId, t.benAccountID, t.vanID, t.vanSerialNo, "
 			+ " t.createdBy, t.createdDate FROM MBeneficiarymapping t "
@@ -122,6 +227,30 @@ public interface BenMappingRepo extends CrudRepository<MBeneficiarymapping, BigI
 	Long getBeneficiaryCountsByVillageIDAndLastModifyDate(@Param("villageIDs") List<Integer> villageID,
 			@Param("lastModDate") Timestamp lastModifiedDate);
 
+	/**
+	 * Keyset page of BenRegIds modified after lastModDate in the given villages.
+	 * Each lastModDate column is probed by its own branch so MySQL can seek on the
+	 * per-table index instead of scanning for the OR across three tables.
+	 */
+	@Query(value = "SELECT u.BenRegId FROM ( "
+			+ " SELECT m.BenRegId FROM i_beneficiaryaddress a "
+			+ " JOIN i_beneficiarymapping m ON m.BenAddressId = a.BenAddressID "
+			+ " WHERE a.LastModDate > :lastModDate AND a.PermVillageId IN :villageIDs AND m.BenRegId > :afterBenRegId "
+			+ " UNION "
+			+ " SELECT m.BenRegId FROM i_beneficiarycontacts c "
+			+ " JOIN i_beneficiarymapping m ON m.BenContactsId = c.BenContactsID "
+			+ " JOIN i_beneficiaryaddress a ON a.BenAddressID = m.BenAddressId "
+			+ " WHERE c.LastModDate > :lastModDate AND a.PermVillageId IN :villageIDs AND m.BenRegId > :afterBenRegId "
+			+ " UNION "
+			+ " SELECT m.BenRegId FROM i_beneficiarydetails d "
+			+ " JOIN i_beneficiarymapping m ON m.BenDetailsId = d.BeneficiaryDetailsId "
+			+ " JOIN i_beneficiaryaddress a ON a.BenAddressID = m.BenAddressId "
+			+ " WHERE d.LastModDate > :lastModDate AND a.PermVillageId IN :villageIDs AND m.BenRegId > :afterBenRegId "
+			+ ") u ORDER BY u.BenRegId LIMIT :pageSize", nativeQuery = true)
+	List<Object> findBenRegIdsByVillageIDAndLastModifyDateAfter(@Param("villageIDs") List<Integer> villageID,
+			@Param("lastModDate") Timestamp lastModifiedDate, @Param("afterBenRegId") BigInteger afterBenRegId,
+			@Param("pageSize") int pageSize);
+
 	
 	//@Query("SELECT t FROM MBeneficiarymapping t WHERE t.vanSerialNo =:vanSerialNo AND t.vanID=:vanID")
 	@Query(value = "select bm FROM  MBeneficiarymapping bm "
@@ -159,67 +288,22 @@ public interface BenMappingRepo extends CrudRepository<MBeneficiarymapping, BigI
      */
     @Query(value = "SELECT COUNT(*) FROM i_beneficiarymapping WHERE Deleted = false", nativeQuery = true)
     long countActiveBeneficiaries();
-      /**
-     * COMPLETE DATA FETCH - Single query with all joins
-     * This is the key query that fetches everything needed for ES indexing
+
+    /**
+     * Complete indexing rows for the given BenRegIds, see COMPLETE_DATA_QUERY
      */
-    @Query(value = "SELECT " +
-        "m.BenRegId, " +                                        // 0
-        "brm.BeneficiaryId, " +                                 // 1
-        "d.FirstName, " +                                       // 2
-        "d.MiddleName, " +                                      // 3
-        "d.LastName, " +                                        // 4
-        "d.GenderID, " +                                        // 5
-        "g.GenderName, " +                                      // 6
-        "d.DOB, " +                                             // 7
-        "TIMESTAMPDIFF(YEAR, d.DOB, CURDATE()), " +            // 8 - age
-        "d.FatherName, " +                                      // 9
-        "d.SpouseName, " +                                      // 10
-        "d.MaritalStatusID, " +                                 // 11
-        "ms.Status as MaritalStatusName, " +                    // 12 - MaritalStatusName
-        "d.IsHIVPositive, " +                                   // 13
-        "m.CreatedBy, " +                                       // 14
-        "m.CreatedDate, " +                                     // 15
-        "UNIX_TIMESTAMP(m.LastModDate) * 1000, " +             // 16
-        "m.BenAccountID, " +                                    // 17
-        "contact.PreferredPhoneNum, " +                         // 18
-        "fam.BenFamilyMapId, " +                                // 19
-        "addr.CurrStateId, " +                                  // 20
-        "addr.CurrState, " +                                    // 21
-        "addr.CurrDistrictId, " +                               // 22
-        "addr.CurrDistrict, " +                                 // 23
-        "addr.CurrSubDistrictId, " +                            // 24
-        "addr.CurrSubDistrict, " +                              // 25
-        "addr.CurrVillageId, " +                                // 26
-        "addr.CurrVillage, " +                                  // 27
-        "addr.CurrPinCode, " +                                  // 28
-        "addr.CurrServicePointId, " +                           // 29
-        "addr.CurrServicePoint, " +                             // 30
-        "addr.ParkingPlaceID, " +                               // 31
-        "addr.PermStateId, " +                                  // 32
-        "addr.PermState, " +                                    // 33
-        "addr.PermDistrictId, " +                               // 34
-        "addr.PermDistrict, " +                                 // 35
-        "addr.PermSubDistrictId, " +                            // 36
-        "addr.PermSubDistrict, " +                              // 37
-        "addr.PermVillageId, " +                                // 38
-        "addr.PermVillage " +                                   // 39
-        "FROM i_beneficiarymapping m " +
-        "LEFT JOIN i_beneficiarydetails d ON m.BenDetailsId = d.BeneficiaryDetailsID " +
-        "LEFT JOIN db_iemr.m_gender g ON d.GenderID = g.GenderID " +
-        "LEFT JOIN db_iemr.m_maritalstatus ms ON d.MaritalStatusID = ms.MaritalStatusID " +
-        "LEFT JOIN i_beneficiaryaddress addr ON m.BenAddressId = addr.BenAddressID " +
-        "LEFT JOIN i_beneficiarycontacts contact ON m.BenContactsId = contact.BenContactsID " +
-        "LEFT JOIN m_beneficiaryregidmapping brm ON brm.BenRegId = m.BenRegId " +
-        "LEFT JOIN db_iemr.m_benhealthidmapping h ON m.BenRegId = h.BeneficiaryRegID " +
-        "LEFT JOIN i_beneficiaryfamilymapping fam " +
-        "       ON m.BenRegId = fam.AssociatedBenRegID " +
-        "      AND fam.Deleted = false " +
-        "WHERE m.BenRegId IN :benRegIds " +
-        "AND m.Deleted = false",
-        nativeQuery = true)
-		
+    @Query(value = COMPLETE_DATA_QUERY, nativeQuery = true)
     List<Object[]> findCompleteDataByBenRegIds(@Param("benRegIds") List<BigInteger> benRegIds);
+
+    /**
+     * Same rows as findCompleteDataByBenRegIds, streamed from a forward-only
+     * result set (MySQL row streaming) instead of materialized as a list.
+     * Must be consumed and closed inside a read-only transaction; the
+     * connection cannot run other statements while the stream is open.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(value = COMPLETE_DATA_QUERY, nativeQuery = true)
+    Stream<Object[]> streamCompleteDataByBenRegIds(@Param("benRegIds") List<BigInteger> benRegIds);
     
     /**
      * Find with all details (JPA approach - for single beneficiary)
@@ -243,5 +327,53 @@ public interface BenMappingRepo extends CrudRepository<MBeneficiarymapping, BigI
     @Query(value = "SELECT COUNT(*) > 0 FROM i_beneficiarymapping WHERE BenRegId = :benRegId AND Deleted = false", nativeQuery = true)
     boolean existsByBenRegId(@Param("benRegId") BigInteger benRegId);
 
+    /**
+     * Lowest and highest indexable BenRegId, used to size reconciliation ranges
+     */
+    @Query(value = "SELECT MIN(m.BenRegId), MAX(m.BenRegId) FROM i_beneficiarymapping m " +
+                   "JOIN m_beneficiaryregidmapping brm ON brm.BenRegId = m.BenRegId " +
+                   "WHERE m.Deleted = false AND brm.BeneficiaryId IS NOT NULL",
+           nativeQuery = true)
+    List<Object[]> getIndexableBenRegIdBounds();
+
+    /**
+     * Per-range digest of the indexable rows in [fromId, toId): range start,
+     * row count, sum of BenRegId and sum of the lastModDate value written to ES.
+     * Mirrors the rows findCompleteDataByBenRegIds turns into documents.
+     */
+    @Query(value = "SELECT FLOOR(m.BenRegId / :rangeSize) * :rangeSize AS rangeStart, " +
+                   "COUNT(*), SUM(m.BenRegId), SUM(" + LAST_MOD_DATE_MILLIS + ") " +
+                   "FROM i_beneficiarymapping m " +
+                   "JOIN m_beneficiaryregidmapping brm ON brm.BenRegId = m.BenRegId " +
+                   "LEFT JOIN i_beneficiarydetails d ON m.BenDetailsId = d.BeneficiaryDetailsID " +
+                   "LEFT JOIN i_beneficiaryaddress addr ON m.BenAddressId = addr.BenAddressID " +
+                   "LEFT JOIN i_beneficiarycontacts contact ON m.BenContactsId = contact.BenContactsID " +
+                   "WHERE m.BenRegId >= :fromId AND m.BenRegId < :toId " +
+                   "AND m.Deleted = false AND brm.BeneficiaryId IS NOT NULL " +
+                   "GROUP BY rangeStart",
+           nativeQuery = true)
+    List<Object[]> getRangeDigests(@Param("fromId") long fromId, @Param("toId") long toId,
+            @Param("rangeSize") long rangeSize);
+
+    /**
+     * Indexable BenRegIds in [fromId, toId)
+     */
+    @Query(value = "SELECT m.BenRegId FROM i_beneficiarymapping m " +
+                   "JOIN m_beneficiaryregidmapping brm ON brm.BenRegId = m.BenRegId " +
+                   "WHERE m.BenRegId >= :fromId AND m.BenRegId < :toId " +
+                   "AND m.Deleted = false AND brm.BeneficiaryId IS NOT NULL ORDER BY m.BenRegId",
+           nativeQuery = true)
+    List<Object> getIndexableBenRegIdsInRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * The given BenRegIds that are still indexable
+     */
+    @Query(value = "SELECT m.BenRegId FROM i_beneficiarymapping m " +
+                   "JOIN m_beneficiaryregidmapping brm ON brm.BenRegId = m.BenRegId " +
+                   "WHERE m.BenRegId IN :benRegIds " +
+                   "AND m.Deleted = false AND brm.BeneficiaryId IS NOT NULL",
+           nativeQuery = true)
+    List<Object> findIndexableBenRegIds(@Param("benRegIds") List<BigInteger> benRegIds);
+
 
 }
@@ -42,4 +42,9 @@ public interface BenMappingRepoCustom {
 	List<MBeneficiarymapping> finiteSearch(IdentityDTO identityDTO);
 
 	List<VBenAdvanceSearch> dynamicFilterSearchNew(IdentitySearchDTO searchDTO);
+
+	/**
+	 * Total number of rows matching the advance search filter, ignoring paging
+	 */
+	Long dynamicFilterSearchNewCount(IdentitySearchDTO searchDTO);
 }
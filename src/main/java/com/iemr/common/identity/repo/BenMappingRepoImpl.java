@@ -51,6 +51,11 @@ import com.iemr.common.identity.mapper.IdentitySearchMapper;
 
 public class BenMappingRepoImpl implements BenMappingRepoCustom {
 
+	/**
+	 * Hard upper bound on rows returned by a single search call
+	 */
+	static final int MAX_SEARCH_RESULTS = 500;
+
 	@PersistenceContext
 	private EntityManager entityManager;
 	@Autowired
@@ -81,8 +86,20 @@ public class BenMappingRepoImpl implements BenMappingRepoCustom {
 		CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
 		CriteriaQuery<MBeneficiarymapping> criteriaQuery = criteriaBuilder.createQuery(MBeneficiarymapping.class);
 		Root<MBeneficiarymapping> root = criteriaQuery.from(MBeneficiarymapping.class);
+		List<Predicate> predicates = dynamicFilterPredicates(criteriaBuilder, root, searchDTO);
+
+		criteriaQuery.select(root).where(predicates.toArray(new Predicate[] {}))
+				.orderBy(criteriaBuilder.asc(root.get("benMapId")));
+		TypedQuery<MBeneficiarymapping> typedQuery = entityManager.createQuery(criteriaQuery);
+		applyPaging(typedQuery, searchDTO.getPageNo(), searchDTO.getPageSize());
+		return typedQuery.getResultList();
+	}
+
+	private List<Predicate> dynamicFilterPredicates(CriteriaBuilder criteriaBuilder, Root<MBeneficiarymapping> root,
+			IdentitySearchDTO searchDTO) {
 		// add predicates to see more parameters
 		List<Predicate> predicates = new ArrayList<>();
+		Boolean containsMatch = searchDTO.getContainsMatch();
 
 		// for joining the tables whose column appears on where clause
 		Join<MBeneficiarymapping, MBeneficiarydetail> benDetail = root.join("mBeneficiarydetail", JoinType.INNER);
@@ -93,21 +110,24 @@ public class BenMappingRepoImpl implements BenMappingRepoCustom {
 		 */
 		if (searchDTO.getFirstName() != null) {
 
-			predicates.add(criteriaBuilder.like(benDetail.get("firstName"), "%" + searchDTO.getFirstName() + "%"));
+			predicates.add(criteriaBuilder.like(benDetail.get("firstName"),
+					likePattern(searchDTO.getFirstName(), containsMatch)));
 		}
 
 		/**
 		 * Middle Name is present, additional criteria needed
 		 */
 		if (searchDTO.getMiddleName() != null) {
-			predicates.add(criteriaBuilder.like(benDetail.get("middleName"), "%" + searchDTO.getMiddleName() + "%"));
+			predicates.add(criteriaBuilder.like(benDetail.get("middleName"),
+					likePattern(searchDTO.getMiddleName(), containsMatch)));
 		}
 
 		/**
 		 * Last Name is present, additional criteria needed
 		 */
 		if (searchDTO.getLastName() != null) {
-			predicates.add(criteriaBuilder.like(benDetail.get("lastName"), "%" + searchDTO.getLastName() + "%"));
+			predicates.add(criteriaBuilder.like(benDetail.get("lastName"),
+					likePattern(searchDTO.getLastName(), containsMatch)));
 		}
 
 		/**
@@ -128,14 +148,16 @@ public class BenMappingRepoImpl implements BenMappingRepoCustom {
 		 * Spouse Name is present, additional criteria needed
 		 */
 		if (searchDTO.getSpouseName() != null) {
-			predicates.add(criteriaBuilder.like(benDetail.get("spouseName"), "%" + searchDTO.getSpouseName() + "%"));
+			predicates.add(criteriaBuilder.like(benDetail.get("spouseName"),
+					likePattern(searchDTO.getSpouseName(), containsMatch)));
 		}
 
 		/**
 		 * Father Name present, additional criteria needed
 		 */
 		if (searchDTO.getFatherName() != null) {
-			predicates.add(criteriaBuilder.like(benDetail.get("fatherName"), "%" + searchDTO.getFatherName() + "%"));
+			predicates.add(criteriaBuilder.like(benDetail.get("fatherName"),
+					likePattern(searchDTO.getFatherName(), containsMatch)));
 		}
 
 		/**
@@ -177,10 +199,7 @@ public class BenMappingRepoImpl implements BenMappingRepoCustom {
 					.add(criteriaBuilder.equal(benAddress.get("currState"), searchDTO.getCurrentAddress().getState()));
 		}
 
-		criteriaQuery.select(root).where(predicates.toArray(new Predicate[] {}))
-				.orderBy(criteriaBuilder.asc(root.get("benMapId")));
-		TypedQuery<MBeneficiarymapping> typedQuery = entityManager.createQuery(criteriaQuery);
-		return typedQuery.getResultList();
+		return predicates;
 	}
 
 	/**
@@ -192,34 +211,49 @@ public class BenMappingRepoImpl implements BenMappingRepoCustom {
 		CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
 		CriteriaQuery<MBeneficiarymapping> criteriaQuery = criteriaBuilder.createQuery(MBeneficiarymapping.class);
 		Root<MBeneficiarymapping> root = criteriaQuery.from(MBeneficiarymapping.class);
+		List<Predicate> predicates = finiteSearchPredicates(criteriaBuilder, root, identityDTO);
+
+		criteriaQuery.select(root).where(predicates.toArray(new Predicate[] {}))
+				.orderBy(criteriaBuilder.asc(root.get("benMapId")));
+		TypedQuery<MBeneficiarymapping> typedQuery = entityManager.createQuery(criteriaQuery);
+		applyPaging(typedQuery, identityDTO.getPageNo(), identityDTO.getPageSize());
+		return typedQuery.getResultList();
+	}
+
+	private List<Predicate> finiteSearchPredicates(CriteriaBuilder criteriaBuilder, Root<MBeneficiarymapping> root,
+			IdentityDTO identityDTO) {
 		// add predicates to see more parameters
 		List<Predicate> predicates = new ArrayList<>();
+		Boolean containsMatch = identityDTO.getContainsMatch();
 
 		// for joining the tables whose column appears on where clause
 		Join<MBeneficiarymapping, MBeneficiarydetail> benDetail = root.join("mBeneficiarydetail", JoinType.INNER);
 		Join<MBeneficiarymapping, MBeneficiaryaddress> benAddress = root.join("mBeneficiaryaddress", JoinType.INNER);
-		Join<MBeneficiarymapping, MBeneficiarycontact> benContact = root.join("mBeneficiaryaddress", JoinType.INNER);
+		Join<MBeneficiarymapping, MBeneficiarycontact> benContact = root.join("mBeneficiarycontact", JoinType.INNER);
 
 		/**
 		 * First Name is present, additional criteria needed
 		 */
 		if (identityDTO.getFirstName() != null) {
 
-			predicates.add(criteriaBuilder.like(benDetail.get("firstName"), "%" + identityDTO.getFirstName() + "%"));
+			predicates.add(criteriaBuilder.like(benDetail.get("firstName"),
+					likePattern(identityDTO.getFirstName(), containsMatch)));
 		}
 
 		/**
 		 * Middle Name is present, additional criteria needed
 		 */
 		if (identityDTO.getMiddleName() != null) {
-			predicates.add(criteriaBuilder.like(benDetail.get("middleName"), "%" + identityDTO.getMiddleName() + "%"));
+			predicates.add(criteriaBuilder.like(benDetail.get("middleName"),
+					likePattern(identityDTO.getMiddleName(), containsMatch)));
 		}
 
 		/**
 		 * Last Name is present, additional criteria needed
 		 */
 		if (identityDTO.getLastName() != null) {
-			predicates.add(criteriaBuilder.like(benDetail.get("lastName"), "%" + identityDTO.getLastName() + "%"));
+			predicates.add(criteriaBuilder.like(benDetail.get("lastName"),
+					likePattern(identityDTO.getLastName(), containsMatch)));
 		}
 
 		/**
@@ -240,7 +274,8 @@ public class BenMappingRepoImpl implements BenMappingRepoCustom {
 		 * Spouse Name is present, additional criteria needed
 		 */
 		if (identityDTO.getSpouseName() != null) {
-			predicates.add(criteriaBuilder.like(benDetail.get("spouseName"), "%" + identityDTO.getSpouseName() + "%"));
+			predicates.add(criteriaBuilder.like(benDetail.get("spouseName"),
+					likePattern(identityDTO.getSpouseName(), containsMatch)));
 		}
 
 		/**
@@ -254,7 +289,8 @@ public class BenMappingRepoImpl implements BenMappingRepoCustom {
 		 * Father Name present, additional criteria needed
 		 */
 		if (identityDTO.getFatherName() != null) {
-			predicates.add(criteriaBuilder.like(benDetail.get("fatherName"), "%" + identityDTO.getFatherName() + "%"));
+			predicates.add(criteriaBuilder.like(benDetail.get("fatherName"),
+					likePattern(identityDTO.getFatherName(), containsMatch)));
 		}
 
 		// code if address is not empty
@@ -341,9 +377,7 @@ public class BenMappingRepoImpl implements BenMappingRepoCustom {
 					identityDTO.getContact().getPreferredPhoneNum()));
 		}
 
-		criteriaQuery.select(root).where(predicates.toArray(new Predicate[] {}));
-		TypedQuery<MBeneficiarymapping> typedQuery = entityManager.createQuery(criteriaQuery);
-		return typedQuery.getResultList();
+		return predicates;
 	}
 
 	@Override
@@ -351,19 +385,45 @@ public class BenMappingRepoImpl implements BenMappingRepoCustom {
 		CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
 		CriteriaQuery<VBenAdvanceSearch> criteriaQuery = criteriaBuilder.createQuery(VBenAdvanceSearch.class);
 		Root<VBenAdvanceSearch> root = criteriaQuery.from(VBenAdvanceSearch.class);
+		List<Predicate> predicateList = advanceSearchPredicates(criteriaBuilder, root, searchDTO);
+
+		criteriaQuery.select(root).where(predicateList.toArray(new Predicate[] {}))
+				.orderBy(criteriaBuilder.asc(root.get("benMapID")));
+		TypedQuery<VBenAdvanceSearch> typedQuery = entityManager.createQuery(criteriaQuery);
+		applyPaging(typedQuery, searchDTO.getPageNo(), searchDTO.getPageSize());
+		return typedQuery.getResultList();
+	}
+
+	@Override
+	public Long dynamicFilterSearchNewCount(IdentitySearchDTO searchDTO) {
+		CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> countQuery = criteriaBuilder.createQuery(Long.class);
+		Root<VBenAdvanceSearch> root = countQuery.from(VBenAdvanceSearch.class);
+		List<Predicate> predicateList = advanceSearchPredicates(criteriaBuilder, root, searchDTO);
+
+		countQuery.select(criteriaBuilder.count(root)).where(predicateList.toArray(new Predicate[] {}));
+		return entityManager.createQuery(countQuery).getSingleResult();
+	}
+
+	private List<Predicate> advanceSearchPredicates(CriteriaBuilder criteriaBuilder, Root<VBenAdvanceSearch> root,
+			IdentitySearchDTO searchDTO) {
 		List<Predicate> predicateList = new ArrayList<>();
+		Boolean containsMatch = searchDTO.getContainsMatch();
 
 		// if firstName is not null
 		if (searchDTO.getFirstName() != null) {
-			predicateList.add(criteriaBuilder.like(root.get("firstName"), "%" + searchDTO.getFirstName() + "%"));
+			predicateList.add(criteriaBuilder.like(root.get("firstName"),
+					likePattern(searchDTO.getFirstName(), containsMatch)));
 		}
 		// if middleName is not null
 		if (searchDTO.getMiddleName() != null) {
-			predicateList.add(criteriaBuilder.like(root.get("middleName"), "%" + searchDTO.getMiddleName() + "%"));
+			predicateList.add(criteriaBuilder.like(root.get("middleName"),
+					likePattern(searchDTO.getMiddleName(), containsMatch)));
 		}
 		// if lastName is not null
 		if (searchDTO.getLastName() != null) {
-			predicateList.add(criteriaBuilder.like(root.get("lastName"), "%" + searchDTO.getLastName() + "%"));
+			predicateList.add(criteriaBuilder.like(root.get("lastName"),
+					likePattern(searchDTO.getLastName(), containsMatch)));
 		}
 		// if genderID is not null
 		if (searchDTO.getGenderId() != null) {
@@ -386,7 +446,8 @@ public class BenMappingRepoImpl implements BenMappingRepoCustom {
 
 		// if father Name is not null
 		if (searchDTO.getFatherName() != null) {
-			predicateList.add(criteriaBuilder.like(root.get("fatherName"), "%" + searchDTO.getFatherName() + "%"));
+			predicateList.add(criteriaBuilder.like(root.get("fatherName"),
+					likePattern(searchDTO.getFatherName(), containsMatch)));
 		}
 
 		// if DOB is not null
@@ -411,9 +472,26 @@ public class BenMappingRepoImpl implements BenMappingRepoCustom {
 					.add(criteriaBuilder.equal(root.get("villageID"), searchDTO.getCurrentAddress().getVillageId()));
 		}
 
-		criteriaQuery.select(root).where(predicateList.toArray(new Predicate[] {}));
-		TypedQuery<VBenAdvanceSearch> typedQuery = entityManager.createQuery(criteriaQuery);
-		return typedQuery.getResultList();
+		return predicateList;
+	}
+
+	/**
+	 * Prefix match by default so the name indexes can be used, substring match
+	 * only when the caller explicitly asks for it
+	 */
+	private static String likePattern(String term, Boolean containsMatch) {
+		return Boolean.TRUE.equals(containsMatch) ? "%" + term + "%" : term + "%";
+	}
+
+	/**
+	 * Applies the requested page, capping the page size at MAX_SEARCH_RESULTS
+	 * so that a vague filter cannot materialize the whole table
+	 */
+	private static void applyPaging(TypedQuery<?> typedQuery, Integer pageNo, Integer pageSize) {
+		int size = (pageSize == null || pageSize <= 0) ? MAX_SEARCH_RESULTS : Math.min(pageSize, MAX_SEARCH_RESULTS);
+		int page = (pageNo == null || pageNo < 0) ? 0 : pageNo;
+		typedQuery.setFirstResult(page * size);
+		typedQuery.setMaxResults(size);
 	}
 
 }
@@ -22,6 +22,7 @@
 package com.iemr.common.identity.repo;
 
 import java.math.BigInteger;
+import java.util.List;
 
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -46,4 +47,13 @@ public interface MBeneficiaryImageRepo extends CrudRepository<MBeneficiaryImage,
 	@Query("SELECT a FROM MBeneficiaryImage a WHERE a.vanSerialNo =:vanSerialNo AND a.vanID =:vanID ")
 	MBeneficiaryImage getWithVanSerialNoVanID(@Param("vanSerialNo") BigInteger vanSerialNo,
 			@Param("vanID") Integer vanID);
+
+	// image row id and a content hash, so an unchanged image can be answered without reading it
+	@Query(value = "SELECT i.BenImageId, MD5(i.BenImage) FROM i_beneficiarymapping m "
+			+ "JOIN i_beneficiaryimage i ON i.VanSerialNo = m.BenImageId AND i.VanID = m.VanID "
+			+ "WHERE m.BenRegId = :benRegId AND i.BenImage IS NOT NULL", nativeQuery = true)
+	List<Object[]> getBenImageVersionByBenRegID(@Param("benRegId") BigInteger benRegId);
+
+	@Query("SELECT t.benImage FROM MBeneficiaryImage t WHERE t.benImageId = :benImageId")
+	String getBenImageData(@Param("benImageId") BigInteger benImageId);
 }
@@ -0,0 +1,73 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.repo.elasticsearch;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.iemr.common.identity.data.elasticsearch.EsOutboxEvent;
+
+@Repository
+public interface EsOutboxRepo extends JpaRepository<EsOutboxEvent, Long> {
+
+    /**
+     * Oldest pending events whose retry time has come, locked for the caller's
+     * transaction. Rows held by another instance's poller are skipped rather
+     * than waited on.
+     */
+    @Query(value = "SELECT * FROM t_es_outbox WHERE attempts < :maxAttempts "
+            + "AND (next_attempt_at IS NULL OR next_attempt_at <= NOW()) ORDER BY outbox_id "
+            + "LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EsOutboxEvent> lockPendingBatch(@Param("maxAttempts") int maxAttempts, @Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM EsOutboxEvent e WHERE e.outboxId IN :ids")
+    int deleteByOutboxIds(@Param("ids") List<Long> ids);
+
+    /**
+     * Count a failed attempt and back off exponentially from the attempts made
+     * so far, capped at maxDelaySeconds.
+     */
+    @Modifying
+    @Query(value = "UPDATE t_es_outbox SET next_attempt_at = DATE_ADD(NOW(), INTERVAL "
+            + "LEAST(:maxDelaySeconds, :baseDelaySeconds * POW(2, attempts)) SECOND), "
+            + "attempts = attempts + 1, last_error = :error WHERE outbox_id IN :ids", nativeQuery = true)
+    int markFailed(@Param("ids") List<Long> ids, @Param("error") String error,
+            @Param("baseDelaySeconds") int baseDelaySeconds, @Param("maxDelaySeconds") int maxDelaySeconds);
+
+    /**
+     * Retry later without counting an attempt, for failures of the whole batch
+     * that are not the events' fault.
+     */
+    @Modifying
+    @Query(value = "UPDATE t_es_outbox SET next_attempt_at = DATE_ADD(NOW(), INTERVAL :delaySeconds SECOND), "
+            + "last_error = :error WHERE outbox_id IN :ids", nativeQuery = true)
+    int defer(@Param("ids") List<Long> ids, @Param("error") String error, @Param("delaySeconds") int delaySeconds);
+
+    @Query("SELECT COUNT(e) FROM EsOutboxEvent e WHERE e.attempts < :maxAttempts")
+    long countPending(@Param("maxAttempts") int maxAttempts);
+}
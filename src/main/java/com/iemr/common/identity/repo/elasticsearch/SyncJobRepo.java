@@ -26,8 +26,10 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.iemr.common.identity.data.elasticsearch.ElasticsearchSyncJob;
 
@@ -35,17 +37,23 @@ import com.iemr.common.identity.data.elasticsearch.ElasticsearchSyncJob;
 public interface SyncJobRepo extends JpaRepository<ElasticsearchSyncJob, Long> {
 
     /**
-     * Find all active (running or pending) jobs
+     * Find all active (running, pending or paused) jobs
      */
-    @Query("SELECT j FROM ElasticsearchSyncJob j WHERE j.status IN ('RUNNING', 'PENDING') ORDER BY j.createdDate DESC")
+    @Query("SELECT j FROM ElasticsearchSyncJob j WHERE j.status IN ('RUNNING', 'PENDING', 'PAUSED') ORDER BY j.createdDate DESC")
     List<ElasticsearchSyncJob> findActiveJobs();
 
     /**
      * Check if there's any active full sync job
      */
-    @Query("SELECT COUNT(j) > 0 FROM ElasticsearchSyncJob j WHERE j.jobType = 'FULL_SYNC' AND j.status IN ('RUNNING', 'PENDING')")
+    @Query("SELECT COUNT(j) > 0 FROM ElasticsearchSyncJob j WHERE j.jobType = 'FULL_SYNC' AND j.status IN ('RUNNING', 'PENDING', 'PAUSED')")
     boolean hasActiveFullSyncJob();
 
+    /**
+     * Check if there's any active job of the given type
+     */
+    @Query("SELECT COUNT(j) > 0 FROM ElasticsearchSyncJob j WHERE j.jobType = :jobType AND j.status IN ('RUNNING', 'PENDING', 'PAUSED')")
+    boolean hasActiveJobOfType(String jobType);
+
     /**
      * Find latest job of a specific type
      */
@@ -62,4 +70,42 @@ public interface SyncJobRepo extends JpaRepository<ElasticsearchSyncJob, Long> {
      * Find job by ID
      */
     Optional<ElasticsearchSyncJob> findByJobId(Long jobId);
+
+    /**
+     * Jobs waiting for their maintenance window to reopen
+     */
+    @Query("SELECT j FROM ElasticsearchSyncJob j WHERE j.status = 'PAUSED' AND j.windowCron IS NOT NULL ORDER BY j.createdDate")
+    List<ElasticsearchSyncJob> findPausedWindowedJobs();
+
+    /**
+     * Move a PAUSED job to PENDING; returns 0 if another instance got there first
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ElasticsearchSyncJob j SET j.status = 'PENDING' WHERE j.jobId = :jobId AND j.status = 'PAUSED'")
+    int claimPausedJob(Long jobId);
+
+    /**
+     * Cancel an active job without touching its progress columns; returns 0 if
+     * the job is not active
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ElasticsearchSyncJob j SET j.status = 'CANCELLED', j.completedAt = CURRENT_TIMESTAMP, " +
+           "j.lastUpdated = CURRENT_TIMESTAMP " +
+           "WHERE j.jobId = :jobId AND j.status IN ('RUNNING', 'PENDING', 'PAUSED')")
+    int cancelActiveJob(Long jobId);
+
+    /**
+     * Checkpoint a running job; returns 0 if the job is no longer RUNNING,
+     * e.g. it was cancelled from another instance
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ElasticsearchSyncJob j SET j.processedRecords = :processed, j.successCount = :success, " +
+           "j.failureCount = :failure, j.currentOffset = :offset, j.processingSpeed = :speed, " +
+           "j.estimatedTimeRemaining = :remaining, j.lastUpdated = CURRENT_TIMESTAMP " +
+           "WHERE j.jobId = :jobId AND j.status = 'RUNNING'")
+    int saveProgressIfRunning(Long jobId, Long processed, Long success, Long failure, Integer offset,
+            Double speed, Long remaining);
 }
\ No newline at end of file
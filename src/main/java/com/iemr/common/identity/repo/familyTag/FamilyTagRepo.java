@@ -50,6 +50,19 @@ public interface FamilyTagRepo extends CrudRepository<BenFamilyMapping,Long> {
 	
 	@Query("SELECT obj FROM BenFamilyMapping obj WHERE obj.familyId =:familyId")
 	BenFamilyMapping searchFamilyByFamilyId(@Param("familyId") String familyId);
+
+	/**
+	 * Adds delta to the member count in a single statement, never going below
+	 * zero. A non null familyHeadName replaces the current head name.
+	 */
+	@Transactional
+	@Modifying
+	@Query("update BenFamilyMapping f set f.noOfmembers = case when coalesce(f.noOfmembers, 0) + :delta < 0 then 0 "
+			+ " else coalesce(f.noOfmembers, 0) + :delta end, "
+			+ " f.familyHeadName = coalesce(:familyHeadName, f.familyHeadName), "
+			+ " f.modifiedBy = :modifiedBy, f.version = coalesce(f.version, 0) + 1 where f.familyId = :familyId")
+	int updateMemberCount(@Param("familyId") String familyId, @Param("delta") int delta,
+			@Param("familyHeadName") String familyHeadName, @Param("modifiedBy") String modifiedBy);
 	
 	@Query(value="SELECT userid FROM db_iemr.m_user where username =:username",nativeQuery=true)
 	public Integer getUserId(@Param("username") String username);
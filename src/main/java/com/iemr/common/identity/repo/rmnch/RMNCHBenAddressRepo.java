@@ -30,6 +30,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.iemr.common.identity.data.rmnch.RMNCHMBeneficiaryaddress;
 
@@ -39,19 +40,24 @@ public interface RMNCHBenAddressRepo extends JpaRepository<RMNCHMBeneficiaryaddr
 	public RMNCHMBeneficiaryaddress getByIdAndVanID(@Param("vanSerialNo") BigInteger vanSerialNo,
 			@Param("vanID") int vanID);
 
+	// page reads for mobile sync; read-only so they can run on the replica
+	@Transactional(readOnly = true)
 	@Query(" SELECT t FROM RMNCHMBeneficiaryaddress t WHERE t.villageidPerm = :villageidPerm "
 			+ " AND t.VanID NOT IN (1,2,3,4,5,6,7,8,9) ")
 	public Page<RMNCHMBeneficiaryaddress> getBenData(@Param("villageidPerm") Integer villageidPerm, Pageable pageable);
 
+	@Transactional(readOnly = true)
 	@Query(" SELECT t FROM RMNCHMBeneficiaryaddress t WHERE DATE(t.createdDate) BETWEEN DATE(:fromDate) "
 			+ " AND DATE(:toDate) AND t.villageidPerm = :villageidPerm " + " AND t.VanID NOT IN (1,2,3,4,5,6,7,8,9) ")
 	public Page<RMNCHMBeneficiaryaddress> getBenDataFilteredWithDateRange(@Param("villageidPerm") Integer villageidPerm,
 			@Param("fromDate") Timestamp fromDate, @Param("toDate") Timestamp toDate, Pageable pageable);
 
+	@Transactional(readOnly = true)
 	@Query(" SELECT t FROM RMNCHMBeneficiaryaddress t WHERE t.createdBy = :userName "
 			+ " AND t.VanID NOT IN (1,2,3,4,5,6,7,8,9) ")
 	public Page<RMNCHMBeneficiaryaddress> getBenDataByAsha(@Param("userName") String userName, Pageable pageable);
 
+	@Transactional(readOnly = true)
 	@Query(" SELECT t FROM RMNCHMBeneficiaryaddress t WHERE DATE(t.createdDate) BETWEEN DATE(:fromDate) "
 			+ " AND DATE(:toDate) AND t.createdBy = :userName " + " AND t.VanID NOT IN (1,2,3,4,5,6,7,8,9) ")
 	public Page<RMNCHMBeneficiaryaddress> getBenDataByAshaFilteredWithDateRange(@Param("userName") String userName,
@@ -0,0 +1,135 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.service;
+
+import java.math.BigInteger;
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.iemr.common.identity.repo.MBeneficiaryImageRepo;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Serves beneficiary photos as raw bytes.
+ *
+ * Photos are stored as base64 text, optionally as a data URI. The ETag is the
+ * MD5 of that text computed by MySQL, so a client revalidating an unchanged
+ * photo never causes the image column to leave the database.
+ */
+@Service
+public class BeneficiaryImageService {
+
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    @Autowired
+    private MBeneficiaryImageRepo imageRepo;
+
+    @Getter
+    @AllArgsConstructor
+    public static class ImageVersion {
+        private final BigInteger benImageId;
+        private final String eTag;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ImageContent {
+        private final byte[] data;
+        private final String contentType;
+    }
+
+    /**
+     * Current version of the beneficiary photo, null when there is none
+     */
+    public ImageVersion getImageVersion(BigInteger benRegId) {
+        List<Object[]> rows = imageRepo.getBenImageVersionByBenRegID(benRegId);
+        if (rows == null || rows.isEmpty() || rows.get(0)[0] == null) {
+            return null;
+        }
+        Object[] row = rows.get(0);
+        BigInteger benImageId = row[0] instanceof BigInteger ? (BigInteger) row[0]
+                : BigInteger.valueOf(((Number) row[0]).longValue());
+        return new ImageVersion(benImageId, "\"" + row[1] + "\"");
+    }
+
+    /**
+     * Decoded photo bytes, null when the stored value is empty or not base64
+     */
+    public ImageContent getImageContent(ImageVersion version) {
+        String encoded = imageRepo.getBenImageData(version.getBenImageId());
+        if (encoded == null || encoded.isBlank()) {
+            return null;
+        }
+
+        String contentType = null;
+        int comma = encoded.indexOf(',');
+        if (encoded.startsWith("data:") && comma > 0) {
+            int semicolon = encoded.indexOf(';');
+            if (semicolon > 5 && semicolon < comma) {
+                contentType = encoded.substring(5, semicolon);
+            }
+            encoded = encoded.substring(comma + 1);
+        }
+
+        byte[] data;
+        try {
+            data = Base64.getMimeDecoder().decode(encoded);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return new ImageContent(data, contentType != null ? contentType : detectContentType(data));
+    }
+
+    private static String detectContentType(byte[] data) {
+        if (startsWith(data, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(data, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (startsWith(data, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(data, 'R', 'I', 'F', 'F') && data.length > 11 && data[8] == 'W' && data[9] == 'E'
+                && data[10] == 'B' && data[11] == 'P') {
+            return "image/webp";
+        }
+        return DEFAULT_CONTENT_TYPE;
+    }
+
+    private static boolean startsWith(byte[] data, int... prefix) {
+        if (data.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
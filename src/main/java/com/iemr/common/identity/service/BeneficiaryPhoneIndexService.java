@@ -0,0 +1,123 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.service;
+
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.iemr.common.identity.domain.MBeneficiaryPhoneIndex;
+import com.iemr.common.identity.domain.MBeneficiarycontact;
+import com.iemr.common.identity.repo.BenPhoneIndexRepo;
+
+/**
+ * Maintains the normalized phone number lookup table.
+ *
+ * Every phone slot of a beneficiary contact is stored as its last 10 digits, so
+ * a search for "+91 98xxxxxxxx", "098xxxxxxxx" or "98xxxxxxxx" becomes a single
+ * equality seek on PhoneNum instead of an OR across seven contact columns.
+ */
+@Service
+public class BeneficiaryPhoneIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BeneficiaryPhoneIndexService.class);
+
+    private static final int PHONE_DIGITS = 10;
+
+    @Autowired
+    private BenPhoneIndexRepo phoneIndexRepo;
+
+    /**
+     * Strips everything but digits and keeps the trailing 10, which drops the
+     * country code and trunk prefix. Returns null when no usable number is left.
+     */
+    public static String normalize(String phoneNum) {
+        if (phoneNum == null) {
+            return null;
+        }
+        String digits = phoneNum.replaceAll("\\D", "");
+        if (digits.isEmpty()) {
+            return null;
+        }
+        return digits.length() > PHONE_DIGITS ? digits.substring(digits.length() - PHONE_DIGITS) : digits;
+    }
+
+    /**
+     * Replaces the index rows of a beneficiary with the numbers on the given
+     * contact. Called after the contact is saved on create and edit.
+     */
+    @Transactional
+    public void reindexContact(BigInteger benRegId, MBeneficiarycontact contact) {
+        if (benRegId == null || contact == null) {
+            return;
+        }
+        phoneIndexRepo.deleteByBenRegId(benRegId);
+
+        Map<String, String> slots = new LinkedHashMap<>();
+        slots.put("preferred", contact.getPreferredPhoneNum());
+        slots.put("phone1", contact.getPhoneNum1());
+        slots.put("phone2", contact.getPhoneNum2());
+        slots.put("phone3", contact.getPhoneNum3());
+        slots.put("phone4", contact.getPhoneNum4());
+        slots.put("phone5", contact.getPhoneNum5());
+        slots.put("emergency", contact.getEmergencyContactNum());
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<MBeneficiaryPhoneIndex> rows = new ArrayList<>();
+        for (Map.Entry<String, String> slot : slots.entrySet()) {
+            String phoneNum = normalize(slot.getValue());
+            if (phoneNum == null) {
+                continue;
+            }
+            MBeneficiaryPhoneIndex row = new MBeneficiaryPhoneIndex();
+            row.setPhoneNum(phoneNum);
+            row.setBenRegId(benRegId);
+            row.setPhoneSlot(slot.getKey());
+            row.setBenContactsID(contact.getBenContactsID());
+            row.setVanID(contact.getVanID());
+            row.setCreatedDate(now);
+            rows.add(row);
+        }
+        phoneIndexRepo.saveAll(rows);
+        logger.debug("Phone index refreshed for benRegId {} with {} numbers", benRegId, rows.size());
+    }
+
+    /**
+     * BenRegIds having the given number in any of their phone slots
+     */
+    public List<BigInteger> findBenRegIdsByPhoneNum(String phoneNum) {
+        String normalized = normalize(phoneNum);
+        if (normalized == null) {
+            return new ArrayList<>();
+        }
+        return phoneIndexRepo.findBenRegIdsByPhoneNum(normalized);
+    }
+}
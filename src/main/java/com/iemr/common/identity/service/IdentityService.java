@@ -26,7 +26,7 @@ import java.math.BigInteger;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -42,13 +42,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import com.google.gson.LongSerializationPolicy;
 import com.iemr.common.identity.data.rmnch.RMNCHBeneficiaryDetailsRmnch;
 import com.iemr.common.identity.domain.Address;
 import com.iemr.common.identity.domain.MBeneficiaryAccount;
@@ -67,7 +65,11 @@ import com.iemr.common.identity.dto.AbhaAddressDTO;
 import com.iemr.common.identity.dto.BenIdImportDTO;
 import com.iemr.common.identity.dto.BeneficiariesDTO;
 import com.iemr.common.identity.dto.BeneficiariesPartialDTO;
+import com.iemr.common.identity.dto.BeneficiarySearchPageDTO;
+import com.iemr.common.identity.dto.BeneficiarySyncPageDTO;
 import com.iemr.common.identity.dto.BeneficiaryCreateResp;
+import com.iemr.common.identity.dto.BeneficiaryProjection;
+import com.iemr.common.identity.dto.FaceSearchDTO;
 import com.iemr.common.identity.dto.IdentityDTO;
 import com.iemr.common.identity.dto.IdentityEditDTO;
 import com.iemr.common.identity.dto.IdentitySearchDTO;
@@ -92,13 +94,19 @@ import com.iemr.common.identity.repo.MBeneficiaryAccountRepo;
 import com.iemr.common.identity.repo.MBeneficiaryImageRepo;
 import com.iemr.common.identity.repo.V_BenAdvanceSearchRepo;
 import com.iemr.common.identity.repo.rmnch.RMNCHBeneficiaryDetailsRmnchRepo;
+import com.iemr.common.identity.service.elasticsearch.AdvanceSearchHits;
 import com.iemr.common.identity.service.elasticsearch.ElasticsearchService;
 import com.iemr.common.identity.utils.mapper.OutputMapper;
 import com.iemr.common.identity.utils.response.OutputResponse;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.beans.factory.annotation.Value;
 
-import com.iemr.common.identity.service.elasticsearch.BeneficiaryElasticsearchIndexUpdater;
+import com.iemr.common.identity.service.elasticsearch.EsOutboxService;
+import com.iemr.common.identity.service.elasticsearch.SearchPage;
+import com.iemr.common.identity.service.face.FaceEmbeddingCodec;
+import com.iemr.common.identity.service.face.FaceSearchService;
+import com.iemr.common.identity.utils.mapper.BeanMapConverter;
+import com.iemr.common.identity.utils.mapper.JsonMappers;
 
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.QueryTimeoutException;
@@ -107,6 +115,10 @@ import jakarta.persistence.QueryTimeoutException;
 public class IdentityService {
 
     private static final Logger logger = LoggerFactory.getLogger(IdentityService.class);
+
+    private static final int MAX_VILLAGE_SYNC_PAGE_SIZE = 1000;
+    private static final int DEFAULT_FACE_SEARCH_RESULTS = 10;
+    private static final int MAX_FACE_SEARCH_RESULTS = 100;
     public static final String CREATED_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS";
     @Autowired
     private DataSource dataSource;
@@ -125,7 +137,7 @@ public class IdentityService {
     private ElasticsearchService elasticsearchService;
 
     @Autowired
-    private BeneficiaryElasticsearchIndexUpdater syncService;
+    private EsOutboxService outboxService;
 
     @Autowired
     IdentityMapper mapper;
@@ -156,6 +168,10 @@ public class IdentityService {
     @Autowired
     private BenRegIdClaimService benRegIdClaimService;
     @Autowired
+    private BeneficiaryPhoneIndexService phoneIndexService;
+    @Autowired
+    private FaceSearchService faceSearchService;
+    @Autowired
     BenServiceMappingRepo serviceMapRepo;
     @Autowired
     MBeneficiaryAccountRepo accountRepo;
@@ -196,8 +212,31 @@ public class IdentityService {
      * @param searchDTO
      * @return
      */
+    @Transactional(readOnly = true)
     public List<BeneficiariesDTO> getBeneficiaries(IdentitySearchDTO searchDTO)
             throws NoResultException, QueryTimeoutException, Exception {
+        return getBeneficiaries(searchDTO, BeneficiaryProjection.FULL);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BeneficiariesDTO> getBeneficiaries(IdentitySearchDTO searchDTO, BeneficiaryProjection view)
+            throws NoResultException, QueryTimeoutException, Exception {
+        return searchBeneficiaries(searchDTO, view, false).getData();
+    }
+
+    /**
+     * Advance search page together with the total number of matches. The total
+     * comes from the ES index when it served the page, otherwise from the DB
+     * view
+     */
+    @Transactional(readOnly = true)
+    public BeneficiarySearchPageDTO getBeneficiariesPage(IdentitySearchDTO searchDTO, BeneficiaryProjection view)
+            throws NoResultException, QueryTimeoutException, Exception {
+        return searchBeneficiaries(searchDTO, view, true);
+    }
+
+    private BeneficiarySearchPageDTO searchBeneficiaries(IdentitySearchDTO searchDTO, BeneficiaryProjection view,
+            boolean includeTotal) throws NoResultException, QueryTimeoutException, Exception {
         List<BeneficiariesDTO> list = new ArrayList<BeneficiariesDTO>();
 
         /**
@@ -205,7 +244,8 @@ public class IdentityService {
          */
         if (searchDTO.getBeneficiaryId() != null) {
             logger.info("getting beneficiaries by ID for " + searchDTO.getBeneficiaryId());
-            return this.getBeneficiariesByBenId(searchDTO.getBeneficiaryId());
+            return this.toSearchPage(this.getBeneficiariesByBenId(searchDTO.getBeneficiaryId(), view), searchDTO,
+                    includeTotal);
         }
 
         /**
@@ -213,7 +253,8 @@ public class IdentityService {
          */
         if (searchDTO.getBeneficiaryRegId() != null) {
             logger.info("getting beneficiaries by reg ID for " + searchDTO.getBeneficiaryRegId());
-            return this.getBeneficiariesByBenRegId(searchDTO.getBeneficiaryRegId());
+            return this.toSearchPage(this.getBeneficiariesByBenRegId(searchDTO.getBeneficiaryRegId(), view),
+                    searchDTO, includeTotal);
         }
 
         /**
@@ -221,94 +262,22 @@ public class IdentityService {
          */
         if (searchDTO.getContactNumber() != null) {
             logger.info("getting beneficiaries by contact no for " + searchDTO.getContactNumber());
-            List<BeneficiariesDTO> list3 = this.getBeneficiariesByPhoneNum(searchDTO.getContactNumber());
-            if (!list3.isEmpty() && searchDTO.getIsD2D() != null && Boolean.TRUE.equals(searchDTO.getIsD2D())) {
-
-                for (int i = 0; i < list3.size(); i++) {
-                    if (searchDTO.getFirstName() != null) {
-                        if (list3.get(i) == null || list3.get(i).getBeneficiaryDetails() == null
-                                || list3.get(i).getBeneficiaryDetails().getFirstName() == null
-                                || !list3.get(i).getBeneficiaryDetails().getFirstName()
-                                        .equalsIgnoreCase(searchDTO.getFirstName())) {
-                            list3.remove(i);
-                            i--;
-
-                            continue;
-                        }
-
-                    }
-                    if (searchDTO.getLastName() != null) {
-                        if (list3.get(i) == null || list3.get(i).getBeneficiaryDetails() == null
-                                || list3.get(i).getBeneficiaryDetails().getLastName() == null
-                                || !list3.get(i).getBeneficiaryDetails().getLastName()
-                                        .equalsIgnoreCase(searchDTO.getLastName())) {
-                            list3.remove(i);
-                            i--;
-
-                            continue;
-                        }
-                    }
-
-                    if (searchDTO.getGenderId() != null) {
-                        if (list3.get(i) == null || list3.get(i).getBeneficiaryDetails() == null
-                                || list3.get(i).getBeneficiaryDetails().getGenderId() == null || !list3.get(i)
-                                .getBeneficiaryDetails().getGenderId().equals(searchDTO.getGenderId())) {
-
-                            list3.remove(i);
-                            i--;
-                            continue;
-                        }
-                    }
-                    if (searchDTO.getHouseHoldID() != null) {
-                        if (list3.get(i) == null || list3.get(i).getBeneficiaryDetails() == null
-                                || list3.get(i).getBeneficiaryDetails().getHouseHoldID() == null || !list3.get(i)
-                                .getBeneficiaryDetails().getHouseHoldID().equals(searchDTO.getHouseHoldID())) {
-
-                            list3.remove(i);
-                            i--;
-                            continue;
-                        }
-                    }
-
-                    if (searchDTO.getCurrentAddress().getStateId() != null) {
-                        if (list3.get(i) == null || list3.get(i).getCurrentAddress() == null
-                                || list3.get(i).getCurrentAddress().getStateId() == null
-                                || !list3.get(i).getCurrentAddress().getStateId()
-                                        .equals(searchDTO.getCurrentAddress().getStateId())) {
-
-                            list3.remove(i);
-                            i--;
-                            continue;
-                        }
-                    }
-
-                    if (searchDTO.getCurrentAddress().getDistrictId() != null) {
-                        if (list3.get(i) == null || list3.get(i).getCurrentAddress() == null
-                                || list3.get(i).getCurrentAddress().getDistrictId() == null
-                                || !list3.get(i).getCurrentAddress().getDistrictId()
-                                        .equals(searchDTO.getCurrentAddress().getDistrictId())) {
-
-                            list3.remove(i);
-                            i--;
-                            continue;
-                        }
-                    }
-
-                    if (searchDTO.getCurrentAddress().getVillageId() != null) {
-                        if (list3.get(i) == null || list3.get(i).getCurrentAddress() == null
-                                || list3.get(i).getCurrentAddress().getVillageId() == null
-                                || !list3.get(i).getCurrentAddress().getVillageId()
-                                        .equals(searchDTO.getCurrentAddress().getVillageId())) {
-
-                            list3.remove(i);
-                            i--;
-                            continue;
-                        }
-                    }
-
-                }
+            if (Boolean.TRUE.equals(searchDTO.getIsD2D())) {
+                return this.toSearchPage(
+                        this.getBeneficiariesByPhoneNumD2D(searchDTO.getContactNumber(), searchDTO, view), searchDTO,
+                        includeTotal);
             }
-            return list3;
+            List<BeneficiariesDTO> list3 = this.getBeneficiariesByPhoneNum(searchDTO.getContactNumber(), view);
+            return this.toSearchPage(list3, searchDTO, includeTotal);
+        }
+
+        /**
+         * Filter search on the ES index when it can serve the criteria, the view
+         * based search below remains the fallback
+         */
+        BeneficiarySearchPageDTO esPage = this.getBeneficiariesFromIndex(searchDTO, view, includeTotal);
+        if (esPage != null) {
+            return esPage;
         }
 
         /**
@@ -316,16 +285,73 @@ public class IdentityService {
          */
         List<VBenAdvanceSearch> tmpList = mappingRepo.dynamicFilterSearchNew(searchDTO);
         for (VBenAdvanceSearch obj : tmpList) {
-            list.add(this.getBeneficiariesDTO(this.getBeneficiariesDTONew1(obj)));
+            list.add(this.getBeneficiariesDTO(this.getBeneficiariesDTONew1(obj, view), view));
             logger.debug("benMapId: " + obj.getBenMapID());
         }
         /**
          * End
          */
 
-        return list;
+        return this.toSearchPage(list, searchDTO, includeTotal);
+    }
+
+    private BeneficiarySearchPageDTO toSearchPage(List<BeneficiariesDTO> list, IdentitySearchDTO searchDTO,
+            boolean includeTotal) {
+        BeneficiarySearchPageDTO page = new BeneficiarySearchPageDTO();
+        page.setData(list);
+        if (includeTotal) {
+            page.setTotalCount(this.countBeneficiaries(searchDTO));
+        }
+        return page;
+    }
+
+    /**
+     * Resolves the advance search page through the ES index and hydrates only the
+     * matching BenRegIDs. An empty page is returned when ES answered with no
+     * matches; null only when ES is disabled, cannot express the criteria or
+     * fails, so that the DB search is used instead
+     */
+    private BeneficiarySearchPageDTO getBeneficiariesFromIndex(IdentitySearchDTO searchDTO,
+            BeneficiaryProjection view, boolean includeTotal) {
+        if (!esEnabled) {
+            return null;
+        }
+        try {
+            AdvanceSearchHits hits = elasticsearchService.searchBenRegIdsForAdvanceSearch(searchDTO, includeTotal);
+            if (hits == null) {
+                return null;
+            }
+            List<BeneficiariesDTO> list = new ArrayList<>();
+            if (!hits.getBenRegIds().isEmpty()) {
+                List<BigInteger> regIds = new ArrayList<>(hits.getBenRegIds().size());
+                for (Long benRegId : hits.getBenRegIds()) {
+                    regIds.add(BigInteger.valueOf(benRegId));
+                }
+                for (Object[] benMapOBJ : mappingRepo.getBenMappingByRegIDList(regIds)) {
+                    list.add(this.getBeneficiariesDTO(this.getBeneficiariesDTONew(benMapOBJ, view), view));
+                }
+            }
+            logger.info(list.size() + " beneficiaries hydrated from ES advance search");
+            BeneficiarySearchPageDTO page = new BeneficiarySearchPageDTO();
+            page.setData(list);
+            page.setTotalCount(hits.getTotalHits());
+            return page;
+        } catch (Exception e) {
+            logger.error("ES advance search failed, falling back to DB: " + e.getMessage());
+            return null;
+        }
     }
 
+    /**
+     * Total matches for the advance search filter on the DB view, used when the
+     * caller asks for includeTotalCount and the page was not served by ES
+     */
+    @Transactional(readOnly = true)
+    public Long countBeneficiaries(IdentitySearchDTO searchDTO) {
+        return mappingRepo.dynamicFilterSearchNewCount(searchDTO);
+    }
+
+    @Transactional(readOnly = true)
     public List<BeneficiariesDTO> getBeneficiarieswithES(IdentitySearchDTO searchDTO)
             throws NoResultException, QueryTimeoutException, Exception {
         List<BeneficiariesDTO> list = new ArrayList<BeneficiariesDTO>();
@@ -344,11 +370,11 @@ public class IdentityService {
         // if beneficiary Reg Id present
         if (searchDTO.getContactNumber() != null) {
             logger.info("getting beneficiaries by contact no for " + searchDTO.getContactNumber());
-            List<BeneficiariesDTO> list3 = this.getBeneficiariesByPhoneNum(searchDTO.getContactNumber());
-            if (!list3.isEmpty() && searchDTO.getIsD2D() != null && Boolean.TRUE.equals(searchDTO.getIsD2D())) {
-                list3 = applyD2DFilters(list3, searchDTO);
+            if (Boolean.TRUE.equals(searchDTO.getIsD2D())) {
+                return this.getBeneficiariesByPhoneNumD2D(searchDTO.getContactNumber(), searchDTO,
+                        BeneficiaryProjection.FULL);
             }
-            return list3;
+            return this.getBeneficiariesByPhoneNum(searchDTO.getContactNumber());
         }
 
         // Advanced search from database
@@ -409,79 +435,6 @@ public class IdentityService {
         return enrichedList;
     }
 
-    /**
-     * Apply D2D filters to search results
-     */
-    private List<BeneficiariesDTO> applyD2DFilters(List<BeneficiariesDTO> list, IdentitySearchDTO searchDTO) {
-        List<BeneficiariesDTO> filtered = new ArrayList<>();
-
-        for (BeneficiariesDTO dto : list) {
-            boolean matches = true;
-
-            if (searchDTO.getFirstName() != null) {
-                if (dto.getBeneficiaryDetails() == null
-                        || dto.getBeneficiaryDetails().getFirstName() == null
-                        || !dto.getBeneficiaryDetails().getFirstName().equalsIgnoreCase(searchDTO.getFirstName())) {
-                    matches = false;
-                }
-            }
-
-            if (matches && searchDTO.getLastName() != null) {
-                if (dto.getBeneficiaryDetails() == null
-                        || dto.getBeneficiaryDetails().getLastName() == null
-                        || !dto.getBeneficiaryDetails().getLastName().equalsIgnoreCase(searchDTO.getLastName())) {
-                    matches = false;
-                }
-            }
-
-            if (matches && searchDTO.getGenderId() != null) {
-                if (dto.getBeneficiaryDetails() == null
-                        || dto.getBeneficiaryDetails().getGenderId() == null
-                        || !dto.getBeneficiaryDetails().getGenderId().equals(searchDTO.getGenderId())) {
-                    matches = false;
-                }
-            }
-
-            if (matches && searchDTO.getHouseHoldID() != null) {
-                if (dto.getBeneficiaryDetails() == null
-                        || dto.getBeneficiaryDetails().getHouseHoldID() == null
-                        || !dto.getBeneficiaryDetails().getHouseHoldID().equals(searchDTO.getHouseHoldID())) {
-                    matches = false;
-                }
-            }
-
-            if (matches && searchDTO.getCurrentAddress() != null && searchDTO.getCurrentAddress().getStateId() != null) {
-                if (dto.getCurrentAddress() == null
-                        || dto.getCurrentAddress().getStateId() == null
-                        || !dto.getCurrentAddress().getStateId().equals(searchDTO.getCurrentAddress().getStateId())) {
-                    matches = false;
-                }
-            }
-
-            if (matches && searchDTO.getCurrentAddress() != null && searchDTO.getCurrentAddress().getDistrictId() != null) {
-                if (dto.getCurrentAddress() == null
-                        || dto.getCurrentAddress().getDistrictId() == null
-                        || !dto.getCurrentAddress().getDistrictId().equals(searchDTO.getCurrentAddress().getDistrictId())) {
-                    matches = false;
-                }
-            }
-
-            if (matches && searchDTO.getCurrentAddress() != null && searchDTO.getCurrentAddress().getVillageId() != null) {
-                if (dto.getCurrentAddress() == null
-                        || dto.getCurrentAddress().getVillageId() == null
-                        || !dto.getCurrentAddress().getVillageId().equals(searchDTO.getCurrentAddress().getVillageId())) {
-                    matches = false;
-                }
-            }
-
-            if (matches) {
-                filtered.add(dto);
-            }
-        }
-
-        return filtered;
-    }
-
     /**
      *
      * Check which parameters available Get BenMapID based on the parameter/set
@@ -490,8 +443,15 @@ public class IdentityService {
      * @param benId
      * @return
      */
+    @Transactional(readOnly = true)
     public List<BeneficiariesDTO> getBeneficiariesByBenId(BigInteger benId)
             throws NoResultException, QueryTimeoutException, Exception {
+        return getBeneficiariesByBenId(benId, BeneficiaryProjection.FULL);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BeneficiariesDTO> getBeneficiariesByBenId(BigInteger benId, BeneficiaryProjection view)
+            throws NoResultException, QueryTimeoutException, Exception {
         logger.info("IdentityService.getBeneficiariesByBenId - start, beneficiaryID : " + benId);
         List<BeneficiariesDTO> list = new ArrayList<BeneficiariesDTO>();
 
@@ -501,8 +461,8 @@ public class IdentityService {
 
             // new logic, 27-08-2018
             if (benMapObjArr != null && benMapObjArr.size() > 0) {
-                MBeneficiarymapping benMap = this.getBeneficiariesDTONew(benMapObjArr.get(0));
-                list.add(this.getBeneficiariesDTO(benMap));
+                MBeneficiarymapping benMap = this.getBeneficiariesDTONew(benMapObjArr.get(0), view);
+                list.add(this.getBeneficiariesDTO(benMap, view));
             }
         }
         logger.info("benMap size " + (list.size() == 0 ? "No Beneficiary Found" : list.size()));
@@ -518,8 +478,15 @@ public class IdentityService {
      * @param BenRegId
      * @return
      */
+    @Transactional(readOnly = true)
     public List<BeneficiariesDTO> getBeneficiariesByBenRegId(BigInteger benRegId)
             throws NoResultException, QueryTimeoutException, Exception {
+        return getBeneficiariesByBenRegId(benRegId, BeneficiaryProjection.FULL);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BeneficiariesDTO> getBeneficiariesByBenRegId(BigInteger benRegId, BeneficiaryProjection view)
+            throws NoResultException, QueryTimeoutException, Exception {
         List<BeneficiariesDTO> list = new ArrayList<BeneficiariesDTO>();
         logger.info("IdentityService.getBeneficiariesByBenRegId - start for benRegId " + benRegId);
         try {
@@ -528,8 +495,8 @@ public class IdentityService {
 
             // new logic, 27-08-2018
             if (benMapObjArr != null && !benMapObjArr.isEmpty()) {
-                MBeneficiarymapping benMap = this.getBeneficiariesDTONew(benMapObjArr.get(0));
-                list.add(this.getBeneficiariesDTO(benMap));
+                MBeneficiarymapping benMap = this.getBeneficiariesDTONew(benMapObjArr.get(0), view);
+                list.add(this.getBeneficiariesDTO(benMap, view));
             }
             logger.info("benMap size" + (list.isEmpty() ? "No Beneficiary Found" : list.size()));
             // end new logic
@@ -551,55 +518,113 @@ public class IdentityService {
      * @param phoneNum
      * @return
      */
+    @Transactional(readOnly = true)
     public List<BeneficiariesDTO> getBeneficiariesByPhoneNum(String phoneNum)
             throws NoResultException, QueryTimeoutException {
+        return getBeneficiariesByPhoneNum(phoneNum, BeneficiaryProjection.FULL);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BeneficiariesDTO> getBeneficiariesByPhoneNum(String phoneNum, BeneficiaryProjection view)
+            throws NoResultException, QueryTimeoutException {
         // new logic, 27-09-2018
         List<BeneficiariesDTO> list = new ArrayList<>();
 
         try {
-            // List<MBeneficiarycontact> benContact = contactRepo.findByAnyPhoneNum(phoneNum);
-
-            String clean = phoneNum.trim();
-            if (clean.startsWith("+91")) clean = clean.substring(3);
-            else if (clean.startsWith("91") && clean.length() == 12) clean = clean.substring(2);
-            else if (clean.startsWith("0") && clean.length() == 11) clean = clean.substring(1);
-
-            List<String> variants = Arrays.asList(clean, "0" + clean, "91" + clean, "+91" + clean);
-            List<MBeneficiarycontact> benContact = contactRepo.findByAnyPhoneNum(variants);
+            List<BigInteger> benRegIds = findBenRegIdsByPhoneNum(phoneNum);
+            logger.info(benRegIds.size() + " beneficiaries found for phone number " + phoneNum);
+            if (!benRegIds.isEmpty()) {
+                for (Object[] benMapOBJ : mappingRepo.getBenMappingByRegIDList(benRegIds)) {
+                    list.add(this.getBeneficiariesDTO(this.getBeneficiariesDTONew(benMapOBJ, view), view));
+                }
+            }
+        } catch (Exception e) {
+            logger.error(
+                    "error in beneficiary search for phone no : " + phoneNum + " error : " + e.getLocalizedMessage());
+        }
 
-            logger.info(benContact.size() + " contacts found for phone number " + phoneNum);
+        logger.info("IdentityService.getBeneficiariesByPhoneNum - end");
+        // end
+        return list;
+    }
 
-            List<Object[]> benMapObjArr = new ArrayList<>();
+    /**
+     * Phone search for D2D callers. The name, gender, household and current
+     * address filters are applied in SQL to the beneficiaries sharing the
+     * number, so only matching beneficiaries are hydrated.
+     */
+    @Transactional(readOnly = true)
+    public List<BeneficiariesDTO> getBeneficiariesByPhoneNumD2D(String phoneNum, IdentitySearchDTO filter,
+            BeneficiaryProjection view) throws NoResultException, QueryTimeoutException {
+        List<BeneficiariesDTO> list = new ArrayList<>();
 
-            for (MBeneficiarycontact benContactOBJ : benContact) {
-                benMapObjArr.addAll(mappingRepo.getBenMappingByBenContactIdListNew(benContactOBJ.getVanSerialNo(),
-                        benContactOBJ.getVanID()));
+        try {
+            List<BigInteger> phoneRegIds = findBenRegIdsByPhoneNum(phoneNum);
+            if (phoneRegIds.isEmpty()) {
+                return list;
             }
 
-            for (Object[] benMapOBJ : benMapObjArr) {
-                list.add(this.getBeneficiariesDTO(this.getBeneficiariesDTONew(benMapOBJ)));
+            Address address = filter.getCurrentAddress();
+            List<BigInteger> matchedRegIds = new ArrayList<>();
+            for (Object id : mappingRepo.filterBenRegIdsForD2D(phoneRegIds, filter.getFirstName(),
+                    filter.getLastName(), filter.getGenderId(), filter.getHouseHoldID(),
+                    address != null ? address.getStateId() : null,
+                    address != null ? address.getDistrictId() : null,
+                    address != null ? address.getVillageId() : null)) {
+                matchedRegIds.add(getBigIntegerValueFromObject(id));
             }
+            logger.info(matchedRegIds.size() + " of " + phoneRegIds.size()
+                    + " beneficiaries match D2D filters for phone number " + phoneNum);
 
+            if (!matchedRegIds.isEmpty()) {
+                for (Object[] benMapOBJ : mappingRepo.getBenMappingByRegIDList(matchedRegIds)) {
+                    list.add(this.getBeneficiariesDTO(this.getBeneficiariesDTONew(benMapOBJ, view), view));
+                }
+            }
         } catch (Exception e) {
-            logger.error(
-                    "error in beneficiary search for phone no : " + phoneNum + " error : " + e.getLocalizedMessage());
+            logger.error("error in D2D beneficiary search for phone no : " + phoneNum + " error : "
+                    + e.getLocalizedMessage());
         }
-
-        logger.info("IdentityService.getBeneficiariesByPhoneNum - end");
-        // end
         return list;
     }
 
+    /**
+     * BenRegIds sharing a phone number in any phone slot, resolved through the
+     * normalized phone index. Create and edit keep the index current and V7
+     * backfilled the contacts saved before it existed.
+     */
+    private List<BigInteger> findBenRegIdsByPhoneNum(String phoneNum) {
+        return phoneIndexService.findBenRegIdsByPhoneNum(phoneNum);
+    }
+
 
 /**
  * Advanced search using Elasticsearch with fallback to database
  */
+@Transactional(readOnly = true)
 public Map<String, Object> advancedSearchBeneficiariesES(
         String firstName, String middleName, String lastName, Integer genderId, java.util.Date dob,
         Integer stateId, Integer districtId, Integer blockId, Integer villageId,
         String fatherName, String spouseName, String maritalStatus, String phoneNumber,
         String beneficiaryId, String healthId, String aadharNo,
         Integer userId, String auth, Boolean is1097) throws Exception {
+    return advancedSearchBeneficiariesES(firstName, middleName, lastName, genderId, dob, stateId, districtId,
+            blockId, villageId, fatherName, spouseName, maritalStatus, phoneNumber, beneficiaryId, healthId,
+            aadharNo, userId, auth, is1097, null, null, false);
+}
+
+/**
+ * Paged variant; nextCursor and totalCount are added to the response when the
+ * ES search provides them
+ */
+@Transactional(readOnly = true)
+public Map<String, Object> advancedSearchBeneficiariesES(
+        String firstName, String middleName, String lastName, Integer genderId, java.util.Date dob,
+        Integer stateId, Integer districtId, Integer blockId, Integer villageId,
+        String fatherName, String spouseName, String maritalStatus, String phoneNumber,
+        String beneficiaryId, String healthId, String aadharNo,
+        Integer userId, String auth, Boolean is1097,
+        Integer pageSize, String cursor, boolean includeTotal) throws Exception {
     
     try {
         logger.info("IdentityService.advancedSearchBeneficiariesES - start");
@@ -611,15 +636,22 @@ public Map<String, Object> advancedSearchBeneficiariesES(
             logger.info("Using Elasticsearch for advanced search");
             
             // Call Elasticsearch service
-            List<Map<String, Object>> esResults = elasticsearchService.advancedSearch(
+            SearchPage page = elasticsearchService.advancedSearch(
                 firstName, middleName, lastName, genderId, dob, stateId, districtId, 
                 blockId, villageId, fatherName, spouseName, maritalStatus, phoneNumber, 
-                beneficiaryId, healthId, aadharNo, userId
+                beneficiaryId, healthId, aadharNo, userId, pageSize, cursor, includeTotal
             );
+            List<Map<String, Object>> esResults = page.getResults();
             
             response.put("data", esResults);
             response.put("count", esResults.size());
             response.put("source", "elasticsearch");
+            if (page.getNextCursor() != null) {
+                response.put("nextCursor", page.getNextCursor());
+            }
+            if (page.getTotalHits() != null) {
+                response.put("totalCount", page.getTotalHits());
+            }
             
             logger.info("ES returned {} results", esResults.size());
             
@@ -634,6 +666,7 @@ public Map<String, Object> advancedSearchBeneficiariesES(
             searchDTO.setFatherName(fatherName);
             searchDTO.setSpouseName(spouseName);
             searchDTO.setContactNumber(phoneNumber);
+            searchDTO.setPageSize(pageSize);
             
             if (beneficiaryId != null && !beneficiaryId.trim().isEmpty()) {
                 try {
@@ -668,18 +701,19 @@ public Map<String, Object> advancedSearchBeneficiariesES(
         logger.info("IdentityService.advancedSearchBeneficiariesES - end");
         return response;
         
+    } catch (IllegalArgumentException e) {
+        throw e;
     } catch (Exception e) {
         logger.error("Advanced search failed: {}", e.getMessage(), e);
         throw new Exception("Error in advanced search: " + e.getMessage(), e);
     }
 }/**
- * Convert BeneficiariesDTO to Map format
+ * Convert BeneficiariesDTO to Map format, in the shape of the former JSON
+ * write and read back but without building the JSON
  */
 private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
     try {
-        ObjectMapper mapper = new ObjectMapper();
-        String json = mapper.writeValueAsString(dto);
-        return mapper.readValue(json, Map.class);
+        return BeanMapConverter.toMap(dto);
     } catch (Exception e) {
         logger.error("Error converting DTO to map", e);
         return new HashMap<>();
@@ -699,6 +733,7 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
      * @throws QueryTimeoutException
      * @throws Exception
      */
+    @Transactional(readOnly = true)
     public List<BeneficiariesDTO> getBeneficiaryByHealthIDAbhaAddress(String healthID)
             throws NoResultException, QueryTimeoutException, Exception {
         List<BeneficiariesDTO> beneficiaryList = new ArrayList<>();
@@ -730,6 +765,7 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
      * @throws QueryTimeoutException
      * @throws Exception
      */
+    @Transactional(readOnly = true)
     public List<BeneficiariesDTO> getBeneficiaryByHealthIDNoAbhaIdNo(String healthIDNo)
             throws NoResultException, QueryTimeoutException, Exception {
         List<BeneficiariesDTO> beneficiaryList = new ArrayList<>();
@@ -750,8 +786,15 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
         return beneficiaryList;
     }
 
+    @Transactional(readOnly = true)
     public List<BeneficiariesDTO> searhBeneficiaryByFamilyId(String familyId)
             throws NoResultException, QueryTimeoutException {
+        return searhBeneficiaryByFamilyId(familyId, BeneficiaryProjection.FULL);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BeneficiariesDTO> searhBeneficiaryByFamilyId(String familyId, BeneficiaryProjection view)
+            throws NoResultException, QueryTimeoutException {
         List<BeneficiariesDTO> beneficiaryList = new ArrayList<>();
         try {
 
@@ -776,7 +819,7 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
                 benMapObjArr = mappingRepo.getBenMappingByBenDetailsIds(benDetailsVanSerialNoList, vanID);
 
                 for (Object[] benMapOBJ : benMapObjArr) {
-                    beneficiaryList.add(this.getBeneficiariesDTO(this.getBeneficiariesDTONew(benMapOBJ)));
+                    beneficiaryList.add(this.getBeneficiariesDTO(this.getBeneficiariesDTONew(benMapOBJ, view), view));
                 }
 
             }
@@ -788,6 +831,7 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
         return beneficiaryList;
     }
 
+    @Transactional(readOnly = true)
     public List<BeneficiariesDTO> searchBeneficiaryByVillageIdAndLastModifyDate(List<Integer> villageIDs,
             Timestamp lastModifiedDate) {
 
@@ -810,6 +854,50 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
     }
 
 
+    /**
+     * Paged variant of the village incremental sync. Returns at most pageSize
+     * beneficiaries ordered by BenRegId, starting after the supplied cursor.
+     */
+    @Transactional(readOnly = true)
+    public BeneficiarySyncPageDTO searchBeneficiaryByVillageIdAndLastModifyDate(List<Integer> villageIDs,
+            Timestamp lastModifiedDate, Integer pageSize, Long afterBenRegId) {
+
+        int limit = Math.min(Math.max(pageSize, 1), MAX_VILLAGE_SYNC_PAGE_SIZE);
+        BigInteger after = BigInteger.valueOf(afterBenRegId != null ? afterBenRegId : 0L);
+
+        BeneficiarySyncPageDTO page = new BeneficiarySyncPageDTO();
+        page.setPageSize(limit);
+        List<BeneficiariesDTO> beneficiaryList = new ArrayList<>();
+        page.setData(beneficiaryList);
+
+        List<Object> idRows = mappingRepo.findBenRegIdsByVillageIDAndLastModifyDateAfter(villageIDs,
+                lastModifiedDate, after, limit);
+        if (idRows == null || idRows.isEmpty()) {
+            return page;
+        }
+
+        List<BigInteger> benRegIds = new ArrayList<>(idRows.size());
+        for (Object idRow : idRows) {
+            benRegIds.add(getBigIntegerValueFromObject(idRow));
+        }
+
+        Map<BigInteger, MBeneficiarymapping> mappingByRegId = new HashMap<>();
+        for (MBeneficiarymapping benMapOBJ : mappingRepo.findAllByBenRegIdOrderByBenMapIdAsc(benRegIds)) {
+            mappingByRegId.putIfAbsent(benMapOBJ.getBenRegId(), benMapOBJ);
+        }
+        for (BigInteger benRegId : benRegIds) {
+            MBeneficiarymapping benMapOBJ = mappingByRegId.get(benRegId);
+            if (benMapOBJ != null) {
+                beneficiaryList.add(this.getBeneficiariesDTO(benMapOBJ));
+            }
+        }
+
+        if (benRegIds.size() == limit) {
+            page.setNextAfterBenRegId(benRegIds.get(benRegIds.size() - 1).longValue());
+        }
+        return page;
+    }
+
     public RMNCHBeneficiaryDetailsRmnch getRmnchDataByBenID(BigInteger benID) {
         RMNCHBeneficiaryDetailsRmnch rmnchBeneficiaryDetailsRmnch = new RMNCHBeneficiaryDetailsRmnch();
 
@@ -819,6 +907,7 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
         return rmnchBeneficiaryDetailsRmnch;
     }
 
+    @Transactional(readOnly = true)
     public Long countBeneficiaryByVillageIdAndLastModifyDate(List<Integer> villageIDs, Timestamp lastModifiedDate) {
         Long beneficiaryCount = 0L;
         try {
@@ -831,6 +920,7 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
         return beneficiaryCount;
     }
 
+    @Transactional(readOnly = true)
     public List<BeneficiariesDTO> searhBeneficiaryByGovIdentity(String identity)
             throws NoResultException, QueryTimeoutException {
         List<BeneficiariesDTO> beneficiaryList = new ArrayList<>();
@@ -864,6 +954,10 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
     }
 
     private MBeneficiarymapping getBeneficiariesDTONew(Object[] benMapArr) {
+        return getBeneficiariesDTONew(benMapArr, BeneficiaryProjection.FULL);
+    }
+
+    private MBeneficiarymapping getBeneficiariesDTONew(Object[] benMapArr, BeneficiaryProjection view) {
         MBeneficiarymapping mapping = new MBeneficiarymapping();
         if (benMapArr != null && benMapArr.length == 12 && benMapArr[8] != null && benMapArr[9] != null) {
             mapping.setBenMapId(getBigIntegerValueFromObject(benMapArr[0]));
@@ -876,7 +970,10 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
             MBeneficiarydetail details = detailRepo.getWith_vanSerialNo_vanID(getBigIntegerValueFromObject(benMapArr[4]), (Integer) benMapArr[8]);
             MBeneficiaryregidmapping regidmapping = regIdRepo.getWithVanSerialNoVanID(getBigIntegerValueFromObject(benMapArr[5]), (Integer) benMapArr[8]);
             MBeneficiaryAccount account = accountRepo.getWithVanSerialNoVanID(getBigIntegerValueFromObject(benMapArr[7]), (Integer) benMapArr[8]);
-            MBeneficiaryImage image = imageRepo.getWithVanSerialNoVanID(getBigIntegerValueFromObject(benMapArr[6]), (Integer) benMapArr[8]);
+            // photo and biometrics are not part of the list DTO, summary views skip them
+            MBeneficiaryImage image = view.includesHeavyFields()
+                    ? imageRepo.getWithVanSerialNoVanID(getBigIntegerValueFromObject(benMapArr[6]), (Integer) benMapArr[8])
+                    : null;
             List<MBeneficiaryservicemapping> servicemap = serviceMapRepo.getWithVanSerialNoVanID(getBigIntegerValueFromObject(benMapArr[0]), (Integer) benMapArr[8]);
             List<MBeneficiaryidentity> identity = identityRepo.findByBenMapIdAndVanID(getBigIntegerValueFromObject(benMapArr[0]), (Integer) benMapArr[8]);
             List<MBeneficiaryfamilymapping> familymapping = familyMapRepo.findByBenMapIdAndVanIDOrderByBenFamilyMapIdAsc(getBigIntegerValueFromObject(benMapArr[0]), (Integer) benMapArr[8]);
@@ -939,6 +1036,11 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
     // 03-10-2018
     // get ben mapping object from v_benadvancesearch
     private MBeneficiarymapping getBeneficiariesDTONew1(VBenAdvanceSearch benAdvanceSearchOBJ) {
+        return getBeneficiariesDTONew1(benAdvanceSearchOBJ, BeneficiaryProjection.FULL);
+    }
+
+    private MBeneficiarymapping getBeneficiariesDTONew1(VBenAdvanceSearch benAdvanceSearchOBJ,
+            BeneficiaryProjection view) {
         MBeneficiarymapping benMapOBJ = new MBeneficiarymapping();
 
         // for createdBy & createdDate
@@ -969,8 +1071,10 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
             benMapOBJ.setMBeneficiarydetail(benDetailsOBJ);
             benMapOBJ.setMBeneficiaryregidmapping(regIdRepo.getWithVanSerialNoVanID(benAdvanceSearchOBJ.getBenRegID(),
                     benAdvanceSearchOBJ.getVanID()));
-            benMapOBJ.setMBeneficiaryImage(imageRepo.getWithVanSerialNoVanID(benAdvanceSearchOBJ.getBenImageID(),
-                    benAdvanceSearchOBJ.getVanID()));
+            if (view.includesHeavyFields()) {
+                benMapOBJ.setMBeneficiaryImage(imageRepo.getWithVanSerialNoVanID(benAdvanceSearchOBJ.getBenImageID(),
+                        benAdvanceSearchOBJ.getVanID()));
+            }
             benMapOBJ.setMBeneficiaryAccount(accountRepo.getWithVanSerialNoVanID(benAdvanceSearchOBJ.getBenAccountID(),
                     benAdvanceSearchOBJ.getVanID()));
 
@@ -1016,6 +1120,7 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
      * @return
      * @throws MissingMandatoryFieldsException
      */
+    @Transactional(rollbackFor = Exception.class)
     public void editIdentity(IdentityEditDTO identity) throws MissingMandatoryFieldsException {
         logger.info("IdentityService.editIdentity - start");
         if (identity.getBeneficiaryRegId() == null && null == identity.getBeneficaryId()) {
@@ -1160,7 +1265,8 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
              * END
              */
             logger.debug("Beneficiary contact to update = " + OutputMapper.gson().toJson(benCon));
-            contactRepo.save(benCon);
+            benCon = contactRepo.save(benCon);
+            phoneIndexService.reindexContact(benMapping.getBenRegId(), benCon);
             isDataUpdate = true;
 
         }
@@ -1291,7 +1397,7 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
              */
             // getting correct beneficiaryDetailsId by passing vanSerialNo & vanID
             BigInteger benImageId = imageRepo.findIdByVanSerialNoAndVanID(
-                    benMapping.getMBeneficiaryImage().getBenImageId(), benMapping.getVanID());
+                    benMapping.getBenImageId(), benMapping.getVanID());
             // next statement is new one, setting correct beneficiaryDetailsId
             if (benImageId != null) {
                 beneficiaryImage.setBenImageId(benImageId); 
@@ -1309,10 +1415,12 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
 
         }
 
-        // Trigger async sync to Elasticsearch
-        if (isDataUpdate && identity.getBeneficiaryRegId() != null) {
-            logger.info("Triggering Elasticsearch sync for benRegId: {}", identity.getBeneficiaryRegId());
-            syncService.syncBeneficiaryAsync(identity.getBeneficiaryRegId());
+        // Queue Elasticsearch re-index; published by the outbox poller after commit
+        BigInteger editedBenRegId = identity.getBeneficiaryRegId() != null ? identity.getBeneficiaryRegId()
+                : benMapping.getBenRegId();
+        if (isDataUpdate && editedBenRegId != null) {
+            logger.info("Queueing Elasticsearch sync for benRegId: {}", editedBenRegId);
+            outboxService.enqueue(editedBenRegId, "EDIT");
         }
     
     logger.info("IdentityService.editIdentity - end. id = " + benMapping.getBenMapId());
@@ -1385,6 +1493,7 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
      * @param identity
      * @return
      */
+    @Transactional(rollbackFor = Exception.class)
     public BeneficiaryCreateResp createIdentity(IdentityDTO identity) {
         logger.info("IdentityService.createIdentity - start");
 
@@ -1396,7 +1505,6 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
         regMap.setProvisioned(true);
 
         logger.info("IdentityService.createIdentity - saving Address");
-        ObjectMapper objectMapper = new ObjectMapper();
         MBeneficiaryaddress mAddr = identityDTOToMBeneficiaryaddress(identity);
         // MBeneficiaryaddress mAddr1 =
         // mapper.identityDTOToMBeneficiaryaddress(identity);
@@ -1575,6 +1683,11 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
         // Update van serial no for data sync
         mappingRepo.updateVanSerialNo(benMapping.getBenMapId());
 
+        phoneIndexService.reindexContact(regMap.getBenRegId(), mContc);
+        if (identity.getFaceEmbedding() != null) {
+            faceSearchService.index(regMap.getBenRegId(), identity.getFaceEmbedding());
+        }
+
         final MBeneficiarymapping benMapping2 = benMapping;
         logger.info("IdentityService.createIdentity - saving FamilyMaps");
         List<MBeneficiaryfamilymapping> fIdenList = null;
@@ -1663,10 +1776,10 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
 
         BeneficiaryCreateResp response = partialMapper.mBeneficiarymappingToBeneficiaryCreateResp(benMapping);
 
-        // Trigger async sync to Elasticsearch
+        // Queue Elasticsearch index; published by the outbox poller after commit
         if (regMap != null && regMap.getBenRegId() != null) {
-            logger.info("Triggering Elasticsearch sync for benRegId: {}", regMap.getBenRegId());
-            syncService.syncBeneficiaryAsync(regMap.getBenRegId());
+            logger.info("Queueing Elasticsearch sync for benRegId: {}", regMap.getBenRegId());
+            outboxService.enqueue(regMap.getBenRegId(), "CREATE");
         }
 
         return response;
@@ -1726,7 +1839,9 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
         beneficiarydetail.setPreferredLanguage(dto.getPreferredLanguage());
         beneficiarydetail.setReligion(dto.getReligion());
         if (dto.getFaceEmbedding() != null) {
+            // text column is still written until all readers use the binary one
             beneficiarydetail.setFaceEmbedding(dto.getFaceEmbedding().toString());
+            beneficiarydetail.setFaceEmbeddingBin(FaceEmbeddingCodec.encode(dto.getFaceEmbedding()));
         }
         if (dto.getReligionId() != null) {
             beneficiarydetail.setReligionId(BigInteger.valueOf(dto.getReligionId()));
@@ -1942,6 +2057,7 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
      * @param BenRegIds
      * @return {@link List} Beneficiaries
      */
+    @Transactional(readOnly = true)
     public List<BeneficiariesPartialDTO> getBeneficiariesPartialDeatilsByBenRegIdList(List<BigInteger> benRegIds) {
 
         logger.info("IdentityService.getBeneficiariesPartialDeatilsByBenRegId - end");
@@ -1967,6 +2083,24 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
         return list;
     }
 
+    /**
+     * Beneficiaries whose registered face is closest to the given embedding, most
+     * similar first
+     *
+     * @param faceSearch
+     * @return {@link List} Beneficiaries
+     */
+    public List<BeneficiariesDTO> searchByFaceEmbedding(FaceSearchDTO faceSearch) {
+        int topK = faceSearch.getTopK() != null && faceSearch.getTopK() > 0
+                ? Math.min(faceSearch.getTopK(), MAX_FACE_SEARCH_RESULTS)
+                : DEFAULT_FACE_SEARCH_RESULTS;
+        List<BigInteger> benRegIds = faceSearchService.search(faceSearch.getFaceEmbedding(), topK,
+                faceSearch.getMinSimilarity());
+        List<BeneficiariesDTO> beneficiaries = getBeneficiariesDeatilsByBenRegIdList(benRegIds);
+        beneficiaries.sort(Comparator.comparingInt(b -> benRegIds.indexOf(b.getBenRegId())));
+        return beneficiaries;
+    }
+
     /**
      * Get partial details of beneficiaries (first name middle name and last
      * name) list on benId's list
@@ -1974,7 +2108,13 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
      * @param benRegIds
      * @return {@link List} Beneficiaries
      */
+    @Transactional(readOnly = true)
     public List<BeneficiariesDTO> getBeneficiariesDeatilsByBenRegIdList(List<BigInteger> benRegIds) {
+        return getBeneficiariesDeatilsByBenRegIdList(benRegIds, BeneficiaryProjection.FULL);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BeneficiariesDTO> getBeneficiariesDeatilsByBenRegIdList(List<BigInteger> benRegIds, BeneficiaryProjection view) {
 
         logger.info("IdentityService.getBeneficiariesDeatilsByBenRegIdList - end");
         List<BeneficiariesDTO> list = new ArrayList<>();
@@ -1985,8 +2125,8 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
             benMapObjArr = mappingRepo.getBenMappingByRegIDList(benRegIds);
             if (benMapObjArr != null && !benMapObjArr.isEmpty()) {
                 for (Object[] objArr : benMapObjArr) {
-                    MBeneficiarymapping benMap = this.getBeneficiariesDTONew(objArr);
-                    list.add(this.getBeneficiariesDTO(benMap));
+                    MBeneficiarymapping benMap = this.getBeneficiariesDTONew(objArr, view);
+                    list.add(this.getBeneficiariesDTO(benMap, view));
                 }
             }
             logger.info("benMap size" + (list.isEmpty() ? "No Beneficiary Found" : list.size()));
@@ -2003,20 +2143,21 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
      * @return
      */
     private BeneficiariesDTO getBeneficiariesDTO(MBeneficiarymapping benMap) {
+        return getBeneficiariesDTO(benMap, BeneficiaryProjection.FULL);
+    }
+
+    private BeneficiariesDTO getBeneficiariesDTO(MBeneficiarymapping benMap, BeneficiaryProjection view) {
         RMNCHBeneficiaryDetailsRmnch rmnchBeneficiaryDetailsRmnch = new RMNCHBeneficiaryDetailsRmnch();
         BeneficiariesDTO bdto = mapper.mBeneficiarymappingToBeneficiariesDTO(benMap);
-        if (null != benMap && null != benMap.getMBeneficiarydetail()
-                && !StringUtils.isEmpty(benMap.getMBeneficiarydetail().getFaceEmbedding())) {
-            String faceEmbedding = benMap.getMBeneficiarydetail().getFaceEmbedding();
-            String trimmedInput = faceEmbedding.replaceAll("[\\[\\]]", "");
-            List<Float> floatList = new ArrayList<>();
-            if (!StringUtils.isEmpty(trimmedInput)) {
-                String[] stringNumbers = trimmedInput.split(",\\s*");
-                for (String str : stringNumbers) {
-                    floatList.add(Float.parseFloat(str));
-                }
+        if (null != benMap && null != benMap.getMBeneficiarydetail() && view.includesHeavyFields()) {
+            MBeneficiarydetail detail = benMap.getMBeneficiarydetail();
+            float[] vector = FaceEmbeddingCodec.decode(detail.getFaceEmbeddingBin());
+            if (vector == null && !StringUtils.isEmpty(detail.getFaceEmbedding())) {
+                vector = FaceEmbeddingCodec.parseText(detail.getFaceEmbedding());
+            }
+            if (vector != null) {
+                bdto.setFaceEmbedding(FaceEmbeddingCodec.toList(vector));
             }
-            bdto.setFaceEmbedding(floatList);
         }
         // bdto.setOtherFields(benMap.getMBeneficiarydetail().getOtherFields());
 
@@ -2107,7 +2248,7 @@ private Map<String, Object> convertBeneficiaryDTOToMap(BeneficiariesDTO dto) {
                         benImageMap.put("benImage", benImageOBJ.getBenImage());
                         benImageMap.put("createdDate", benImageOBJ.getCreatedDate());
                         response.setResponse(
-                                new GsonBuilder().setLongSerializationPolicy(LongSerializationPolicy.STRING).create()
+                                JsonMappers.longAsStringGson()
                                         .toJson(benImageMap));
                     } else {
                         response.setResponse("Image not available");
@@ -0,0 +1,180 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+
+package com.iemr.common.identity.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-process copy of the db_iemr master tables used to label beneficiary
+ * records: gender, marital status, state/district/block/village names,
+ * community and education.
+ *
+ * These tables change a few times a year, so they are read once when the
+ * application is ready and refreshed on a schedule instead of being joined
+ * into every batch and search query. Lookups never load: callers map rows
+ * while a streaming result set holds their connection, and a query from
+ * inside the lookup would fail on it. Until the first load completes lookups
+ * return null. Each table is loaded on its own; if one cannot be read the
+ * previous copy of it is kept and the table is retried every
+ * retry-interval-ms until it loads. Soft-deleted rows are kept because older
+ * beneficiary records still point at them.
+ */
+@Service
+public class MasterDataCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MasterDataCacheService.class);
+
+    private static final String GENDER = "gender";
+    private static final String MARITAL_STATUS = "maritalStatus";
+    private static final String STATE = "state";
+    private static final String DISTRICT = "district";
+    private static final String BLOCK = "block";
+    private static final String VILLAGE = "village";
+    private static final String COMMUNITY = "community";
+    private static final String EDUCATION = "education";
+
+    private static final Map<String, String> QUERIES = Map.of(
+            GENDER, "SELECT GenderID, GenderName FROM db_iemr.m_gender",
+            MARITAL_STATUS, "SELECT StatusID, Status FROM db_iemr.m_maritalstatus",
+            STATE, "SELECT StateID, StateName FROM db_iemr.m_state",
+            DISTRICT, "SELECT DistrictID, DistrictName FROM db_iemr.m_district",
+            BLOCK, "SELECT BlockID, BlockName FROM db_iemr.m_districtblock",
+            VILLAGE, "SELECT DistrictBranchID, VillageName FROM db_iemr.m_districtbranchmapping",
+            COMMUNITY, "SELECT CommunityID, CommunityType FROM db_iemr.m_community",
+            EDUCATION, "SELECT EducationID, EducationType FROM db_iemr.m_beneficiaryeducation");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile Map<String, Map<Integer, String>> tables;
+
+    private volatile Set<String> failedTables = Collections.emptySet();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        refresh();
+    }
+
+    @Scheduled(initialDelayString = "${master-data.cache.refresh-interval-ms:21600000}",
+            fixedDelayString = "${master-data.cache.refresh-interval-ms:21600000}")
+    public synchronized void refresh() {
+        load(QUERIES.keySet());
+    }
+
+    /**
+     * Reload only the tables whose last load failed, so that a database hiccup
+     * does not leave them empty or stale until the next full refresh
+     */
+    @Scheduled(initialDelayString = "${master-data.cache.retry-interval-ms:60000}",
+            fixedDelayString = "${master-data.cache.retry-interval-ms:60000}")
+    public synchronized void retryFailedTables() {
+        if (tables == null || failedTables.isEmpty()) {
+            return;
+        }
+        logger.info("Retrying master data load for {}", failedTables);
+        load(failedTables);
+    }
+
+    private void load(Collection<String> tableNames) {
+        Map<String, Map<Integer, String>> previous = tables;
+        Map<String, Map<Integer, String>> loaded = previous != null ? new HashMap<>(previous) : new HashMap<>();
+        Set<String> failed = new HashSet<>(failedTables);
+        failed.removeAll(tableNames);
+        for (String table : tableNames) {
+            try {
+                Map<Integer, String> names = new HashMap<>();
+                jdbcTemplate.query(QUERIES.get(table), rs -> {
+                    names.put(rs.getInt(1), rs.getString(2));
+                });
+                loaded.put(table, Collections.unmodifiableMap(names));
+            } catch (Exception e) {
+                logger.warn("Could not load {} master data, keeping previous copy: {}", table, e.getMessage());
+                loaded.putIfAbsent(table, Collections.emptyMap());
+                failed.add(table);
+            }
+        }
+        tables = loaded;
+        failedTables = failed;
+        logger.info("Master data cache loaded: {} genders, {} states, {} districts, {} blocks, {} villages",
+                loaded.get(GENDER).size(), loaded.get(STATE).size(), loaded.get(DISTRICT).size(),
+                loaded.get(BLOCK).size(), loaded.get(VILLAGE).size());
+    }
+
+    public String getGenderName(Integer genderId) {
+        return lookup(GENDER, genderId);
+    }
+
+    public String getMaritalStatusName(Integer maritalStatusId) {
+        return lookup(MARITAL_STATUS, maritalStatusId);
+    }
+
+    public String getStateName(Integer stateId) {
+        return lookup(STATE, stateId);
+    }
+
+    public String getDistrictName(Integer districtId) {
+        return lookup(DISTRICT, districtId);
+    }
+
+    public String getBlockName(Integer blockId) {
+        return lookup(BLOCK, blockId);
+    }
+
+    public String getVillageName(Integer villageId) {
+        return lookup(VILLAGE, villageId);
+    }
+
+    public String getCommunityName(Integer communityId) {
+        return lookup(COMMUNITY, communityId);
+    }
+
+    public String getEducationName(Integer educationId) {
+        return lookup(EDUCATION, educationId);
+    }
+
+    private String lookup(String table, Integer id) {
+        if (id == null) {
+            return null;
+        }
+        Map<String, Map<Integer, String>> current = tables;
+        if (current == null) {
+            logger.debug("Master data cache not loaded yet; no {} name for {}", table, id);
+            return null;
+        }
+        return current.get(table).get(id);
+    }
+}
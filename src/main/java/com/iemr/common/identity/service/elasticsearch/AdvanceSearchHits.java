@@ -0,0 +1,48 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.service.elasticsearch;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * BenRegIDs of one advance search page answered by the index, with the total
+ * number of matches when it was requested.
+ */
+public class AdvanceSearchHits {
+
+    private final List<Long> benRegIds;
+    private final Long totalHits;
+
+    public AdvanceSearchHits(List<Long> benRegIds, Long totalHits) {
+        this.benRegIds = benRegIds != null ? benRegIds : Collections.emptyList();
+        this.totalHits = totalHits;
+    }
+
+    public List<Long> getBenRegIds() {
+        return benRegIds;
+    }
+
+    public Long getTotalHits() {
+        return totalHits;
+    }
+}
@@ -23,9 +23,15 @@ package com.iemr.common.identity.service.elasticsearch;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +43,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.iemr.common.identity.data.elasticsearch.BeneficiaryDocument;
 import com.iemr.common.identity.repo.BenMappingRepo;
 import com.iemr.common.identity.repo.V_BenAdvanceSearchRepo;
+import com.iemr.common.identity.service.MasterDataCacheService;
 
 /**
  * Optimized service to fetch complete beneficiary data in bulk
@@ -53,6 +60,9 @@ public class BeneficiaryDocumentDataService {
     @Autowired
     private V_BenAdvanceSearchRepo v_BenAdvanceSearchRepo;
 
+    @Autowired
+    private MasterDataCacheService masterData;
+
     /**
      * Fetch multiple beneficiaries with COMPLETE data in ONE query
      * This is the KEY method that replaces multiple individual queries
@@ -65,46 +75,129 @@ public class BeneficiaryDocumentDataService {
 
         try {
             logger.debug("Fetching {} beneficiaries with complete data", benRegIds.size());
+            return fetchDocuments(benRegIds);
+        } catch (Exception e) {
+            logger.error("Error fetching beneficiaries batch: {}", e.getMessage(), e);
+            return new ArrayList<>();
+        }
+    }
 
-            List<Object[]> results = mappingRepo.findCompleteDataByBenRegIds(benRegIds);
+    /**
+     * Documents for the Elasticsearch outbox. Unlike getBeneficiariesBatch,
+     * database errors are thrown to the caller, and the result also says which
+     * of the requested BenRegIds are indexable at all, so that a beneficiary
+     * that is gone can be told apart from one whose row could not be mapped.
+     *
+     * Runs in a transaction of its own: a failure here does not mark the
+     * outbox's transaction rollback-only. Not read-only, since the events may
+     * be for changes a replica has not caught up with yet.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class, timeout = 30)
+    public IndexBatch fetchForIndexing(List<BigInteger> benRegIds) {
+        if (benRegIds == null || benRegIds.isEmpty()) {
+            return new IndexBatch(new ArrayList<>(), Collections.emptySet());
+        }
+        Set<BigInteger> indexable = new HashSet<>();
+        for (Object id : mappingRepo.findIndexableBenRegIds(benRegIds)) {
+            indexable.add(BigInteger.valueOf(((Number) id).longValue()));
+        }
+        List<BeneficiaryDocument> documents = indexable.isEmpty() ? new ArrayList<>() : fetchDocuments(benRegIds);
+        return new IndexBatch(documents, indexable);
+    }
 
-            logger.info("Fetched {} complete beneficiary records", results.size());
-            // Batch fetch ABHA details for ALL beneficiaries at once
-            Map<Long, AbhaData> abhaMap = batchFetchAbhaData(benRegIds);
+    /**
+     * Reads and maps the rows of the given BenRegIds. Query errors are thrown;
+     * rows that cannot be mapped are logged and left out.
+     */
+    private List<BeneficiaryDocument> fetchDocuments(List<BigInteger> benRegIds) {
+        List<Object[]> results = mappingRepo.findCompleteDataByBenRegIds(benRegIds);
 
-            logger.info("Fetched ABHA details for {} beneficiaries", abhaMap.size());
+        logger.info("Fetched {} complete beneficiary records", results.size());
+        // Batch fetch ABHA details for ALL beneficiaries at once
+        Map<Long, AbhaData> abhaMap = batchFetchAbhaData(benRegIds);
 
-            List<BeneficiaryDocument> documents = new ArrayList<>();
+        logger.info("Fetched ABHA details for {} beneficiaries", abhaMap.size());
 
-            for (Object[] row : results) {
-                try {
-                    BeneficiaryDocument doc = mapRowToDocument(row);
-                    if (doc != null && doc.getBenId() != null) {
-
-                        AbhaData abhaData = abhaMap.get(doc.getBenRegId());
-                        if (abhaData != null) {
-                            doc.setHealthID(abhaData.getHealthID());
-                            doc.setAbhaID(abhaData.getHealthIDNumber());
-                            doc.setAbhaCreatedDate(abhaData.getAbhaCreatedDate());
-                            logger.info("Enriched benRegId={} with healthID={}, abhaID={}",
-                                    doc.getBenRegId(), doc.getHealthID(), doc.getAbhaID());
-                        } else {
-                            logger.debug("No ABHA details for benRegId={}", doc.getBenRegId());
-                        }
-                        documents.add(doc);
+        List<BeneficiaryDocument> documents = new ArrayList<>();
+
+        for (Object[] row : results) {
+            try {
+                BeneficiaryDocument doc = mapRowToDocument(row);
+                if (doc.getBenId() != null) {
+
+                    AbhaData abhaData = abhaMap.get(doc.getBenRegId());
+                    if (abhaData != null) {
+                        doc.setHealthID(abhaData.getHealthID());
+                        doc.setAbhaID(abhaData.getHealthIDNumber());
+                        doc.setAbhaCreatedDate(abhaData.getAbhaCreatedDate());
+                        logger.info("Enriched benRegId={} with healthID={}, abhaID={}",
+                                doc.getBenRegId(), doc.getHealthID(), doc.getAbhaID());
+                    } else {
+                        logger.debug("No ABHA details for benRegId={}", doc.getBenRegId());
                     }
-                } catch (Exception e) {
-                    logger.error("Error mapping row to document: {}", e.getMessage(), e);
+                    documents.add(doc);
                 }
+            } catch (Exception e) {
+                logger.error("Error mapping row to document: {}", e.getMessage(), e);
             }
+        }
 
-            logger.debug("Successfully converted {} beneficiaries to documents", documents.size());
-            return documents;
+        logger.debug("Successfully converted {} beneficiaries to documents", documents.size());
+        return documents;
+    }
 
-        } catch (Exception e) {
-            logger.error("Error fetching beneficiaries batch: {}", e.getMessage(), e);
-            return new ArrayList<>();
+    /**
+     * Streaming variant of getBeneficiariesBatch for full syncs. Rows are read
+     * from a forward-only result set and each one is mapped and handed to the
+     * sink straight away, so neither the raw rows nor the documents of the batch
+     * are held in memory together.
+     *
+     * The sink runs while the result set is open and must not use the database;
+     * so must the mapping, which is why master data names come from a cache
+     * that is loaded at startup and never from inside a lookup.
+     *
+     * @return number of rows skipped because they could not be mapped or have
+     *         no BeneficiaryId
+     */
+    @Transactional(readOnly = true, timeout = 300)
+    public int streamBeneficiariesBatch(List<BigInteger> benRegIds, Consumer<BeneficiaryDocument> sink) {
+        if (benRegIds == null || benRegIds.isEmpty()) {
+            return 0;
+        }
+
+        // ABHA rows are few; fetch them before the stream holds the connection
+        Map<Long, AbhaData> abhaMap = batchFetchAbhaData(benRegIds);
+
+        int count = 0;
+        int skipped = 0;
+        try (Stream<Object[]> rows = mappingRepo.streamCompleteDataByBenRegIds(benRegIds)) {
+            Iterator<Object[]> it = rows.iterator();
+            while (it.hasNext()) {
+                BeneficiaryDocument doc;
+                try {
+                    doc = mapRowToDocument(it.next());
+                } catch (Exception e) {
+                    logger.error("Error mapping row to document: {}", e.getMessage(), e);
+                    skipped++;
+                    continue;
+                }
+                if (doc.getBenId() == null) {
+                    skipped++;
+                    continue;
+                }
+                AbhaData abhaData = abhaMap.get(doc.getBenRegId());
+                if (abhaData != null) {
+                    doc.setHealthID(abhaData.getHealthID());
+                    doc.setAbhaID(abhaData.getHealthIDNumber());
+                    doc.setAbhaCreatedDate(abhaData.getAbhaCreatedDate());
+                }
+                sink.accept(doc);
+                count++;
+            }
         }
+        logger.debug("Streamed {} documents for {} beneficiaries, skipped {} rows", count, benRegIds.size(),
+                skipped);
+        return skipped;
     }
 
     private Map<Long, AbhaData> batchFetchAbhaData(List<BigInteger> benRegIds) {
@@ -118,9 +211,10 @@ public class BeneficiaryDocumentDataService {
 
     /**
      * Batch fetch ABHA details for multiple beneficiaries
-     * Returns a map of benRegId -> AbhaData
+     * Returns a map of benRegId -> AbhaData. Runs in the caller's read-only
+     * transaction; as a private method it is never proxied, so it carries no
+     * transaction settings of its own.
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true, timeout = 30)
     private Map<Long, AbhaData> batchFetchAbhaDetails(List<BigInteger> benRegIds) {
         Map<Long, AbhaData> abhaMap = new HashMap<>();
 
@@ -202,8 +296,10 @@ public class BeneficiaryDocumentDataService {
     /**
      * Fetch single beneficiary WITH fresh ABHA data
      * Use this for real-time sync (create/update operations)
+     * Not read-only: it runs right after a write and must not be routed to a
+     * replica that may not have caught up yet.
      */
-    @Transactional(readOnly = true, timeout = 10)
+    @Transactional(timeout = 10)
     public BeneficiaryDocument getBeneficiaryWithAbhaDetails(BigInteger benRegId) {
         if (benRegId == null) {
             return null;
@@ -232,80 +328,80 @@ public class BeneficiaryDocumentDataService {
 
     /**
      * Map database row to BeneficiaryDocument for ES
-     * Matches the query column order from BenMappingRepo
+     * Matches the query column order from BenMappingRepo. A row that cannot be
+     * mapped throws rather than producing a partial document.
      */
     private BeneficiaryDocument mapRowToDocument(Object[] row) {
         BeneficiaryDocument doc = new BeneficiaryDocument();
 
-        try {
-            int idx = 0;
-
-            // Basic IDs (0-1)
-            Long benRegId = getLong(row[idx++]);
-            doc.setBenRegId(benRegId);
-            String beneficiaryID = getString(row[idx++]);
-            if (beneficiaryID != null && !beneficiaryID.isEmpty()) {
-                doc.setBenId(beneficiaryID);
-            }
-            doc.setBeneficiaryID(beneficiaryID);
-
-            doc.setFirstName(getString(row[idx++]));
-            doc.setMiddleName(getString(row[idx++]));   
-            doc.setLastName(getString(row[idx++]));
-            doc.setGenderID(getInteger(row[idx++]));
-            doc.setGenderName(getString(row[idx++]));
-            doc.setGender(doc.getGenderName());
-            doc.setDOB(getDate(row[idx++]));
-            doc.setAge(getInteger(row[idx++]));
-            doc.setFatherName(getString(row[idx++]));
-            doc.setSpouseName(getString(row[idx++]));
-
-            doc.setMaritalStatusID(getInteger(row[idx++])); 
-            doc.setMaritalStatusName(getString(row[idx++]));
-            doc.setIsHIVPos(getString(row[idx++]));
-
-            doc.setCreatedBy(getString(row[idx++]));
-            doc.setCreatedDate(getDate(row[idx++]));
-            doc.setLastModDate(getLong(row[idx++]));
-            doc.setBenAccountID(getLong(row[idx++]));
-
-            doc.setPhoneNum(getString(row[idx++]));
-            doc.setFamilyID(getString(row[idx++]));
-
-            doc.setStateID(getInteger(row[idx++]));
-            doc.setStateName(getString(row[idx++]));
-            doc.setDistrictID(getInteger(row[idx++]));
-            doc.setDistrictName(getString(row[idx++]));
-            doc.setBlockID(getInteger(row[idx++]));
-            doc.setBlockName(getString(row[idx++]));
-            doc.setVillageID(getInteger(row[idx++]));
-            doc.setVillageName(getString(row[idx++]));
-            doc.setPinCode(getString(row[idx++]));
-            doc.setServicePointID(getInteger(row[idx++]));
-            doc.setServicePointName(getString(row[idx++]));
-            doc.setParkingPlaceID(getInteger(row[idx++]));
-
-            doc.setPermStateID(getInteger(row[idx++]));
-            doc.setPermStateName(getString(row[idx++]));
-            doc.setPermDistrictID(getInteger(row[idx++]));
-            doc.setPermDistrictName(getString(row[idx++]));
-            doc.setPermBlockID(getInteger(row[idx++]));
-            doc.setPermBlockName(getString(row[idx++]));
-            doc.setPermVillageID(getInteger(row[idx++]));
-            doc.setPermVillageName(getString(row[idx++]));
-
-            // doc.setGovtIdentityNo(getString(row[idx++]));
-            // String aadhar = getString(row[idx]);
-            // doc.setAadharNo(aadhar != null ? aadhar : doc.getGovtIdentityNo());
+        int idx = 0;
 
-        } catch (Exception e) {
-            logger.error("Error mapping row to document: {}", e.getMessage(), e);
+        // Basic IDs (0-1)
+        Long benRegId = getLong(row[idx++]);
+        doc.setBenRegId(benRegId);
+        String beneficiaryID = getString(row[idx++]);
+        if (beneficiaryID != null && !beneficiaryID.isEmpty()) {
+            doc.setBenId(beneficiaryID);
         }
+        doc.setBeneficiaryID(beneficiaryID);
+
+        doc.setFirstName(getString(row[idx++]));
+        doc.setMiddleName(getString(row[idx++]));   
+        doc.setLastName(getString(row[idx++]));
+        doc.setGenderID(getInteger(row[idx++]));
+        doc.setGenderName(masterData.getGenderName(doc.getGenderID()));
+        doc.setGender(doc.getGenderName());
+        doc.setDOB(getDate(row[idx++]));
+        doc.setAge(getInteger(row[idx++]));
+        doc.setFatherName(getString(row[idx++]));
+        doc.setSpouseName(getString(row[idx++]));
+
+        doc.setMaritalStatusID(getInteger(row[idx++])); 
+        doc.setMaritalStatusName(masterData.getMaritalStatusName(doc.getMaritalStatusID()));
+        doc.setIsHIVPos(getString(row[idx++]));
+
+        doc.setCreatedBy(getString(row[idx++]));
+        doc.setCreatedDate(getDate(row[idx++]));
+        doc.setLastModDate(getLong(row[idx++]));
+        doc.setBenAccountID(getLong(row[idx++]));
+
+        doc.setPhoneNum(getString(row[idx++]));
+        doc.setFamilyID(getString(row[idx++]));
+
+        doc.setStateID(getInteger(row[idx++]));
+        doc.setStateName(orMaster(getString(row[idx++]), masterData.getStateName(doc.getStateID())));
+        doc.setDistrictID(getInteger(row[idx++]));
+        doc.setDistrictName(orMaster(getString(row[idx++]), masterData.getDistrictName(doc.getDistrictID())));
+        doc.setBlockID(getInteger(row[idx++]));
+        doc.setBlockName(orMaster(getString(row[idx++]), masterData.getBlockName(doc.getBlockID())));
+        doc.setVillageID(getInteger(row[idx++]));
+        doc.setVillageName(orMaster(getString(row[idx++]), masterData.getVillageName(doc.getVillageID())));
+        doc.setPinCode(getString(row[idx++]));
+        doc.setServicePointID(getInteger(row[idx++]));
+        doc.setServicePointName(getString(row[idx++]));
+        doc.setParkingPlaceID(getInteger(row[idx++]));
+
+        doc.setPermStateID(getInteger(row[idx++]));
+        doc.setPermStateName(orMaster(getString(row[idx++]), masterData.getStateName(doc.getPermStateID())));
+        doc.setPermDistrictID(getInteger(row[idx++]));
+        doc.setPermDistrictName(orMaster(getString(row[idx++]), masterData.getDistrictName(doc.getPermDistrictID())));
+        doc.setPermBlockID(getInteger(row[idx++]));
+        doc.setPermBlockName(orMaster(getString(row[idx++]), masterData.getBlockName(doc.getPermBlockID())));
+        doc.setPermVillageID(getInteger(row[idx++]));
+        doc.setPermVillageName(orMaster(getString(row[idx++]), masterData.getVillageName(doc.getPermVillageID())));
+
+        // doc.setGovtIdentityNo(getString(row[idx++]));
+        // String aadhar = getString(row[idx]);
+        // doc.setAadharNo(aadhar != null ? aadhar : doc.getGovtIdentityNo());
 
         return doc;
     }
 
     // Helper methods
+    private static String orMaster(String value, String masterName) {
+        return value != null && !value.isEmpty() ? value : masterName;
+    }
+
     private String getString(Object value) {
         return value != null ? value.toString() : null;
     }
@@ -354,6 +450,28 @@ public class BeneficiaryDocumentDataService {
         return null;
     }
 
+    /**
+     * Documents fetched for the outbox, with the requested BenRegIds that are
+     * indexable (not deleted and carrying a BeneficiaryId)
+     */
+    public static final class IndexBatch {
+        private final List<BeneficiaryDocument> documents;
+        private final Set<BigInteger> indexableBenRegIds;
+
+        IndexBatch(List<BeneficiaryDocument> documents, Set<BigInteger> indexableBenRegIds) {
+            this.documents = documents;
+            this.indexableBenRegIds = indexableBenRegIds;
+        }
+
+        public List<BeneficiaryDocument> getDocuments() {
+            return documents;
+        }
+
+        public Set<BigInteger> getIndexableBenRegIds() {
+            return indexableBenRegIds;
+        }
+    }
+
     /**
      * Inner class to hold ABHA data
      */
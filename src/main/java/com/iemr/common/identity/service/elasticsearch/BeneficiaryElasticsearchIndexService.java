@@ -27,6 +27,8 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -65,20 +67,33 @@ public class BeneficiaryElasticsearchIndexService {
     @Autowired
     private SyncJobRepo syncJobRepository;
 
+    @Autowired
+    private SyncJobRegistry jobRegistry;
+
+    @Autowired
+    private SyncRateController rateController;
+
     @Value("${elasticsearch.index.beneficiary}")
     private String beneficiaryIndex;
 
     /**
      * Start async full sync job with COMPLETE 38+ field data
+     * Checks the job's cancellation token between batches; the returned Future
+     * interrupts the worker when cancelled
      */
     @Async("elasticsearchSyncExecutor")
-    public void syncAllBeneficiariesAsync(Long jobId, String triggeredBy) {
+    public Future<Void> syncAllBeneficiariesAsync(Long jobId, String triggeredBy) {
         logger.info("Starting ASYNC full sync with COMPLETE data: jobId={}", jobId);
 
         ElasticsearchSyncJob job = syncJobRepository.findByJobId(jobId)
                 .orElseThrow(() -> new RuntimeException("Job not found: " + jobId));
 
         try {
+            if (!job.isActive()) {
+                // cancelled before this thread picked it up
+                logger.info("Job {} is {}; not starting", jobId, job.getStatus());
+                return CompletableFuture.completedFuture(null);
+            }
             boolean isResume = false;
             int offset = 0;
             long processedCount = 0;
@@ -86,7 +101,7 @@ public class BeneficiaryElasticsearchIndexService {
             long failureCount = 0;
 
             // Check if this is a resume from a previous run
-            if (job.getStatus().equals("RUNNING") && job.getCurrentOffset() != null && job.getCurrentOffset() > 0) {
+            if (job.getCurrentOffset() != null && job.getCurrentOffset() > 0) {
                 isResume = true;
                 offset = job.getCurrentOffset();
                 processedCount = job.getProcessedRecords() != null ? job.getProcessedRecords() : 0;
@@ -95,6 +110,8 @@ public class BeneficiaryElasticsearchIndexService {
 
                 logger.info("RESUMING SYNC from offset {} (processed: {}, success: {}, failed: {})",
                         offset, processedCount, successCount, failureCount);
+                job.setStatus("RUNNING");
+                syncJobRepository.save(job);
             } else {
                 job.setStatus("RUNNING");
                 job.setStartedAt(new Timestamp(System.currentTimeMillis()));
@@ -117,10 +134,12 @@ public class BeneficiaryElasticsearchIndexService {
                 job.setCompletedAt(new Timestamp(System.currentTimeMillis()));
                 job.setErrorMessage("No beneficiaries found to sync");
                 syncJobRepository.save(job);
-                return;
+                return CompletableFuture.completedFuture(null);
             }
 
             List<BeneficiaryDocument> esBatch = new ArrayList<>();
+            // offset of the batch that put the oldest unflushed document in esBatch
+            int bufferStartOffset = offset;
             int batchCounter = offset / BATCH_SIZE;
             long startTime = isResume ? job.getStartedAt().getTime() : System.currentTimeMillis();
             long lastProgressUpdate = System.currentTimeMillis();
@@ -129,12 +148,19 @@ public class BeneficiaryElasticsearchIndexService {
 
             // Process in batches
             while (offset < totalCount) {
+                if (jobRegistry.isStopRequested(jobId)) {
+                    markStopped(job, jobRegistry.getStopStatus(jobId), esBatch.isEmpty() ? offset : bufferStartOffset,
+                            processedCount, successCount, failureCount);
+                    return CompletableFuture.completedFuture(null);
+                }
+                int batchSize = rateController.scaled(BATCH_SIZE);
                 try {
                     logger.info("=== BATCH {} START: offset={}/{} ({:.1f}%) ===",
                             batchCounter + 1, offset, totalCount, (offset * 100.0 / totalCount));
 
-                    logger.debug("Calling getBeneficiaryIdsBatch(offset={}, limit={})", offset, BATCH_SIZE);
-                    List<Object[]> batchIds = transactionalWrapper.getBeneficiaryIdsBatch(offset, BATCH_SIZE);
+                    logger.debug("Calling getBeneficiaryIdsBatch(offset={}, limit={})", offset, batchSize);
+                    long fetchStart = System.currentTimeMillis();
+                    List<Object[]> batchIds = transactionalWrapper.getBeneficiaryIdsBatch(offset, batchSize);
 
                     logger.info("Retrieved {} IDs from database", batchIds != null ? batchIds.size() : 0);
 
@@ -156,12 +182,13 @@ public class BeneficiaryElasticsearchIndexService {
 
                     if (benRegIds.isEmpty()) {
                         logger.error("No valid IDs in batch at offset {} - ALL IDs FAILED CONVERSION", offset);
-                        offset += BATCH_SIZE;
+                        offset += batchSize;
                         continue;
                     }
 
                     logger.info("Fetching complete data for {} beneficiaries...", benRegIds.size());
                     List<BeneficiaryDocument> documents = dataService.getBeneficiariesBatch(benRegIds);
+                    rateController.recordDbFetch(System.currentTimeMillis() - fetchStart, benRegIds.size());
 
                     logger.info("✓ Fetched {} complete documents for batch at offset {}", documents.size(), offset);
 
@@ -169,12 +196,19 @@ public class BeneficiaryElasticsearchIndexService {
                     for (BeneficiaryDocument doc : documents) {
                         try {
                             if (doc != null && doc.getBenId() != null) {
+                                if (esBatch.isEmpty()) {
+                                    bufferStartOffset = offset;
+                                }
                                 esBatch.add(doc);
                                 docsAddedInThisBatch++;
 
-                                if (esBatch.size() >= ES_BULK_SIZE) {
+                                if (esBatch.size() >= rateController.scaled(ES_BULK_SIZE)) {
                                     logger.info("ES batch full ({} docs), indexing now...", esBatch.size());
                                     int indexed = bulkIndexDocuments(esBatch);
+                                    if (jobRegistry.isStopRequested(jobId)) {
+                                        // bulk may have been aborted; keep the buffer for the checkpoint
+                                        throw new IllegalStateException("Job stopped during bulk indexing");
+                                    }
                                     successCount += indexed;
                                     failureCount += (esBatch.size() - indexed);
                                     processedCount += esBatch.size();
@@ -189,6 +223,9 @@ public class BeneficiaryElasticsearchIndexService {
                                 processedCount++;
                             }
                         } catch (Exception e) {
+                            if (jobRegistry.isStopRequested(jobId)) {
+                                throw e;
+                            }
                             logger.error("Error processing single document: {}", e.getMessage(), e);
                             failureCount++;
                             processedCount++;
@@ -204,7 +241,7 @@ public class BeneficiaryElasticsearchIndexService {
                         logger.warn("{} beneficiaries not fetched from database", notFetched);
                     }
 
-                    offset += BATCH_SIZE;
+                    offset += batchSize;
                     batchCounter++;
 
                     logger.info("=== BATCH {} END: Processed={}, Success={}, Failed={} ===",
@@ -214,29 +251,36 @@ public class BeneficiaryElasticsearchIndexService {
                     long now = System.currentTimeMillis();
                     if (batchCounter % STATUS_UPDATE_FREQUENCY == 0 || (now - lastProgressUpdate) > 30000) {
                         logger.info("Saving checkpoint for resume capability...");
-                        updateJobProgress(job, processedCount, successCount, failureCount,
-                                offset, totalCount, startTime);
+                        if (!updateJobProgress(job, processedCount, successCount, failureCount,
+                                offset, totalCount, startTime)) {
+                            markStopped(job, "CANCELLED", esBatch.isEmpty() ? offset : bufferStartOffset,
+                                    processedCount, successCount, failureCount);
+                            return CompletableFuture.completedFuture(null);
+                        }
                         lastProgressUpdate = now;
                     }
 
-                    // Brief pause every 10 batches
-                    if (batchCounter % 10 == 0) {
-                        logger.debug("Pausing for 500ms after {} batches", batchCounter);
-                        Thread.sleep(500);
-                    }
+                    // Adaptive pause and batch sizing from DB / ES pressure
+                    rateController.pace();
 
                 } catch (Exception e) {
+                    if (jobRegistry.isStopRequested(jobId)) {
+                        markStopped(job, jobRegistry.getStopStatus(jobId), esBatch.isEmpty() ? offset : bufferStartOffset,
+                                processedCount, successCount, failureCount);
+                        return CompletableFuture.completedFuture(null);
+                    }
                     consecutiveErrors++;
                     logger.error("!!! ERROR #{} in batch at offset {}: {} !!!",
                             consecutiveErrors, offset, e.getMessage(), e);
                     logger.error("Exception type: {}", e.getClass().getName());
 
                     // Save progress before handling error
-                    job.setCurrentOffset(offset);
-                    job.setProcessedRecords(processedCount);
-                    job.setSuccessCount(successCount);
-                    job.setFailureCount(failureCount);
-                    syncJobRepository.save(job);
+                    if (!updateJobProgress(job, processedCount, successCount, failureCount,
+                            offset, totalCount, startTime)) {
+                        markStopped(job, "CANCELLED", esBatch.isEmpty() ? offset : bufferStartOffset,
+                                processedCount, successCount, failureCount);
+                        return CompletableFuture.completedFuture(null);
+                    }
 
                     // If too many consecutive errors, mark job as STALLED for manual intervention
                     if (consecutiveErrors >= MAX_CONSECUTIVE_ERRORS) {
@@ -244,11 +288,11 @@ public class BeneficiaryElasticsearchIndexService {
                         job.setStatus("STALLED");
                         job.setErrorMessage("Too many consecutive errors at offset " + offset + ": " + e.getMessage());
                         syncJobRepository.save(job);
-                        return;
+                        return CompletableFuture.completedFuture(null);
                     }
 
                     // Skip this batch and continue
-                    offset += BATCH_SIZE;
+                    offset += batchSize;
 
                     // Exponential backoff: wait longer after each error
                     long waitTime = Math.min(10000, 1000 * (long) Math.pow(2, consecutiveErrors));
@@ -285,13 +329,41 @@ public class BeneficiaryElasticsearchIndexService {
             logger.info("All 38+ beneficiary fields synced to Elasticsearch!");
 
         } catch (Exception e) {
+            if (jobRegistry.isStopRequested(jobId)) {
+                // interrupted during error backoff; the checkpoint was saved by the batch handler
+                markStopped(job, jobRegistry.getStopStatus(jobId), job.getCurrentOffset(), job.getProcessedRecords(),
+                        job.getSuccessCount(), job.getFailureCount());
+                return CompletableFuture.completedFuture(null);
+            }
             logger.error("CRITICAL ERROR in async sync: jobId={}, error={}", jobId, e.getMessage(), e);
 
             job.setStatus("FAILED");
             job.setCompletedAt(new Timestamp(System.currentTimeMillis()));
             job.setErrorMessage(e.getMessage());
             syncJobRepository.save(job);
+        } finally {
+            jobRegistry.unregister(jobId);
         }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Record a cancelled or paused job with a checkpoint it can be resumed from.
+     * Clears the interrupt left by Future.cancel so the final save can run.
+     */
+    private void markStopped(ElasticsearchSyncJob job, String status, Integer checkpoint, Long processed,
+            Long success, Long failure) {
+        Thread.interrupted();
+        job.setStatus(status);
+        job.setCompletedAt("PAUSED".equals(status) ? null : new Timestamp(System.currentTimeMillis()));
+        job.setCurrentOffset(checkpoint);
+        job.setProcessedRecords(processed);
+        job.setSuccessCount(success);
+        job.setFailureCount(failure);
+        job.setErrorMessage(("PAUSED".equals(status) ? "Paused outside maintenance window" : "Cancelled")
+                + " at offset " + checkpoint);
+        syncJobRepository.save(job);
+        logger.info("Sync job {}: jobId={}, checkpoint offset={}", status, job.getJobId(), checkpoint);
     }
 
     // Resume a stalled job
@@ -341,7 +413,13 @@ public class BeneficiaryElasticsearchIndexService {
         }
     }
 
-    private void updateJobProgress(ElasticsearchSyncJob job, long processed, long success,
+    /**
+     * Checkpoint the job's progress. Only a RUNNING job is updated, so a
+     * cancellation written by another instance is not overwritten.
+     *
+     * @return false if the job is no longer RUNNING and should stop
+     */
+    private boolean updateJobProgress(ElasticsearchSyncJob job, long processed, long success,
             long failure, int offset, long total, long startTime) {
         job.setProcessedRecords(processed);
         job.setSuccessCount(success);
@@ -358,8 +436,9 @@ public class BeneficiaryElasticsearchIndexService {
             job.setEstimatedTimeRemaining(estimatedSeconds);
         }
 
-        syncJobRepository.save(job);
-
+        return syncJobRepository.saveProgressIfRunning(job.getJobId(), job.getProcessedRecords(),
+                job.getSuccessCount(), job.getFailureCount(), job.getCurrentOffset(), job.getProcessingSpeed(),
+                job.getEstimatedTimeRemaining()) > 0;
     }
 
     private int bulkIndexDocuments(List<BeneficiaryDocument> documents) {
@@ -380,14 +459,19 @@ public class BeneficiaryElasticsearchIndexService {
                 }
             }
 
+            long bulkStart = System.currentTimeMillis();
             BulkResponse result = esClient.bulk(br.build());
             int successCount = 0;
+            int rejected = 0;
 
             if (result.errors()) {
                 for (BulkResponseItem item : result.items()) {
                     if (item.error() == null) {
                         successCount++;
                     } else {
+                        if (item.status() == 429) {
+                            rejected++;
+                        }
                         logger.error("ES indexing error for doc {}: {}",
                                 item.id(), item.error().reason());
                     }
@@ -396,11 +480,14 @@ public class BeneficiaryElasticsearchIndexService {
                 successCount = documents.size();
             }
 
+            rateController.recordBulk(System.currentTimeMillis() - bulkStart, documents.size(), rejected);
+
             logger.debug("Bulk indexed {} documents successfully", successCount);
             return successCount;
 
         } catch (Exception e) {
             logger.error("Error in bulk indexing: {}", e.getMessage(), e);
+            rateController.recordBulk(0, 0, documents.size());
             return 0;
         }
     }
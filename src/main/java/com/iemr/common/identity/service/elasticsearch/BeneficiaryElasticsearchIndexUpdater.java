@@ -22,9 +22,6 @@
 
 package com.iemr.common.identity.service.elasticsearch;
 
-import java.math.BigInteger;
-import java.util.concurrent.CompletableFuture;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,13 +32,10 @@ import org.springframework.stereotype.Service;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.elasticsearch._types.Refresh;
 import co.elastic.clients.elasticsearch.core.DeleteRequest;
-import co.elastic.clients.elasticsearch.core.IndexRequest;
-
-import com.iemr.common.identity.data.elasticsearch.BeneficiaryDocument;
 
 /**
- * Service for real-time Elasticsearch synchronization
- * Triggers automatically when beneficiaries are created/updated in database
+ * Service for real-time Elasticsearch deletes. Creates and updates are
+ * published through {@link EsOutboxService}
  */
 @Service
 public class BeneficiaryElasticsearchIndexUpdater {
@@ -52,7 +46,7 @@ public class BeneficiaryElasticsearchIndexUpdater {
     private ElasticsearchClient esClient;
 
     @Autowired
-    private BeneficiaryDocumentDataService dataService;
+    private SearchResultCache searchResultCache;
 
     @Value("${elasticsearch.index.beneficiary}")
     private String beneficiaryIndex;
@@ -75,9 +69,12 @@ public class BeneficiaryElasticsearchIndexUpdater {
 
             DeleteRequest request = DeleteRequest.of(d -> d
                     .index(beneficiaryIndex)
-                    .id(benId));
+                    .id(benId)
+                    .refresh(Refresh.WaitFor));
 
             esClient.delete(request);
+            // cached results are keyed by BenRegID, which a benId delete cannot resolve
+            searchResultCache.clear();
 
             logger.info("Successfully deleted beneficiary from Elasticsearch: benId={}", benId);
 
@@ -85,31 +82,4 @@ public class BeneficiaryElasticsearchIndexUpdater {
             logger.error("Error deleting beneficiary {} from Elasticsearch: {}", benId, e.getMessage(), e);
         }
     }
-
-    @Async
-    public CompletableFuture<Void> syncBeneficiaryAsync(BigInteger benRegId) {
-        BeneficiaryDocument document = dataService.getBeneficiaryWithAbhaDetails(benRegId);
-        if (document == null) {
-            logger.warn("No data found for benRegId: {}", benRegId);
-            return CompletableFuture.completedFuture(null);
-        }
-
-        // Log ABHA for verification
-        logger.info("Syncing benRegId={} with ABHA: healthID={}, abhaID={}",
-                benRegId, document.getHealthID(), document.getAbhaID());
-
-        try{
-        // Index to ES
-        esClient.index(i -> i
-                .index(beneficiaryIndex)
-                .id(String.valueOf(benRegId))
-                .document(document).refresh(Refresh.True));
-
-        logger.info("Successfully synced benRegId: {} to ES", benRegId);
-         } catch (Exception e) {
-            logger.error("Error syncing beneficiary {} to Elasticsearch: {}", benRegId, e.getMessage(), e);
-        }
-        return CompletableFuture.completedFuture(null);
-
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,410 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+
+package com.iemr.common.identity.service.elasticsearch;
+
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregationSource;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeBucket;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
+
+import com.iemr.common.identity.data.elasticsearch.BeneficiaryDocument;
+import com.iemr.common.identity.data.elasticsearch.ElasticsearchSyncJob;
+import com.iemr.common.identity.repo.BenMappingRepo;
+import com.iemr.common.identity.repo.elasticsearch.SyncJobRepo;
+import com.iemr.common.identity.service.elasticsearch.BeneficiaryDocumentDataService.IndexBatch;
+
+/**
+ * DB-vs-ES reconciliation by BenRegId range.
+ *
+ * The BenRegId space is cut into fixed-width ranges. For each range a digest
+ * (document count, sum of benRegId, sum of lastModDate) is computed in MySQL
+ * and, through a composite aggregation, in Elasticsearch. Only ranges whose
+ * digests differ are repaired: their rows are re-indexed from the database and
+ * index documents with no matching row are deleted.
+ *
+ * Job progress: totalRecords / processedRecords count ranges, successCount and
+ * failureCount count repaired documents, currentOffset is the number of
+ * completed windows so a FAILED job resumes where it stopped.
+ */
+@Service
+public class ElasticsearchReconcileService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ElasticsearchReconcileService.class);
+
+    // ranges compared per DB query / ES aggregation
+    private static final int WINDOW_RANGES = 500;
+    private static final int REPAIR_BATCH_SIZE = 2000;
+    private static final int MAX_ORPHAN_SCAN = 10000;
+
+    @Autowired
+    private ElasticsearchClient esClient;
+
+    @Autowired
+    private BenMappingRepo mappingRepo;
+
+    @Autowired
+    private BeneficiaryDocumentDataService dataService;
+
+    @Autowired
+    private SyncJobRepo syncJobRepository;
+
+    @Autowired
+    private SyncJobRegistry jobRegistry;
+
+    @Autowired
+    private SyncRateController rateController;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Value("${elasticsearch.index.beneficiary}")
+    private String beneficiaryIndex;
+
+    @Value("${elasticsearch.reconcile.range-size:1000}")
+    private long rangeSize;
+
+    @Async("elasticsearchSyncExecutor")
+    public Future<Void> reconcileAsync(Long jobId) {
+        ElasticsearchSyncJob job = syncJobRepository.findByJobId(jobId)
+                .orElseThrow(() -> new RuntimeException("Job not found: " + jobId));
+
+        try {
+            if (!job.isActive()) {
+                // cancelled before this thread picked it up
+                logger.info("Job {} is {}; not starting", jobId, job.getStatus());
+                return CompletableFuture.completedFuture(null);
+            }
+            long[] bounds = getIdBounds();
+            if (bounds == null) {
+                job.setStatus("COMPLETED");
+                job.setTotalRecords(0L);
+                job.setCompletedAt(new Timestamp(System.currentTimeMillis()));
+                job.setErrorMessage("No beneficiaries found to reconcile");
+                syncJobRepository.save(job);
+                return CompletableFuture.completedFuture(null);
+            }
+
+            long firstRange = Math.floorDiv(bounds[0], rangeSize) * rangeSize;
+            long windowWidth = rangeSize * WINDOW_RANGES;
+            long totalRanges = (bounds[1] - firstRange) / rangeSize + 1;
+            int totalWindows = (int) ((totalRanges + WINDOW_RANGES - 1) / WINDOW_RANGES);
+
+            int window = job.getCurrentOffset() != null ? job.getCurrentOffset() : 0;
+            long rangesChecked = job.getProcessedRecords() != null ? job.getProcessedRecords() : 0;
+            long repaired = job.getSuccessCount() != null ? job.getSuccessCount() : 0;
+            long failed = job.getFailureCount() != null ? job.getFailureCount() : 0;
+            long rangesDiffering = 0;
+
+            job.setStatus("RUNNING");
+            job.setTotalRecords(totalRanges);
+            if (job.getStartedAt() == null) {
+                job.setStartedAt(new Timestamp(System.currentTimeMillis()));
+            }
+            syncJobRepository.save(job);
+
+            logger.info("Reconcile job {}: benRegId {}..{}, {} ranges of {} in {} windows, starting at window {}",
+                    jobId, bounds[0], bounds[1], totalRanges, rangeSize, totalWindows, window);
+
+            long startTime = System.currentTimeMillis();
+            for (; window < totalWindows; window++) {
+                if (jobRegistry.isStopRequested(jobId)) {
+                    markStopped(job, jobRegistry.getStopStatus(jobId));
+                    return CompletableFuture.completedFuture(null);
+                }
+
+                long from = firstRange + window * windowWidth;
+                long to = from + windowWidth;
+
+                Map<Long, long[]> dbDigests = getDbDigests(from, to);
+                Map<Long, long[]> esDigests = getEsDigests(from, to);
+
+                Set<Long> ranges = new HashSet<>(dbDigests.keySet());
+                ranges.addAll(esDigests.keySet());
+                for (Long rangeStart : ranges) {
+                    long[] db = dbDigests.get(rangeStart);
+                    long[] es = esDigests.get(rangeStart);
+                    if (db != null && es != null && db[0] == es[0] && db[1] == es[1] && db[2] == es[2]) {
+                        continue;
+                    }
+                    rangesDiffering++;
+                    logger.info("Range [{}, {}) differs: db={}, es={}", rangeStart, rangeStart + rangeSize,
+                            describe(db), describe(es));
+                    long[] result = repairRange(rangeStart, rangeStart + rangeSize);
+                    repaired += result[0];
+                    failed += result[1];
+                }
+
+                rangesChecked = Math.min(totalRanges, (long) (window + 1) * WINDOW_RANGES);
+                job.setCurrentOffset(window + 1);
+                job.setProcessedRecords(rangesChecked);
+                job.setSuccessCount(repaired);
+                job.setFailureCount(failed);
+                long elapsed = System.currentTimeMillis() - startTime;
+                if (elapsed > 0) {
+                    double speed = rangesChecked / (elapsed / 1000.0);
+                    job.setProcessingSpeed(speed);
+                    job.setEstimatedTimeRemaining(speed > 0 ? (long) ((totalRanges - rangesChecked) / speed) : null);
+                }
+                // only a RUNNING job is checkpointed; 0 rows means it was cancelled from another instance
+                if (syncJobRepository.saveProgressIfRunning(jobId, rangesChecked, repaired, failed, window + 1,
+                        job.getProcessingSpeed(), job.getEstimatedTimeRemaining()) == 0) {
+                    markStopped(job, "CANCELLED");
+                    return CompletableFuture.completedFuture(null);
+                }
+
+                rateController.pace();
+            }
+
+            job.setStatus("COMPLETED");
+            job.setCompletedAt(new Timestamp(System.currentTimeMillis()));
+            job.setErrorMessage(rangesDiffering + " of " + totalRanges + " ranges differed");
+            syncJobRepository.save(job);
+
+            logger.info("Reconcile job {} COMPLETED: {} ranges checked, {} differed, {} documents repaired, {} failed",
+                    jobId, rangesChecked, rangesDiffering, repaired, failed);
+
+        } catch (Exception e) {
+            if (jobRegistry.isStopRequested(jobId)) {
+                markStopped(job, jobRegistry.getStopStatus(jobId));
+                return CompletableFuture.completedFuture(null);
+            }
+            logger.error("CRITICAL ERROR in reconcile: jobId={}, error={}", jobId, e.getMessage(), e);
+            job.setStatus("FAILED");
+            job.setCompletedAt(new Timestamp(System.currentTimeMillis()));
+            job.setErrorMessage(e.getMessage());
+            syncJobRepository.save(job);
+        } finally {
+            jobRegistry.unregister(jobId);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Record a cancelled or paused job. Its currentOffset already points at the
+     * first unfinished window. Clears the interrupt left by Future.cancel so the
+     * final save can run.
+     */
+    private void markStopped(ElasticsearchSyncJob job, String status) {
+        Thread.interrupted();
+        job.setStatus(status);
+        job.setCompletedAt("PAUSED".equals(status) ? null : new Timestamp(System.currentTimeMillis()));
+        job.setErrorMessage(("PAUSED".equals(status) ? "Paused outside maintenance window" : "Cancelled")
+                + " at window " + job.getCurrentOffset());
+        syncJobRepository.save(job);
+        logger.info("Reconcile job {}: jobId={}, checkpoint window={}", status, job.getJobId(), job.getCurrentOffset());
+    }
+
+    /**
+     * Union of the DB and index BenRegId bounds, so ranges holding only
+     * orphaned index documents are visited too.
+     */
+    private long[] getIdBounds() throws Exception {
+        Long min = null;
+        Long max = null;
+
+        List<Object[]> dbBounds = mappingRepo.getIndexableBenRegIdBounds();
+        if (!dbBounds.isEmpty() && dbBounds.get(0)[0] != null) {
+            min = ((Number) dbBounds.get(0)[0]).longValue();
+            max = ((Number) dbBounds.get(0)[1]).longValue();
+        }
+
+        SearchResponse<Void> response = esClient.search(s -> s
+                .index(beneficiaryIndex)
+                .size(0)
+                .aggregations("minId", a -> a.min(m -> m.field("benRegId")))
+                .aggregations("maxId", a -> a.max(m -> m.field("benRegId"))),
+                Void.class);
+        Double esMin = response.aggregations().get("minId").min().value();
+        Double esMax = response.aggregations().get("maxId").max().value();
+        if (esMin != null && !esMin.isInfinite() && !esMin.isNaN()) {
+            min = min == null ? esMin.longValue() : Math.min(min, esMin.longValue());
+            max = max == null ? esMax.longValue() : Math.max(max, esMax.longValue());
+        }
+
+        return min == null ? null : new long[] { min, max };
+    }
+
+    /**
+     * Range start -> {count, sum(benRegId), sum(lastModDate)} from MySQL
+     */
+    private Map<Long, long[]> getDbDigests(long from, long to) {
+        Map<Long, long[]> digests = new HashMap<>();
+        for (Object[] row : mappingRepo.getRangeDigests(from, to, rangeSize)) {
+            digests.put(toLong(row[0]), new long[] { toLong(row[1]), toLong(row[2]), toLong(row[3]) });
+        }
+        return digests;
+    }
+
+    /**
+     * Range start -> {count, sum(benRegId), sum(lastModDate)} from Elasticsearch.
+     * Range widths keep both sums below 2^53, so the double sums are exact.
+     */
+    private Map<Long, long[]> getEsDigests(long from, long to) throws Exception {
+        Map<Long, long[]> digests = new HashMap<>();
+        Map<String, FieldValue> afterKey = null;
+
+        do {
+            final Map<String, FieldValue> after = afterKey;
+            SearchResponse<Void> response = esClient.search(s -> s
+                    .index(beneficiaryIndex)
+                    .size(0)
+                    .query(q -> q.range(r -> r.field("benRegId").gte(JsonData.of(from)).lt(JsonData.of(to))))
+                    .aggregations("ranges", a -> a
+                            .composite(c -> {
+                                c.size(WINDOW_RANGES)
+                                        .sources(Map.of("rangeStart", CompositeAggregationSource.of(src -> src
+                                                .histogram(h -> h.field("benRegId").interval((double) rangeSize)))));
+                                if (after != null) {
+                                    c.after(after);
+                                }
+                                return c;
+                            })
+                            .aggregations("idSum", sub -> sub.sum(sm -> sm.field("benRegId")))
+                            .aggregations("modSum", sub -> sub.sum(sm -> sm.field("lastModDate")))),
+                    Void.class);
+
+            Aggregate ranges = response.aggregations().get("ranges");
+            List<CompositeBucket> buckets = ranges.composite().buckets().array();
+            for (CompositeBucket bucket : buckets) {
+                long rangeStart = (long) bucket.key().get("rangeStart").doubleValue();
+                long idSum = Math.round(bucket.aggregations().get("idSum").sum().value());
+                long modSum = Math.round(bucket.aggregations().get("modSum").sum().value());
+                digests.put(rangeStart, new long[] { bucket.docCount(), idSum, modSum });
+            }
+            afterKey = buckets.size() < WINDOW_RANGES ? null : ranges.composite().afterKey();
+        } while (afterKey != null && !afterKey.isEmpty());
+
+        return digests;
+    }
+
+    /**
+     * Re-index every row of [from, to) and delete index documents with no row.
+     *
+     * @return {documents repaired, documents failed}
+     */
+    private long[] repairRange(long from, long to) throws Exception {
+        List<BigInteger> benRegIds = new ArrayList<>();
+        Set<Long> dbIds = new HashSet<>();
+        for (Object id : mappingRepo.getIndexableBenRegIdsInRange(from, to)) {
+            long value = toLong(id);
+            dbIds.add(value);
+            benRegIds.add(BigInteger.valueOf(value));
+        }
+
+        Set<Long> touched = new HashSet<>(dbIds);
+        BulkRequest.Builder br = new BulkRequest.Builder();
+        int operations = 0;
+        long unmapped = 0;
+
+        for (int i = 0; i < benRegIds.size(); i += REPAIR_BATCH_SIZE) {
+            List<BigInteger> chunk = benRegIds.subList(i, Math.min(i + REPAIR_BATCH_SIZE, benRegIds.size()));
+            // throws on a database error, which fails the job instead of reading as an empty range
+            IndexBatch batch = dataService.fetchForIndexing(chunk);
+            for (BeneficiaryDocument doc : batch.getDocuments()) {
+                br.operations(op -> op.index(idx -> idx
+                        .index(beneficiaryIndex)
+                        .id(doc.getBenId())
+                        .document(doc)));
+                operations++;
+            }
+            // rows that could not be mapped keep their index document and count as failed
+            unmapped += Math.max(0, batch.getIndexableBenRegIds().size() - batch.getDocuments().size());
+        }
+
+        SearchResponse<BeneficiaryDocument> indexed = esClient.search(s -> s
+                .index(beneficiaryIndex)
+                .size(MAX_ORPHAN_SCAN)
+                .source(src -> src.filter(f -> f.includes("benRegId")))
+                .query(q -> q.range(r -> r.field("benRegId").gte(JsonData.of(from)).lt(JsonData.of(to)))),
+                BeneficiaryDocument.class);
+        for (Hit<BeneficiaryDocument> hit : indexed.hits().hits()) {
+            Long benRegId = hit.source() != null ? hit.source().getBenRegId() : null;
+            if (benRegId == null || !dbIds.contains(benRegId)) {
+                if (benRegId != null) {
+                    touched.add(benRegId);
+                }
+                br.operations(op -> op.delete(d -> d.index(beneficiaryIndex).id(hit.id())));
+                operations++;
+            }
+        }
+
+        if (operations == 0) {
+            return new long[] { 0, unmapped };
+        }
+
+        // wait for the refresh so that searches after the invalidation see the repair
+        BulkResponse result = esClient.bulk(br.refresh(Refresh.WaitFor).build());
+        searchResultCache.invalidate(touched);
+        long failed = 0;
+        if (result.errors()) {
+            for (BulkResponseItem item : result.items()) {
+                // deleting an already-missing document is not a failure
+                if (item.error() != null && item.status() != 404) {
+                    logger.error("ES reconcile error for doc {}: {}", item.id(), item.error().reason());
+                    failed++;
+                }
+            }
+        }
+        return new long[] { operations - failed, failed + unmapped };
+    }
+
+    private String describe(long[] digest) {
+        return digest == null ? "none" : "count=" + digest[0] + ", idSum=" + digest[1] + ", modSum=" + digest[2];
+    }
+
+    private long toLong(Object value) {
+        if (value == null) {
+            return 0L;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return Long.parseLong(value.toString());
+    }
+}
@@ -23,20 +23,28 @@
 package com.iemr.common.identity.service.elasticsearch;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
 import co.elastic.clients.elasticsearch._types.query_dsl.FunctionBoostMode;
 import co.elastic.clients.elasticsearch._types.query_dsl.FunctionScore;
 import co.elastic.clients.elasticsearch._types.query_dsl.FunctionScoreMode;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
 
 import com.iemr.common.identity.dto.BeneficiariesESDTO;
+import com.iemr.common.identity.dto.IdentitySearchDTO;
 import com.iemr.common.identity.repo.BenDetailRepo;
 import com.iemr.common.identity.repo.V_BenAdvanceSearchRepo;
+import com.iemr.common.identity.service.MasterDataCacheService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -46,6 +54,8 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import co.elastic.clients.elasticsearch._types.SortOrder;
@@ -56,6 +66,39 @@ public class ElasticsearchService {
 
     private static final Logger logger = LoggerFactory.getLogger(ElasticsearchService.class);
 
+    // same cap the DB advance search applies per page
+    private static final int ADVANCE_SEARCH_MAX_RESULTS = 500;
+
+    private static final List<String> SEARCH_SOURCE_FIELDS = List.of(
+            "benRegId", "beneficiaryID", "firstName", "middleName", "lastName",
+            "genderID", "genderName", "dOB", "phoneNum",
+            "stateID", "stateName", "districtID", "blockID", "villageID", "healthID",
+            "abhaID",
+            "abhaCreatedDate",
+            "familyID",
+            "fatherName", "spouseName", "maritalStatusID", "maritalStatusName", "age", "createdBy", "createdDate",
+            "lastModDate", "benAccountID", "districtName", "blockName",
+            "villageName", "pinCode", "servicePointID", "servicePointName",
+            "parkingPlaceID", "permStateID", "permStateName", "permDistrictID",
+            "permDistrictName", "permBlockID", "permBlockName", "permVillageID",
+            "permVillageName");
+
+    private static final Pattern PHONE_PATTERN = Pattern.compile("(?:\\+?91|0)?([6-9]\\d{9})");
+    private static final Pattern ABHA_NUMBER_PATTERN = Pattern.compile("(\\d{2})-?(\\d{4})-?(\\d{4})-?(\\d{4})");
+    private static final Pattern ABHA_ADDRESS_PATTERN = Pattern.compile("[\\w.]+@\\w+");
+
+    // query kinds recorded in search cursors
+    private static final String CURSOR_IDENTIFIER = "I";
+    private static final String CURSOR_SCORED = "S";
+    private static final String CURSOR_ADVANCED = "A";
+
+    /**
+     * Shape of a universal search input, deciding which query answers it
+     */
+    enum QueryType {
+        PHONE, ABHA_NUMBER, ABHA_ADDRESS, NUMERIC_ID, FREE_TEXT
+    }
+
     @Autowired
     private ElasticsearchClient esClient;
 
@@ -68,24 +111,89 @@ public class ElasticsearchService {
     @Autowired
     private V_BenAdvanceSearchRepo v_BenAdvanceSearchRepo;
 
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private MasterDataCacheService masterData;
+
     @Value("${elasticsearch.index.beneficiary}")
     private String beneficiaryIndex;
 
     @Value("${elasticsearch.enabled}")
     private boolean esEnabled;
 
+    @Value("${elasticsearch.search.default.size:100}")
+    private int defaultPageSize;
+
+    @Value("${elasticsearch.search.max.size:500}")
+    private int maxPageSize;
+
     /**
      * Universal search with score-based filtering and location ranking
      * Only returns records that actually match the query (not all 10000)
      */
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> universalSearch(String query, Integer userId) {
+        return universalSearch(query, userId, null, null, false).getResults();
+    }
+
+    /**
+     * Paged universal search.
+     *
+     * @param pageSize     hits per page, defaults to elasticsearch.search.default.size
+     *                     and is capped at elasticsearch.search.max.size
+     * @param cursor       continuation token of the previous page, null for the first
+     * @param includeTotal whether to count all matching hits
+     */
+    @Transactional(readOnly = true)
+    public SearchPage universalSearch(String query, Integer userId, Integer pageSize, String cursor,
+            boolean includeTotal) {
+        SearchPage.Cursor after = SearchPage.decodeCursor(cursor);
+        if (after != null && !CURSOR_IDENTIFIER.equals(after.getMode()) && !CURSOR_SCORED.equals(after.getMode())) {
+            throw new IllegalArgumentException("Invalid search cursor");
+        }
+        int size = pageSize(pageSize);
+        final Map<String, Integer> userLocation = (userId != null) ? getUserLocation(userId) : null;
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("query", query);
+        params.put("size", size);
+        params.put("cursor", cursor);
+        params.put("total", includeTotal);
+        String cacheKey = SearchResultCache.key("universal", params, userLocation);
+        SearchPage cached = searchResultCache.get(cacheKey);
+        if (cached != null) {
+            logger.debug("Universal search served from cache for query: '{}'", query);
+            return cached;
+        }
+
+        SearchPage page = searchUniversal(query, userLocation, size, after, includeTotal);
+        searchResultCache.put(cacheKey, page);
+        return page;
+    }
+
+    private SearchPage searchUniversal(String query, Map<String, Integer> userLocation, int size,
+            SearchPage.Cursor after, boolean includeTotal) {
         try {
-            final Map<String, Integer> userLocation = (userId != null) ? getUserLocation(userId) : null;
+            // exact identifiers are answered by term lookups, the scored query
+            // below still runs when they match nothing (partial numbers etc.)
+            QueryType queryType = classify(query);
+            if (after != null && CURSOR_IDENTIFIER.equals(after.getMode())) {
+                return searchByIdentifier(queryType, query.trim(), size, after.getSearchAfter(), includeTotal);
+            }
+            if (after == null && queryType != QueryType.FREE_TEXT) {
+                SearchPage exact = searchByIdentifier(queryType, query.trim(), size, null, includeTotal);
+                if (!exact.getResults().isEmpty()) {
+                    return exact;
+                }
+            }
+            List<FieldValue> searchAfter = after != null ? after.getSearchAfter() : null;
 
             boolean isNumeric = query.matches("\\d+");
             double minScore = isNumeric ? 1.0 : 1.5;
 
-            SearchResponse<BeneficiariesESDTO> response = esClient.search(s -> s
+            SearchResponse<BeneficiariesESDTO> response = esClient.search(s -> page(s, size, searchAfter, includeTotal)
                     .index(beneficiaryIndex)
                     .preference("_local")
 
@@ -308,24 +416,9 @@ public class ElasticsearchService {
                                     .maxBoost(5.0)))
                     .minScore(minScore)
 
-                    .size(100) // Reduced from 500
-
-                    .sort(so -> so.score(sc -> sc.order(SortOrder.Desc)))
-
                     .source(src -> src
                             .filter(f -> f
-                                    .includes("benRegId", "beneficiaryID", "firstName", "middleName", "lastName",
-                                            "genderID", "genderName", "dOB", "phoneNum",
-                                            "stateID", "stateName", "districtID", "blockID", "villageID", "healthID",
-                                            "abhaID",
-                                            "abhaCreatedDate",
-                                            "familyID",
-                                            "fatherName", "spouseName","maritalStatusID", "maritalStatusName", "age", "createdBy", "createdDate",
-                                            "lastModDate", "benAccountID", "districtName", "blockName",
-                                            "villageName", "pinCode", "servicePointID", "servicePointName",
-                                            "parkingPlaceID", "permStateID", "permStateName", "permDistrictID",
-                                            "permDistrictName", "permBlockID", "permBlockName", "permVillageID",
-                                            "permVillageName")))
+                                    .includes(SEARCH_SOURCE_FIELDS)))
 
                     , BeneficiariesESDTO.class);
 
@@ -344,30 +437,155 @@ public class ElasticsearchService {
             }
 
             if (response.hits().hits().isEmpty()) {
+                if (after != null) {
+                    return SearchPage.of(null);
+                }
                 logger.info("No results in ES, using database fallback");
-                return searchInDatabaseDirectly(query);
+                return SearchPage.of(searchInDatabaseDirectly(query));
             }
 
-            List<Map<String, Object>> results = response.hits().hits().stream()
-                    .map(hit -> {
-                        Map<String, Object> result = mapESResultToExpectedFormat(hit.source());
-                        if (result != null) {
-                            result.put("_score", hit.score());
-                        }
-                        return result;
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-
-            logger.info("Returning {} results", results.size());
-            return results;
+            SearchPage result = toPage(response, CURSOR_SCORED, size, includeTotal);
+            logger.info("Returning {} results", result.getResults().size());
+            return result;
 
         } catch (Exception e) {
             logger.error("ES search failed: {}", e.getMessage());
-            return searchInDatabaseDirectly(query);
+            // the database fallback is not paged, so it only answers a first page
+            return after != null ? SearchPage.of(null) : SearchPage.of(searchInDatabaseDirectly(query));
         }
     }
 
+    /**
+     * Common paging for beneficiary searches: score then BenRegID, so that
+     * search_after has a unique sort key to resume from
+     */
+    private SearchRequest.Builder page(SearchRequest.Builder s, int size, List<FieldValue> searchAfter,
+            boolean includeTotal) {
+        s.size(size)
+                .sort(so -> so.score(sc -> sc.order(SortOrder.Desc)))
+                .sort(so -> so.field(f -> f.field("benRegId").order(SortOrder.Asc)))
+                .trackTotalHits(t -> t.enabled(includeTotal));
+        if (searchAfter != null) {
+            s.searchAfter(searchAfter);
+        }
+        return s;
+    }
+
+    private SearchPage toPage(SearchResponse<BeneficiariesESDTO> response, String mode, int size,
+            boolean includeTotal) {
+        List<Hit<BeneficiariesESDTO>> hits = response.hits().hits();
+        List<Map<String, Object>> results = hits.stream()
+                .map(hit -> {
+                    Map<String, Object> result = mapESResultToExpectedFormat(hit.source());
+                    if (result != null) {
+                        result.put("_score", hit.score());
+                    }
+                    return result;
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        String nextCursor = hits.size() == size ? SearchPage.encodeCursor(mode, hits.get(hits.size() - 1).sort())
+                : null;
+        Long total = includeTotal && response.hits().total() != null ? response.hits().total().value() : null;
+        return new SearchPage(results, nextCursor, total);
+    }
+
+    private int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(requested, maxPageSize);
+    }
+
+    /**
+     * Classify a universal search input. Separators are ignored for numbers, so
+     * "+91 98765-43210" is a phone and "91-1234-5678-9012" an ABHA number.
+     */
+    static QueryType classify(String query) {
+        if (query == null || query.isBlank()) {
+            return QueryType.FREE_TEXT;
+        }
+        String trimmed = query.trim();
+        if (ABHA_ADDRESS_PATTERN.matcher(trimmed).matches()) {
+            return QueryType.ABHA_ADDRESS;
+        }
+        if (ABHA_NUMBER_PATTERN.matcher(trimmed).matches()) {
+            return QueryType.ABHA_NUMBER;
+        }
+        String compact = trimmed.replaceAll("[\\s-]", "");
+        if (PHONE_PATTERN.matcher(compact).matches()) {
+            return QueryType.PHONE;
+        }
+        if (compact.matches("\\d+")) {
+            return QueryType.NUMERIC_ID;
+        }
+        return QueryType.FREE_TEXT;
+    }
+
+    /**
+     * Term-only lookup for an input classified as an identifier. No scoring
+     * functions, fuzziness or wildcards are involved.
+     */
+    private SearchPage searchByIdentifier(QueryType queryType, String query, int size, List<FieldValue> searchAfter,
+            boolean includeTotal) throws Exception {
+        Query identifierQuery;
+        switch (queryType) {
+            case PHONE: {
+                Matcher m = PHONE_PATTERN.matcher(query.replaceAll("[\\s-]", ""));
+                m.matches();
+                String phone = m.group(1);
+                List<FieldValue> variants = List.of(FieldValue.of(phone), FieldValue.of("0" + phone),
+                        FieldValue.of("91" + phone), FieldValue.of("+91" + phone));
+                identifierQuery = Query.of(q -> q.terms(t -> t.field("phoneNum").terms(tv -> tv.value(variants))));
+                break;
+            }
+            case ABHA_NUMBER: {
+                Matcher m = ABHA_NUMBER_PATTERN.matcher(query);
+                m.matches();
+                String hyphenated = m.group(1) + "-" + m.group(2) + "-" + m.group(3) + "-" + m.group(4);
+                String plain = m.group(1) + m.group(2) + m.group(3) + m.group(4);
+                List<FieldValue> variants = List.of(FieldValue.of(hyphenated), FieldValue.of(plain));
+                identifierQuery = Query.of(q -> q.terms(t -> t.field("abhaID").terms(tv -> tv.value(variants))));
+                break;
+            }
+            case ABHA_ADDRESS: {
+                identifierQuery = Query.of(q -> q.term(t -> t.field("healthID").value(query).caseInsensitive(true)));
+                break;
+            }
+            case NUMERIC_ID: {
+                String digits = query.replaceAll("[\\s-]", "");
+                identifierQuery = Query.of(q -> q.bool(b -> {
+                    b.should(s1 -> s1.term(t -> t.field("beneficiaryID").value(digits)));
+                    b.should(s2 -> s2.term(t -> t.field("benId").value(digits)));
+                    b.should(s3 -> s3.term(t -> t.field("aadharNo").value(digits)));
+                    if (digits.length() <= 18) {
+                        long numericValue = Long.parseLong(digits);
+                        b.should(s4 -> s4.term(t -> t.field("benRegId").value(numericValue)));
+                    }
+                    b.minimumShouldMatch("1");
+                    return b;
+                }));
+                break;
+            }
+            default:
+                return SearchPage.of(null);
+        }
+
+        SearchResponse<BeneficiariesESDTO> response = esClient.search(s -> page(s, size, searchAfter, includeTotal)
+                .index(beneficiaryIndex)
+                .preference("_local")
+                .requestCache(true)
+                .query(q -> q.constantScore(cs -> cs.filter(identifierQuery)))
+                .source(src -> src.filter(f -> f.includes(SEARCH_SOURCE_FIELDS))),
+                BeneficiariesESDTO.class);
+
+        logger.info("ES {} lookup returned {} hits in {}ms", queryType, response.hits().hits().size(),
+                response.took());
+
+        return toPage(response, CURSOR_IDENTIFIER, size, includeTotal);
+    }
+
     /**
      * Generate function scores for location-based ranking
      */
@@ -401,6 +619,7 @@ public class ElasticsearchService {
     /**
      * Advanced search with filter context
      */
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> advancedSearch(
             String firstName,
             String middleName,
@@ -419,11 +638,74 @@ public class ElasticsearchService {
             String healthId,
             String aadharNo,
             Integer userId) {
+        return advancedSearch(firstName, middleName, lastName, genderId, dob, stateId, districtId, blockId,
+                villageId, fatherName, spouseName, maritalStatus, phoneNumber, beneficiaryId, healthId, aadharNo,
+                userId, null, null, false).getResults();
+    }
 
-        try {
-            final Map<String, Integer> userLocation = (userId != null) ? getUserLocation(userId) : null;
+    /**
+     * Paged advanced search, see {@link #universalSearch(String, Integer, Integer, String, boolean)}
+     * for the paging parameters
+     */
+    @Transactional(readOnly = true)
+    public SearchPage advancedSearch(
+            String firstName, String middleName, String lastName, Integer genderId, Date dob,
+            Integer stateId, Integer districtId, Integer blockId, Integer villageId,
+            String fatherName, String spouseName, String maritalStatus, String phoneNumber,
+            String beneficiaryId, String healthId, String aadharNo, Integer userId,
+            Integer pageSize, String cursor, boolean includeTotal) {
 
-            SearchResponse<BeneficiariesESDTO> response = esClient.search(s -> s
+        SearchPage.Cursor after = SearchPage.decodeCursor(cursor);
+        if (after != null && !CURSOR_ADVANCED.equals(after.getMode())) {
+            throw new IllegalArgumentException("Invalid search cursor");
+        }
+        int size = pageSize(pageSize);
+        final Map<String, Integer> userLocation = (userId != null) ? getUserLocation(userId) : null;
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("firstName", firstName);
+        params.put("middleName", middleName);
+        params.put("lastName", lastName);
+        params.put("genderId", genderId);
+        params.put("dob", dob);
+        params.put("stateId", stateId);
+        params.put("districtId", districtId);
+        params.put("blockId", blockId);
+        params.put("villageId", villageId);
+        params.put("fatherName", fatherName);
+        params.put("spouseName", spouseName);
+        params.put("maritalStatus", maritalStatus);
+        params.put("phoneNumber", phoneNumber);
+        params.put("beneficiaryId", beneficiaryId);
+        params.put("healthId", healthId);
+        params.put("aadharNo", aadharNo);
+        params.put("size", size);
+        params.put("cursor", cursor);
+        params.put("total", includeTotal);
+        String cacheKey = SearchResultCache.key("advanced", params, userLocation);
+        SearchPage cached = searchResultCache.get(cacheKey);
+        if (cached != null) {
+            logger.debug("Advanced search served from cache");
+            return cached;
+        }
+
+        SearchPage page = searchAdvanced(firstName, middleName, lastName, genderId, dob,
+                stateId, districtId, blockId, villageId, fatherName, spouseName, maritalStatus,
+                phoneNumber, beneficiaryId, healthId, aadharNo, size, after, includeTotal);
+        searchResultCache.put(cacheKey, page);
+        return page;
+    }
+
+    private SearchPage searchAdvanced(
+            String firstName, String middleName, String lastName, Integer genderId, Date dob,
+            Integer stateId, Integer districtId, Integer blockId, Integer villageId,
+            String fatherName, String spouseName, String maritalStatus, String phoneNumber,
+            String beneficiaryId, String healthId, String aadharNo,
+            int size, SearchPage.Cursor after, boolean includeTotal) {
+
+        List<FieldValue> searchAfter = after != null ? after.getSearchAfter() : null;
+        try {
+            SearchResponse<BeneficiariesESDTO> response = esClient.search(s -> page(s, size, searchAfter, includeTotal)
                     .index(beneficiaryIndex)
                     .preference("_local")
                     .requestCache(true)
@@ -498,27 +780,117 @@ public class ElasticsearchService {
 
                                 return b;
                             }))
-                    .size(100)
-                    .sort(so -> so.score(sc -> sc.order(SortOrder.Desc)))
 
                     , BeneficiariesESDTO.class);
 
             if (response.hits().hits().isEmpty()) {
-                return searchInDatabaseForAdvanced(firstName, middleName, lastName, genderId, dob,
+                if (after != null) {
+                    return SearchPage.of(null);
+                }
+                return SearchPage.of(searchInDatabaseForAdvanced(firstName, middleName, lastName, genderId, dob,
                         stateId, districtId, blockId, villageId, fatherName, spouseName, maritalStatus,
-                        phoneNumber, beneficiaryId, healthId, aadharNo);
+                        phoneNumber, beneficiaryId, healthId, aadharNo));
             }
 
-            return response.hits().hits().stream()
-                    .map(hit -> mapESResultToExpectedFormat(hit.source()))
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+            return toPage(response, CURSOR_ADVANCED, size, includeTotal);
 
         } catch (Exception e) {
             logger.error("ES advanced search failed: {}", e.getMessage());
-            return searchInDatabaseForAdvanced(firstName, middleName, lastName, genderId, dob,
+            if (after != null) {
+                return SearchPage.of(null);
+            }
+            return SearchPage.of(searchInDatabaseForAdvanced(firstName, middleName, lastName, genderId, dob,
                     stateId, districtId, blockId, villageId, fatherName, spouseName, maritalStatus,
-                    phoneNumber, beneficiaryId, healthId, aadharNo);
+                    phoneNumber, beneficiaryId, healthId, aadharNo));
+        }
+    }
+
+    /**
+     * Filter-only translation of the legacy /id/advanceSearch criteria. Returns
+     * the BenRegIDs of the requested page ordered by BenRegID, with the exact
+     * total when includeTotal is set, or null when the search uses a criterion
+     * the index does not carry (household, sub district) so that the caller
+     * falls back to the database search
+     */
+    public AdvanceSearchHits searchBenRegIdsForAdvanceSearch(IdentitySearchDTO searchDTO, boolean includeTotal)
+            throws Exception {
+        if (!esEnabled) {
+            return null;
+        }
+        if (searchDTO.getHouseHoldID() != null
+                || (searchDTO.getCurrentAddress() != null && searchDTO.getCurrentAddress().getSubDistrictId() != null)) {
+            return null;
+        }
+
+        List<Query> filters = new ArrayList<>();
+        boolean containsMatch = Boolean.TRUE.equals(searchDTO.getContainsMatch());
+        addNameFilter(filters, "firstName", searchDTO.getFirstName(), containsMatch);
+        addNameFilter(filters, "middleName", searchDTO.getMiddleName(), containsMatch);
+        addNameFilter(filters, "lastName", searchDTO.getLastName(), containsMatch);
+        addNameFilter(filters, "fatherName", searchDTO.getFatherName(), containsMatch);
+
+        if (searchDTO.getGenderId() != null) {
+            filters.add(Query.of(q -> q.term(t -> t.field("genderID").value(searchDTO.getGenderId()))));
+        }
+        if (searchDTO.getCurrentAddress() != null) {
+            Integer stateId = searchDTO.getCurrentAddress().getStateId();
+            Integer districtId = searchDTO.getCurrentAddress().getDistrictId();
+            Integer villageId = searchDTO.getCurrentAddress().getVillageId();
+            if (stateId != null) {
+                filters.add(Query.of(q -> q.term(t -> t.field("stateID").value(stateId))));
+            }
+            if (districtId != null) {
+                filters.add(Query.of(q -> q.term(t -> t.field("districtID").value(districtId))));
+            }
+            if (villageId != null) {
+                filters.add(Query.of(q -> q.term(t -> t.field("villageID").value(villageId))));
+            }
+        }
+        if (searchDTO.getDob() != null) {
+            // whole day starting at the given timestamp, as in the DB search
+            long dayStart = searchDTO.getDob().getTime();
+            long dayEnd = dayStart + 24L * 60 * 60 * 1000;
+            filters.add(Query.of(q -> q.range(r -> r.field("dOB")
+                    .gte(JsonData.of(dayStart))
+                    .lt(JsonData.of(dayEnd)))));
+        }
+
+        int size = (searchDTO.getPageSize() == null || searchDTO.getPageSize() <= 0) ? ADVANCE_SEARCH_MAX_RESULTS
+                : Math.min(searchDTO.getPageSize(), ADVANCE_SEARCH_MAX_RESULTS);
+        int page = (searchDTO.getPageNo() == null || searchDTO.getPageNo() < 0) ? 0 : searchDTO.getPageNo();
+
+        SearchResponse<BeneficiariesESDTO> response = esClient.search(s -> s
+                .index(beneficiaryIndex)
+                .query(q -> q.bool(b -> b.filter(filters)))
+                .source(src -> src.filter(f -> f.includes("benRegId")))
+                .sort(so -> so.field(f -> f.field("benRegId").order(SortOrder.Asc)))
+                .from(page * size)
+                .size(size)
+                .trackTotalHits(t -> t.enabled(includeTotal)),
+                BeneficiariesESDTO.class);
+
+        List<Long> benRegIds = response.hits().hits().stream()
+                .map(hit -> hit.source() != null ? hit.source().getBenRegId() : null)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        Long total = includeTotal && response.hits().total() != null ? response.hits().total().value() : null;
+        return new AdvanceSearchHits(benRegIds, total);
+    }
+
+    /**
+     * Case-insensitive prefix match on the keyword sub-field, mirroring the
+     * LIKE 'term%' (or '%term%' for containsMatch) of the DB search
+     */
+    private static void addNameFilter(List<Query> filters, String field, String term, boolean containsMatch) {
+        if (term == null) {
+            return;
+        }
+        String keywordField = field + ".keyword";
+        if (containsMatch) {
+            String pattern = "*" + term.replace("\\", "\\\\").replace("*", "\\*").replace("?", "\\?") + "*";
+            filters.add(Query.of(q -> q.wildcard(w -> w.field(keywordField).value(pattern).caseInsensitive(true))));
+        } else {
+            filters.add(Query.of(q -> q.prefix(p -> p.field(keywordField).value(term).caseInsensitive(true))));
         }
     }
 
@@ -550,6 +922,7 @@ public class ElasticsearchService {
     /**
      * Overloaded method without userId (backward compatibility)
      */
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> universalSearch(String query) {
         return universalSearch(query, null);
     }
@@ -636,6 +1009,25 @@ public class ElasticsearchService {
         return value instanceof Integer ? (Integer) value : null;
     }
 
+    /**
+     * Names missing from older index documents are taken from the master data
+     * cache instead of being joined per request
+     */
+    private void fillMasterNames(BeneficiariesESDTO esData) {
+        esData.setGenderName(orMaster(esData.getGenderName(), masterData.getGenderName(esData.getGenderID())));
+        esData.setMaritalStatusName(orMaster(esData.getMaritalStatusName(),
+                masterData.getMaritalStatusName(esData.getMaritalStatusID())));
+        esData.setStateName(orMaster(esData.getStateName(), masterData.getStateName(esData.getStateID())));
+        esData.setDistrictName(orMaster(esData.getDistrictName(),
+                masterData.getDistrictName(esData.getDistrictID())));
+        esData.setBlockName(orMaster(esData.getBlockName(), masterData.getBlockName(esData.getBlockID())));
+        esData.setVillageName(orMaster(esData.getVillageName(), masterData.getVillageName(esData.getVillageID())));
+    }
+
+    private static String orMaster(String value, String masterName) {
+        return value != null && !value.isEmpty() ? value : masterName;
+    }
+
     /**
      * Map ES DTO directly to expected API format with COMPLETE data
      */
@@ -647,6 +1039,8 @@ public class ElasticsearchService {
         Map<String, Object> result = new HashMap<>();
 
         try {
+            fillMasterNames(esData);
+
             // Basic fields from ES
             result.put("beneficiaryRegID", esData.getBenRegId());
             result.put("beneficiaryID", esData.getBeneficiaryID());
@@ -869,13 +1263,14 @@ public class ElasticsearchService {
             String middleName = getString(row[3]);
             String lastName = getString(row[4]);
             Integer genderID = getInteger(row[5]);
-            String genderName = getString(row[6]);
+            String genderName = orMaster(getString(row[6]), masterData.getGenderName(genderID));
             Date dob = getDate(row[7]);
             Integer age = getInteger(row[8]);
             String fatherName = getString(row[9]);
             String spouseName = getString(row[10]);
             String maritalStatusID = getString(row[11]);
-            String maritalStatusName = getString(row[12]);
+            String maritalStatusName = orMaster(getString(row[12]),
+                    masterData.getMaritalStatusName(getInteger(row[11])));
             String isHIVPos = getString(row[13]);
             String createdBy = getString(row[14]);
             Date createdDate = getDate(row[15]);
@@ -62,6 +62,9 @@ public class ElasticsearchSyncService {
     @Autowired
     private BeneficiaryDocumentDataService documentDataService; // KEY: Batch service with ABHA
 
+    @Autowired
+    private SyncRateController rateController;
+
     @Value("${elasticsearch.index.beneficiary}")
     private String beneficiaryIndex;
 
@@ -93,9 +96,10 @@ public class ElasticsearchSyncService {
             // Process in large chunks for maximum speed
             while (offset < totalCount) {
                 long chunkStart = System.currentTimeMillis();
+                int fetchSize = rateController.scaled(DB_FETCH_SIZE);
 
                 // STEP 1: Fetch IDs in batch
-                List<Object[]> batchIds = fetchBatchWithRetry(offset, DB_FETCH_SIZE);
+                List<Object[]> batchIds = fetchBatchWithRetry(offset, fetchSize);
 
                 if (batchIds == null || batchIds.isEmpty()) {
                     logger.info("No more records to process.");
@@ -113,50 +117,53 @@ public class ElasticsearchSyncService {
                     }
                 }
 
-                // STEP 3: BATCH FETCH complete data WITH ABHA (CRITICAL OPTIMIZATION)
-                // This single call replaces thousands of individual database queries
-                logger.info("Batch fetching complete data with ABHA for {} beneficiaries...", benRegIds.size());
-                List<BeneficiaryDocument> documents = documentDataService.getBeneficiariesBatch(benRegIds);
-                logger.info("Retrieved {} complete documents", documents.size());
-
-                // STEP 4: Count ABHA enriched documents and add to ES batch
-                for (BeneficiaryDocument doc : documents) {
-                    if (doc != null && doc.getBenId() != null) {
-
-                        // Track ABHA enrichment
-                        if (doc.getHealthID() != null || doc.getAbhaID() != null) {
-                            abhaEnrichedCount.incrementAndGet();
-                            logger.debug("Document {} has ABHA: healthID={}, abhaID={}",
-                                    doc.getBenId(), doc.getHealthID(), doc.getAbhaID());
-                        }
+                // STEP 3: STREAM complete data WITH ABHA straight into the ES batch
+                // Rows are mapped one at a time, so a chunk is never held as rows and documents at once
+                logger.info("Streaming complete data with ABHA for {} beneficiaries...", benRegIds.size());
+                long[] bulkMillis = new long[1];
+                int[] streamed = new int[1];
+                int skipped = documentDataService.streamBeneficiariesBatch(benRegIds, doc -> {
+                    streamed[0]++;
+                    // Track ABHA enrichment
+                    if (doc.getHealthID() != null || doc.getAbhaID() != null) {
+                        abhaEnrichedCount.incrementAndGet();
+                        logger.debug("Document {} has ABHA: healthID={}, abhaID={}",
+                                doc.getBenId(), doc.getHealthID(), doc.getAbhaID());
+                    }
 
-                        esBatch.add(doc);
+                    esBatch.add(doc);
 
-                        // Bulk index when batch is full
-                        if (esBatch.size() >= ES_BULK_SIZE) {
-                            int indexed = bulkIndexDocuments(esBatch);
-                            result.addSuccess(indexed);
-                            result.addFailure(esBatch.size() - indexed);
+                    // Bulk index when batch is full
+                    if (esBatch.size() >= rateController.scaled(ES_BULK_SIZE)) {
+                        long bulkStart = System.currentTimeMillis();
+                        int indexed = bulkIndexDocuments(esBatch);
+                        bulkMillis[0] += System.currentTimeMillis() - bulkStart;
+                        result.addSuccess(indexed);
+                        result.addFailure(esBatch.size() - indexed);
 
-                            int current = processedCount.addAndGet(esBatch.size());
-                            logProgress(current, totalCount, abhaEnrichedCount.get(), startTime);
+                        int current = processedCount.addAndGet(esBatch.size());
+                        logProgress(current, totalCount, abhaEnrichedCount.get(), startTime);
 
-                            esBatch.clear();
-                        }
-                    } else {
-                        result.addFailure();
+                        esBatch.clear();
                     }
+                });
+                // bulk time spent inside the stream is not database time
+                rateController.recordDbFetch(System.currentTimeMillis() - chunkStart - bulkMillis[0], benRegIds.size());
+                // rows without a BeneficiaryId, or that could not be mapped, are not indexed
+                if (skipped > 0) {
+                    result.addFailure(skipped);
                 }
+                logger.info("Streamed {} complete documents, skipped {}", streamed[0], skipped);
 
                 long chunkTime = System.currentTimeMillis() - chunkStart;
                 logger.info("Chunk processed in {}ms ({} docs/sec)",
                         chunkTime,
                         (batchIds.size() * 1000) / Math.max(chunkTime, 1));
 
-                offset += DB_FETCH_SIZE;
+                offset += fetchSize;
 
-                // Brief pause to prevent overwhelming the system
-                Thread.sleep(50);
+                // Adaptive pause and batch sizing from DB / ES pressure
+                rateController.pace();
             }
 
             // Index remaining documents
@@ -270,14 +277,19 @@ public class ElasticsearchSyncService {
 //         br.refresh(Refresh.WaitFor).build()
 // );
 
- BulkResponse result = esClient.bulk(br.build());
+            long bulkStart = System.currentTimeMillis();
+            BulkResponse result = esClient.bulk(br.build());
 
 
             int successCount = 0;
+            int rejected = 0;
 
             if (result.errors()) {
                 for (BulkResponseItem item : result.items()) {
                     if (item.error() != null) {
+                        if (item.status() == 429) {
+                            rejected++;
+                        }
                         logger.error("Error indexing document {}: {}", item.id(), item.error().reason());
                     } else {
                         successCount++;
@@ -287,10 +299,12 @@ public class ElasticsearchSyncService {
                 successCount = documents.size();
             }
 
+            rateController.recordBulk(System.currentTimeMillis() - bulkStart, documents.size(), rejected);
             return successCount;
 
         } catch (Exception e) {
             logger.error("Critical error in bulk indexing: {}", e.getMessage(), e);
+            rateController.recordBulk(0, 0, documents.size());
             return 0;
         }
     }
@@ -0,0 +1,74 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+
+package com.iemr.common.identity.service.elasticsearch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.iemr.common.identity.utils.WorkloadContext;
+import com.iemr.common.identity.utils.WorkloadContext.Workload;
+
+/**
+ * Scheduled drain of the Elasticsearch outbox. Each batch runs in its own
+ * transaction through {@link EsOutboxService}, so locks are released between
+ * batches; fully published batches are drained back to back, and a batch
+ * that fails ends the drain until the next poll.
+ */
+@Component
+public class EsOutboxPoller {
+
+    private static final Logger logger = LoggerFactory.getLogger(EsOutboxPoller.class);
+
+    @Autowired
+    private EsOutboxService outboxService;
+
+    @Value("${elasticsearch.enabled}")
+    private boolean esEnabled;
+
+    @Value("${elasticsearch.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${elasticsearch.outbox.poll-interval-ms:2000}",
+            initialDelayString = "${elasticsearch.outbox.poll-interval-ms:2000}")
+    public void poll() {
+        if (!esEnabled) {
+            return;
+        }
+        WorkloadContext.run(Workload.ES_SYNC, this::drain);
+    }
+
+    private void drain() {
+        try {
+            int drained;
+            do {
+                drained = outboxService.drainBatch(batchSize);
+            } while (drained >= batchSize);
+        } catch (Exception e) {
+            logger.error("Error draining Elasticsearch outbox: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+
+package com.iemr.common.identity.service.elasticsearch;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+
+import com.iemr.common.identity.data.elasticsearch.BeneficiaryDocument;
+import com.iemr.common.identity.data.elasticsearch.EsOutboxEvent;
+import com.iemr.common.identity.repo.elasticsearch.EsOutboxRepo;
+import com.iemr.common.identity.service.elasticsearch.BeneficiaryDocumentDataService.IndexBatch;
+
+/**
+ * Transactional outbox for Elasticsearch index updates.
+ *
+ * Write paths record the benRegIds they touched in t_es_outbox inside their own
+ * transaction, so an index event exists if and only if the change committed.
+ * {@link EsOutboxPoller} drains the table in batches: events are de-duplicated by benRegId,
+ * re-read from the database, bulk indexed, and deleted once Elasticsearch has
+ * acknowledged them. Delivery is at-least-once; re-indexing a beneficiary is
+ * idempotent.
+ *
+ * Events of beneficiaries that are deleted or no longer indexable are dropped.
+ * Documents Elasticsearch rejects, and rows that cannot be mapped to a document,
+ * count an attempt and are retried with exponential backoff until max-attempts. When the whole batch fails because
+ * the database or cluster is unavailable the events are only deferred, so an
+ * outage does not use up their attempts.
+ */
+@Service
+public class EsOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EsOutboxService.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private EsOutboxRepo outboxRepo;
+
+    @Autowired
+    private ElasticsearchClient esClient;
+
+    @Autowired
+    private BeneficiaryDocumentDataService dataService;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Value("${elasticsearch.index.beneficiary}")
+    private String beneficiaryIndex;
+
+    @Value("${elasticsearch.enabled}")
+    private boolean esEnabled;
+
+    @Value("${elasticsearch.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${elasticsearch.outbox.retry-base-delay-seconds:30}")
+    private int retryBaseDelaySeconds;
+
+    @Value("${elasticsearch.outbox.retry-max-delay-seconds:3600}")
+    private int retryMaxDelaySeconds;
+
+    /**
+     * Record that a beneficiary needs re-indexing. Joins the caller's
+     * transaction, so the event is discarded if the caller rolls back.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
+    public void enqueue(BigInteger benRegId, String source) {
+        if (!esEnabled || benRegId == null) {
+            return;
+        }
+        outboxRepo.save(newEvent(benRegId, source));
+    }
+
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
+    public void enqueueAll(Collection<BigInteger> benRegIds, String source) {
+        if (!esEnabled || benRegIds == null || benRegIds.isEmpty()) {
+            return;
+        }
+        List<EsOutboxEvent> events = new ArrayList<>();
+        for (BigInteger benRegId : new LinkedHashSet<>(benRegIds)) {
+            if (benRegId != null) {
+                events.add(newEvent(benRegId, source));
+            }
+        }
+        outboxRepo.saveAll(events);
+    }
+
+    private EsOutboxEvent newEvent(BigInteger benRegId, String source) {
+        EsOutboxEvent event = new EsOutboxEvent();
+        event.setBenRegId(benRegId);
+        event.setSource(source);
+        event.setAttempts(0);
+        return event;
+    }
+
+    /**
+     * Lock and publish one batch of outbox events.
+     *
+     * @return number of events published; less than the batch size when the
+     *         outbox is drained or part of the batch failed
+     */
+    @Transactional(rollbackFor = Exception.class, timeout = 120)
+    public int drainBatch(int limit) {
+        List<EsOutboxEvent> events = outboxRepo.lockPendingBatch(maxAttempts, limit);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        Map<BigInteger, List<Long>> eventIdsByBen = new HashMap<>();
+        for (EsOutboxEvent event : events) {
+            eventIdsByBen.computeIfAbsent(event.getBenRegId(), k -> new ArrayList<>()).add(event.getOutboxId());
+        }
+        List<BigInteger> benRegIds = new ArrayList<>(eventIdsByBen.keySet());
+
+        Set<BigInteger> indexable;
+        Set<BigInteger> mapped = new HashSet<>();
+        Set<BigInteger> rejectedBens;
+        try {
+            IndexBatch batch = dataService.fetchForIndexing(benRegIds);
+            indexable = batch.getIndexableBenRegIds();
+            for (BeneficiaryDocument doc : batch.getDocuments()) {
+                mapped.add(BigInteger.valueOf(doc.getBenRegId()));
+            }
+            rejectedBens = bulkIndex(batch.getDocuments());
+            searchResultCache.invalidate(benRegIds);
+        } catch (Exception e) {
+            logger.error("Error publishing outbox batch of {} beneficiaries: {}", benRegIds.size(), e.getMessage(), e);
+            List<Long> all = new ArrayList<>();
+            for (List<Long> ids : eventIdsByBen.values()) {
+                all.addAll(ids);
+            }
+            if (isTransient(e)) {
+                outboxRepo.defer(all, truncate(e.getMessage()), retryBaseDelaySeconds);
+            } else {
+                outboxRepo.markFailed(all, truncate(e.getMessage()), retryBaseDelaySeconds, retryMaxDelaySeconds);
+            }
+            return 0;
+        }
+
+        List<Long> done = new ArrayList<>();
+        List<Long> unmapped = new ArrayList<>();
+        List<Long> rejected = new ArrayList<>();
+        for (Map.Entry<BigInteger, List<Long>> entry : eventIdsByBen.entrySet()) {
+            BigInteger benRegId = entry.getKey();
+            if (!indexable.contains(benRegId)) {
+                // confirmed gone from the database, so there is nothing to index
+                done.addAll(entry.getValue());
+            } else if (!mapped.contains(benRegId)) {
+                unmapped.addAll(entry.getValue());
+            } else if (rejectedBens.contains(benRegId)) {
+                rejected.addAll(entry.getValue());
+            } else {
+                done.addAll(entry.getValue());
+            }
+        }
+
+        if (!done.isEmpty()) {
+            outboxRepo.deleteByOutboxIds(done);
+        }
+        if (!rejected.isEmpty()) {
+            outboxRepo.markFailed(rejected, "Bulk index rejected the document", retryBaseDelaySeconds,
+                    retryMaxDelaySeconds);
+        }
+        if (!unmapped.isEmpty()) {
+            outboxRepo.markFailed(unmapped, "Beneficiary row could not be mapped to a document",
+                    retryBaseDelaySeconds, retryMaxDelaySeconds);
+        }
+
+        logger.debug("Outbox batch: {} events, {} beneficiaries, {} published, {} rejected, {} unmapped",
+                events.size(), benRegIds.size(), done.size(), rejected.size(), unmapped.size());
+        return done.size();
+    }
+
+    /**
+     * Whether a whole-batch failure says nothing about the events themselves:
+     * the database or cluster could not be reached, or Elasticsearch answered
+     * with a server error or throttling status.
+     */
+    static boolean isTransient(Exception e) {
+        if (e instanceof ElasticsearchException) {
+            int status = ((ElasticsearchException) e).status();
+            return status >= 500 || status == 429;
+        }
+        return true;
+    }
+
+    /**
+     * Bulk index documents, returning the benRegIds Elasticsearch did not accept.
+     * Returns once the changes are visible to search.
+     */
+    private Set<BigInteger> bulkIndex(List<BeneficiaryDocument> documents) throws Exception {
+        Set<BigInteger> failed = new LinkedHashSet<>();
+        if (documents == null || documents.isEmpty()) {
+            return failed;
+        }
+
+        Map<String, BigInteger> benRegIdByDocId = new HashMap<>();
+        BulkRequest.Builder br = new BulkRequest.Builder();
+        for (BeneficiaryDocument doc : documents) {
+            if (doc.getBenId() == null || doc.getBenRegId() == null) {
+                continue;
+            }
+            benRegIdByDocId.put(doc.getBenId(), BigInteger.valueOf(doc.getBenRegId()));
+            br.operations(op -> op
+                    .index(idx -> idx
+                            .index(beneficiaryIndex)
+                            .id(doc.getBenId())
+                            .document(doc)));
+        }
+        if (benRegIdByDocId.isEmpty()) {
+            return failed;
+        }
+
+        // wait for the refresh so that searches after the cache invalidation see the new documents
+        BulkResponse result = esClient.bulk(br.refresh(Refresh.WaitFor).build());
+        if (result.errors()) {
+            for (BulkResponseItem item : result.items()) {
+                if (item.error() != null) {
+                    logger.warn("Outbox index failed for document {}: {}", item.id(), item.error().reason());
+                    BigInteger benRegId = benRegIdByDocId.get(item.id());
+                    if (benRegId != null) {
+                        failed.add(benRegId);
+                    }
+                }
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Events still waiting to be published, excluding those that exhausted
+     * their retries.
+     */
+    public long getPendingCount() {
+        return outboxRepo.countPending(maxAttempts);
+    }
+
+    private String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
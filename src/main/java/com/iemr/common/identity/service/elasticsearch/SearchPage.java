@@ -0,0 +1,121 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+
+package com.iemr.common.identity.service.elasticsearch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+
+/**
+ * One page of beneficiary search results.
+ *
+ * The continuation cursor is the sort key of the last hit (score, BenRegID)
+ * plus the kind of query that produced it, encoded as an opaque URL-safe
+ * token. Passing it back resumes the same query with search_after. The cursor
+ * is null on the last page and on database fallback results, which are never
+ * paged.
+ */
+public class SearchPage {
+
+    private final List<Map<String, Object>> results;
+    private final String nextCursor;
+    private final Long totalHits;
+
+    public SearchPage(List<Map<String, Object>> results, String nextCursor, Long totalHits) {
+        this.results = results != null ? results : Collections.emptyList();
+        this.nextCursor = nextCursor;
+        this.totalHits = totalHits;
+    }
+
+    public static SearchPage of(List<Map<String, Object>> results) {
+        return new SearchPage(results, null, null);
+    }
+
+    public List<Map<String, Object>> getResults() {
+        return results;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public Long getTotalHits() {
+        return totalHits;
+    }
+
+    /**
+     * Encode the sort values of the last hit of a page.
+     *
+     * @param mode single letter naming the query the cursor belongs to
+     */
+    static String encodeCursor(String mode, List<FieldValue> sortValues) {
+        if (sortValues == null || sortValues.size() != 2) {
+            return null;
+        }
+        String raw = mode + ":" + sortValues.get(0).doubleValue() + ":" + sortValues.get(1).longValue();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return null for a null or blank token
+     * @throws IllegalArgumentException when the token was not issued by {@link #encodeCursor}
+     */
+    static Cursor decodeCursor(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 3 || parts[0].length() != 1) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+            return new Cursor(parts[0],
+                    List.of(FieldValue.of(Double.parseDouble(parts[1])), FieldValue.of(Long.parseLong(parts[2]))));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid search cursor", e);
+        }
+    }
+
+    static final class Cursor {
+        private final String mode;
+        private final List<FieldValue> searchAfter;
+
+        private Cursor(String mode, List<FieldValue> searchAfter) {
+            this.mode = mode;
+            this.searchAfter = searchAfter;
+        }
+
+        String getMode() {
+            return mode;
+        }
+
+        List<FieldValue> getSearchAfter() {
+            return searchAfter;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+
+package com.iemr.common.identity.service.elasticsearch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived, size-bounded cache of beneficiary search result pages.
+ *
+ * Keys are the normalized search parameters plus the caller's location bucket,
+ * since location changes the ranking. Each entry remembers the BenRegIDs it
+ * returned, so re-indexing a beneficiary drops every cached result that showed
+ * it. Newly created beneficiaries and updates made on other instances become
+ * visible once the entry expires, which bounds staleness to the TTL.
+ */
+@Component
+public class SearchResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchResultCache.class);
+
+    @Value("${elasticsearch.search-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${elasticsearch.search-cache.max-entries:2000}")
+    private int maxEntries;
+
+    // access ordered, so the first entry is the least recently used
+    private final LinkedHashMap<String, CachedResult> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final Map<Long, Set<String>> keysByBenRegId = new HashMap<>();
+
+    /**
+     * Build a cache key from the search kind, its parameters and the location
+     * bucket. Blank parameters are dropped, strings are trimmed and lower-cased
+     * and parameters are sorted by name.
+     */
+    public static String key(String kind, Map<String, ?> params, Map<String, Integer> userLocation) {
+        StringBuilder key = new StringBuilder(kind);
+        Map<String, ?> sorted = new TreeMap<>(params);
+        for (Map.Entry<String, ?> param : sorted.entrySet()) {
+            String value = normalize(param.getValue());
+            if (value != null) {
+                key.append('|').append(param.getKey()).append('=').append(value);
+            }
+        }
+        key.append("|@");
+        if (userLocation != null) {
+            key.append(userLocation.get("blockId")).append('/').append(userLocation.get("villageId"));
+        }
+        return key.toString();
+    }
+
+    private static String normalize(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Date) {
+            return String.valueOf(((Date) value).getTime());
+        }
+        String text = value.toString().trim().toLowerCase();
+        return text.isEmpty() ? null : text.replaceAll("\\s+", " ");
+    }
+
+    /**
+     * @return the cached results, or null when absent or expired
+     */
+    public synchronized SearchPage get(String key) {
+        CachedResult entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            remove(key);
+            return null;
+        }
+        return entry.page;
+    }
+
+    /**
+     * Cache a non-empty result. Empty results are not cached, as a beneficiary
+     * created a moment later could not invalidate them.
+     */
+    public synchronized void put(String key, SearchPage page) {
+        if (ttlSeconds <= 0 || maxEntries <= 0 || page == null || page.getResults().isEmpty()) {
+            return;
+        }
+        remove(key);
+
+        Set<Long> benRegIds = new HashSet<>();
+        for (Map<String, Object> result : page.getResults()) {
+            Object benRegId = result.get("beneficiaryRegID");
+            if (benRegId instanceof Number) {
+                benRegIds.add(((Number) benRegId).longValue());
+            }
+        }
+        SearchPage cached = new SearchPage(Collections.unmodifiableList(new ArrayList<>(page.getResults())),
+                page.getNextCursor(), page.getTotalHits());
+        entries.put(key, new CachedResult(cached, benRegIds, System.currentTimeMillis() + ttlSeconds * 1000));
+        for (Long benRegId : benRegIds) {
+            keysByBenRegId.computeIfAbsent(benRegId, k -> new HashSet<>()).add(key);
+        }
+
+        Iterator<Map.Entry<String, CachedResult>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            Map.Entry<String, CachedResult> evicted = eldest.next();
+            eldest.remove();
+            unlink(evicted.getKey(), evicted.getValue());
+        }
+    }
+
+    /**
+     * Drop every cached result containing one of the given beneficiaries.
+     */
+    public synchronized void invalidate(Collection<? extends Number> benRegIds) {
+        if (benRegIds == null || entries.isEmpty()) {
+            return;
+        }
+        int removed = 0;
+        for (Number benRegId : benRegIds) {
+            if (benRegId == null) {
+                continue;
+            }
+            Set<String> keys = keysByBenRegId.remove(benRegId.longValue());
+            if (keys != null) {
+                for (String key : new ArrayList<>(keys)) {
+                    if (remove(key)) {
+                        removed++;
+                    }
+                }
+            }
+        }
+        if (removed > 0) {
+            logger.debug("Invalidated {} cached search results", removed);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        keysByBenRegId.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private boolean remove(String key) {
+        CachedResult entry = entries.remove(key);
+        unlink(key, entry);
+        return entry != null;
+    }
+
+    private void unlink(String key, CachedResult entry) {
+        if (entry == null) {
+            return;
+        }
+        for (Long benRegId : entry.benRegIds) {
+            Set<String> keys = keysByBenRegId.get(benRegId);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByBenRegId.remove(benRegId);
+                }
+            }
+        }
+    }
+
+    private static final class CachedResult {
+        private final SearchPage page;
+        private final Set<Long> benRegIds;
+        private final long expiresAt;
+
+        private CachedResult(SearchPage page, Set<Long> benRegIds, long expiresAt) {
+            this.page = page;
+            this.benRegIds = benRegIds;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
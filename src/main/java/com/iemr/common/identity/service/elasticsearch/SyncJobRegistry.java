@@ -0,0 +1,147 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+
+package com.iemr.common.identity.service.elasticsearch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory registry of sync jobs running on this instance.
+ *
+ * Each job has a stop token, checked by the job loop between batches, and the
+ * Future returned by its async executor. A stop is either a cancellation or a
+ * pause at the edge of the job's maintenance window; requesting one sets the
+ * token and interrupts the worker thread, which aborts a blocking bulk request
+ * or sleep in flight. The loop then saves its checkpoint with the requested
+ * status.
+ */
+@Component
+public class SyncJobRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncJobRegistry.class);
+
+    private final Map<Long, RunningJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Register a job before it is submitted, so its token exists by the time
+     * the worker first checks it.
+     */
+    public void register(Long jobId) {
+        jobs.putIfAbsent(jobId, new RunningJob());
+    }
+
+    /**
+     * Attach the executor Future. A job that already finished is left alone.
+     */
+    public void attachFuture(Long jobId, Future<?> future) {
+        RunningJob job = jobs.get(jobId);
+        if (job != null) {
+            job.future = future;
+            if (job.stopStatus.get() != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    public void unregister(Long jobId) {
+        jobs.remove(jobId);
+    }
+
+    public boolean isRegistered(Long jobId) {
+        return jobs.containsKey(jobId);
+    }
+
+    /**
+     * Whether any job is running on this instance
+     */
+    public boolean hasRunningJobs() {
+        return !jobs.isEmpty();
+    }
+
+    /**
+     * Ids of the jobs running on this instance
+     */
+    public List<Long> getRunningJobIds() {
+        return new ArrayList<>(jobs.keySet());
+    }
+
+    public boolean isStopRequested(Long jobId) {
+        return getStopStatus(jobId) != null;
+    }
+
+    /**
+     * Status the job should stop with: CANCELLED, PAUSED, or null to keep running
+     */
+    public String getStopStatus(Long jobId) {
+        RunningJob job = jobs.get(jobId);
+        return job != null ? job.stopStatus.get() : null;
+    }
+
+    /**
+     * Request cancellation of a running job.
+     *
+     * @return false if the job is not running on this instance
+     */
+    public boolean cancel(Long jobId) {
+        return requestStop(jobId, "CANCELLED");
+    }
+
+    /**
+     * Request a running job to pause at its checkpoint until its window reopens.
+     *
+     * @return false if the job is not running on this instance
+     */
+    public boolean pause(Long jobId) {
+        return requestStop(jobId, "PAUSED");
+    }
+
+    private boolean requestStop(Long jobId, String status) {
+        RunningJob job = jobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+        // a cancellation overrides a pending pause, not the other way round
+        if (!job.stopStatus.compareAndSet(null, status) && "CANCELLED".equals(status)) {
+            job.stopStatus.set(status);
+        }
+        Future<?> future = job.future;
+        if (future != null) {
+            future.cancel(true);
+        }
+        logger.info("Stop requested for running job: jobId={}, status={}", jobId, status);
+        return true;
+    }
+
+    private static class RunningJob {
+        private final AtomicReference<String> stopStatus = new AtomicReference<>();
+        private volatile Future<?> future;
+    }
+}
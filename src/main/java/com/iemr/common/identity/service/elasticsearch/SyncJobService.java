@@ -22,9 +22,10 @@
 
 package com.iemr.common.identity.service.elasticsearch;
 
-import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,20 +49,40 @@ public class SyncJobService {
     @Autowired
     private BeneficiaryElasticsearchIndexService syncService;
 
+    @Autowired
+    private ElasticsearchReconcileService reconcileService;
+
+    @Autowired
+    private SyncJobRegistry jobRegistry;
+
     /**
      * Start a new full sync job
      * Returns immediately with job ID
      */
     public ElasticsearchSyncJob startFullSyncJob(String triggeredBy) {
+        return startFullSyncJob(triggeredBy, null);
+    }
+
+    /**
+     * Start a new full sync job confined to a maintenance window
+     * (cron expression matching the minutes it may run in; null = any time)
+     */
+    public synchronized ElasticsearchSyncJob startFullSyncJob(String triggeredBy, String windowCron) {
+        SyncJobWindowScheduler.validateWindow(windowCron);
         // Check if there's already an active full sync job
         if (syncJobRepository.hasActiveFullSyncJob()) {
             throw new RuntimeException("A full sync job is already running. Please wait for it to complete.");
         }
+        if (syncJobRepository.hasActiveJobOfType("RECONCILE")) {
+            throw new RuntimeException("A reconcile job is running. Please wait for it to complete.");
+        }
+        checkNoJobWindingDown();
 
         // Create new job
         ElasticsearchSyncJob job = new ElasticsearchSyncJob();
         job.setJobType("FULL_SYNC");
-        job.setStatus("PENDING");
+        job.setStatus(initialStatus(windowCron));
+        job.setWindowCron(windowCron);
         job.setTriggeredBy(triggeredBy);
         job.setProcessedRecords(0L);
         job.setSuccessCount(0L);
@@ -71,59 +92,156 @@ public class SyncJobService {
         // Save job to database
         job = syncJobRepository.save(job);
 
-        logger.info("Created new full sync job");
+        logger.info("Created new full sync job: jobId={}, status={}", job.getJobId(), job.getStatus());
+
+        // Start async processing now, or when the window opens
+        if ("PENDING".equals(job.getStatus())) {
+            submit(job, triggeredBy);
+        }
+
+        return job;
+    }
+
+    /**
+     * Start a DB-vs-ES reconciliation job
+     * Compares per-range digests and re-indexes only the ranges that differ
+     */
+    public ElasticsearchSyncJob startReconcileJob(String triggeredBy) {
+        return startReconcileJob(triggeredBy, null);
+    }
+
+    public synchronized ElasticsearchSyncJob startReconcileJob(String triggeredBy, String windowCron) {
+        SyncJobWindowScheduler.validateWindow(windowCron);
+        if (syncJobRepository.hasActiveFullSyncJob() || syncJobRepository.hasActiveJobOfType("RECONCILE")) {
+            throw new RuntimeException("A full sync or reconcile job is already running. Please wait for it to complete.");
+        }
+        checkNoJobWindingDown();
+
+        ElasticsearchSyncJob job = new ElasticsearchSyncJob();
+        job.setJobType("RECONCILE");
+        job.setStatus(initialStatus(windowCron));
+        job.setWindowCron(windowCron);
+        job.setTriggeredBy(triggeredBy);
+        job.setProcessedRecords(0L);
+        job.setSuccessCount(0L);
+        job.setFailureCount(0L);
+        job.setCurrentOffset(0);
+
+        job = syncJobRepository.save(job);
+
+        logger.info("Created new reconcile job: jobId={}, status={}", job.getJobId(), job.getStatus());
 
-        // Start async processing
-        syncService.syncAllBeneficiariesAsync(job.getJobId(), triggeredBy);
+        if ("PENDING".equals(job.getStatus())) {
+            submit(job, triggeredBy);
+        }
 
         return job;
     }
 
     /**
-     * Resume a failed job from where it left off
+     * Resume a failed or cancelled job from its last checkpoint
      */
-    public ElasticsearchSyncJob resumeJob(Long jobId, String triggeredBy) {
+    public synchronized ElasticsearchSyncJob resumeJob(Long jobId, String triggeredBy) {
         ElasticsearchSyncJob job = syncJobRepository.findByJobId(jobId)
             .orElseThrow(() -> new RuntimeException("Job not found: " + jobId));
 
-        if (!"FAILED".equals(job.getStatus())) {
-            throw new RuntimeException("Can only resume FAILED jobs. Current status: " + job.getStatus());
+        if (!"FAILED".equals(job.getStatus()) && !"CANCELLED".equals(job.getStatus())) {
+            throw new RuntimeException("Can only resume FAILED or CANCELLED jobs. Current status: " + job.getStatus());
+        }
+        if (syncJobRepository.hasActiveFullSyncJob() || syncJobRepository.hasActiveJobOfType("RECONCILE")) {
+            throw new RuntimeException("A full sync or reconcile job is already running. Please wait for it to complete.");
         }
+        checkNoJobWindingDown();
 
         logger.info("Resuming job: jobId={}, from offset={}", jobId, job.getCurrentOffset());
 
-        job.setStatus("PENDING");
+        job.setStatus(initialStatus(job.getWindowCron()));
         job.setTriggeredBy(triggeredBy);
         job = syncJobRepository.save(job);
 
-        // Restart async processing from last offset
-        syncService.syncAllBeneficiariesAsync(job.getJobId(), triggeredBy);
+        // Restart async processing from last offset, or when the window opens
+        if ("PENDING".equals(job.getStatus())) {
+            submit(job, triggeredBy);
+        }
 
         return job;
     }
 
+    /**
+     * Resume a job paused outside its maintenance window.
+     * Called by SyncJobWindowScheduler once the window reopens.
+     */
+    public synchronized ElasticsearchSyncJob resumePausedJob(Long jobId) {
+        checkNoJobWindingDown();
+        if (syncJobRepository.claimPausedJob(jobId) == 0) {
+            throw new RuntimeException("Job is no longer paused: " + jobId);
+        }
+
+        ElasticsearchSyncJob job = syncJobRepository.findByJobId(jobId)
+            .orElseThrow(() -> new RuntimeException("Job not found: " + jobId));
+
+        logger.info("Maintenance window open, resuming job: jobId={}, from offset={}", jobId, job.getCurrentOffset());
+        submit(job, job.getTriggeredBy());
+        return job;
+    }
+
+    /**
+     * Jobs with a window start PAUSED when submitted outside it
+     */
+    private String initialStatus(String windowCron) {
+        if (windowCron != null && !SyncJobWindowScheduler.isWithinWindow(windowCron, LocalDateTime.now())) {
+            return "PAUSED";
+        }
+        return "PENDING";
+    }
+
+    /**
+     * Register the job's cancellation token, then hand it to the async executor
+     */
+    private void submit(ElasticsearchSyncJob job, String triggeredBy) {
+        Long jobId = job.getJobId();
+        jobRegistry.register(jobId);
+        try {
+            Future<Void> future = "RECONCILE".equals(job.getJobType())
+                    ? reconcileService.reconcileAsync(jobId)
+                    : syncService.syncAllBeneficiariesAsync(jobId, triggeredBy);
+            jobRegistry.attachFuture(jobId, future);
+        } catch (RuntimeException e) {
+            jobRegistry.unregister(jobId);
+            throw e;
+        }
+    }
+
+    /**
+     * A cancelled job is no longer active in the database but may still be
+     * finishing its current batch; refuse to start another alongside it.
+     */
+    private void checkNoJobWindingDown() {
+        if (jobRegistry.hasRunningJobs()) {
+            throw new RuntimeException("A sync job is still stopping on this instance. Please retry shortly.");
+        }
+    }
+
     /**
      * Cancel a running job
      */
     public boolean cancelJob(Long jobId) {
-        Optional<ElasticsearchSyncJob> jobOpt = syncJobRepository.findByJobId(jobId);
-        
-        if (jobOpt.isEmpty()) {
+        // Only the status changes, so a checkpoint the running thread wrote is kept,
+        // and a running thread on another instance sees CANCELLED at its next checkpoint.
+        if (syncJobRepository.cancelActiveJob(jobId) == 0) {
+            Optional<ElasticsearchSyncJob> jobOpt = syncJobRepository.findByJobId(jobId);
+            if (jobOpt.isPresent()) {
+                logger.warn("Cannot cancel job that is not active: jobId={}, status={}", jobId,
+                        jobOpt.get().getStatus());
+            }
             return false;
         }
 
-        ElasticsearchSyncJob job = jobOpt.get();
-        
-        if (!job.isActive()) {
-            logger.warn("Cannot cancel job that is not active: jobId={}, status={}", jobId, job.getStatus());
-            return false;
+        // Signal the running thread; it stops at the next batch boundary and saves its checkpoint.
+        if (!jobRegistry.cancel(jobId)) {
+            logger.info("Job {} is not running on this instance; it stops at its next checkpoint", jobId);
         }
 
-        // Mark as cancelled (the async thread will check this periodically)
-        job.setStatus("CANCELLED");
-        job.setCompletedAt(new Timestamp(System.currentTimeMillis()));
-        syncJobRepository.save(job);
-
         logger.info("Job cancelled: jobId={}", jobId);
         return true;
     }
@@ -0,0 +1,98 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+
+package com.iemr.common.identity.service.elasticsearch;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+
+import com.iemr.common.identity.data.elasticsearch.ElasticsearchSyncJob;
+import com.iemr.common.identity.repo.elasticsearch.SyncJobRepo;
+
+/**
+ * Keeps windowed sync jobs inside their maintenance window.
+ *
+ * A window is a Spring cron expression whose matching minutes are the minutes
+ * the job may run in, e.g. {@code 0 * 22-23,0-5 * * *} for 22:00-05:59 every
+ * day. Running jobs found outside their window are asked to pause at their
+ * next checkpoint; PAUSED jobs whose window has opened are resumed from it.
+ */
+@Component
+public class SyncJobWindowScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncJobWindowScheduler.class);
+
+    @Autowired
+    private SyncJobRepo syncJobRepository;
+
+    @Autowired
+    private SyncJobRegistry jobRegistry;
+
+    @Autowired
+    private SyncJobService syncJobService;
+
+    @Scheduled(fixedDelayString = "${elasticsearch.sync.window.check-interval-ms:60000}")
+    public void enforceWindows() {
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Long jobId : jobRegistry.getRunningJobIds()) {
+            syncJobRepository.findByJobId(jobId).ifPresent(job -> {
+                if (job.getWindowCron() != null && !isWithinWindow(job.getWindowCron(), now)) {
+                    logger.info("Job {} is outside its window '{}', pausing", jobId, job.getWindowCron());
+                    jobRegistry.pause(jobId);
+                }
+            });
+        }
+
+        for (ElasticsearchSyncJob job : syncJobRepository.findPausedWindowedJobs()) {
+            if (isWithinWindow(job.getWindowCron(), now)) {
+                try {
+                    syncJobService.resumePausedJob(job.getJobId());
+                } catch (RuntimeException e) {
+                    logger.info("Could not resume paused job {} yet: {}", job.getJobId(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the minute containing {@code now} matches the window expression
+     */
+    public static boolean isWithinWindow(String windowCron, LocalDateTime now) {
+        LocalDateTime minute = now.truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime next = CronExpression.parse(windowCron).next(minute.minusSeconds(1));
+        return minute.equals(next);
+    }
+
+    public static void validateWindow(String windowCron) {
+        if (windowCron != null && !CronExpression.isValidExpression(windowCron)) {
+            throw new IllegalArgumentException("Invalid maintenance window cron expression: " + windowCron);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+
+package com.iemr.common.identity.service.elasticsearch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.iemr.common.identity.service.health.HealthService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Adaptive pacing for the background full-sync loops.
+ *
+ * Batch loops report DB fetch and bulk index timings and call {@link #pace()}
+ * between batches. Pressure is derived from Hikari threads waiting for a
+ * connection and pool utilisation (on the primary pool interactive requests
+ * use and on the ES sync pool the loops draw from), DB and bulk latency per
+ * 1000 rows, ES bulk rejections (429) and HealthService's last advanced MySQL
+ * check. Under
+ * pressure the batch scale halves and the pause between batches doubles; when
+ * healthy the scale grows back additively and the pause decays to zero.
+ */
+@Component
+public class SyncRateController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncRateController.class);
+
+    private static final double HIGH_PRESSURE = 1.0;
+    private static final double MODERATE_PRESSURE = 0.5;
+    private static final double SCALE_STEP = 0.1;
+    private static final long MIN_PAUSE_MS = 100L;
+    private static final double EWMA_WEIGHT = 0.3;
+
+    // the injected DataSource is the routing proxy, so the pools are taken directly
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("esSyncDataSource")
+    private HikariDataSource esSyncDataSource;
+
+    @Autowired
+    private HealthService healthService;
+
+    @Value("${elasticsearch.sync.throttle.min-scale:0.1}")
+    private double minScale;
+
+    @Value("${elasticsearch.sync.throttle.max-pause-ms:10000}")
+    private long maxPauseMs;
+
+    @Value("${elasticsearch.sync.throttle.db-latency-target-ms:1000}")
+    private double dbLatencyTargetMs;
+
+    @Value("${elasticsearch.sync.throttle.bulk-latency-target-ms:2000}")
+    private double bulkLatencyTargetMs;
+
+    private double scale = 1.0;
+    private long pauseMs = 0L;
+    private double dbLatencyPer1000 = 0;
+    private double bulkLatencyPer1000 = 0;
+    private int rejectedSinceLastPace = 0;
+
+    /**
+     * Batch size to use now for a loop whose nominal batch size is {@code base}
+     */
+    public synchronized int scaled(int base) {
+        return Math.max(1, (int) Math.round(base * scale));
+    }
+
+    public synchronized void recordDbFetch(long millis, int rows) {
+        if (rows > 0) {
+            dbLatencyPer1000 = ewma(dbLatencyPer1000, millis * 1000.0 / rows);
+        }
+    }
+
+    /**
+     * @param rejected documents refused with 429, or the whole request when it failed
+     */
+    public synchronized void recordBulk(long millis, int docs, int rejected) {
+        if (docs > 0) {
+            bulkLatencyPer1000 = ewma(bulkLatencyPer1000, millis * 1000.0 / docs);
+        }
+        rejectedSinceLastPace += rejected;
+    }
+
+    /**
+     * Adjust the batch scale from current pressure and sleep for the resulting
+     * pause. Interruptible, so a cancelled job stops waiting immediately.
+     */
+    public void pace() throws InterruptedException {
+        long sleep;
+        synchronized (this) {
+            double pressure = currentPressure();
+            if (pressure >= HIGH_PRESSURE) {
+                scale = Math.max(minScale, scale / 2);
+                pauseMs = Math.min(maxPauseMs, Math.max(MIN_PAUSE_MS, pauseMs * 2));
+                logger.info("Sync throttled: pressure={}, batch scale={}, pause={}ms",
+                        String.format("%.2f", pressure), String.format("%.2f", scale), pauseMs);
+            } else if (pressure < MODERATE_PRESSURE) {
+                scale = Math.min(1.0, scale + SCALE_STEP);
+                pauseMs = pauseMs / 2 < MIN_PAUSE_MS ? 0 : pauseMs / 2;
+            }
+            rejectedSinceLastPace = 0;
+            sleep = pauseMs;
+        }
+        if (sleep > 0) {
+            Thread.sleep(sleep);
+        }
+    }
+
+    /**
+     * 0 = idle, 1 and above = back off
+     */
+    private double currentPressure() {
+        double pressure = 0;
+
+        pressure = Math.max(pressure, poolPressure(primaryDataSource));
+        pressure = Math.max(pressure, poolPressure(esSyncDataSource));
+        pressure = Math.max(pressure, dbLatencyPer1000 / dbLatencyTargetMs);
+        pressure = Math.max(pressure, bulkLatencyPer1000 / bulkLatencyTargetMs);
+
+        if (rejectedSinceLastPace > 0) {
+            pressure = Math.max(pressure, HIGH_PRESSURE);
+        }
+        if (healthService.isDatabaseRecentlyDegraded()) {
+            pressure = Math.max(pressure, HIGH_PRESSURE);
+        }
+        return pressure;
+    }
+
+    private static double poolPressure(HikariDataSource hikari) {
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) {
+            return 0;
+        }
+        if (pool.getThreadsAwaitingConnection() > 0) {
+            return HIGH_PRESSURE;
+        }
+        double utilisation = (double) pool.getActiveConnections() / hikari.getMaximumPoolSize();
+        if (utilisation > 0.9) {
+            return HIGH_PRESSURE;
+        }
+        return utilisation > 0.75 ? MODERATE_PRESSURE : 0;
+    }
+
+    private double ewma(double current, double sample) {
+        return current == 0 ? sample : current + EWMA_WEIGHT * (sample - current);
+    }
+}
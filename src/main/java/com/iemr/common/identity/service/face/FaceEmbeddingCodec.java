@@ -0,0 +1,158 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.service.face;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of face embeddings stored in i_beneficiarydetails.FaceEmbeddingBin.
+ *
+ * Layout: one format byte followed by the vector components in little-endian order,
+ * either as float32 (FORMAT_FLOAT32) or as IEEE 754 half precision (FORMAT_FLOAT16).
+ * The legacy text column ("[0.12, -0.4, ...]") is still understood by
+ * {@link #parseText(String)} until every row has been migrated.
+ */
+public final class FaceEmbeddingCodec {
+
+    public static final byte FORMAT_FLOAT32 = 1;
+    public static final byte FORMAT_FLOAT16 = 2;
+
+    private FaceEmbeddingCodec() {
+    }
+
+    public static byte[] encode(List<Float> embedding) {
+        return encode(toArray(embedding), FORMAT_FLOAT32);
+    }
+
+    public static byte[] encode(float[] vector, byte format) {
+        if (vector == null)
+            return null;
+        int width = format == FORMAT_FLOAT16 ? 2 : 4;
+        ByteBuffer buffer = ByteBuffer.allocate(1 + vector.length * width).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(format);
+        for (float value : vector) {
+            if (format == FORMAT_FLOAT16)
+                buffer.putShort(toHalf(value));
+            else
+                buffer.putFloat(value);
+        }
+        return buffer.array();
+    }
+
+    public static float[] decode(byte[] data) {
+        if (data == null || data.length == 0)
+            return null;
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        byte format = buffer.get();
+        int width;
+        if (format == FORMAT_FLOAT32)
+            width = 4;
+        else if (format == FORMAT_FLOAT16)
+            width = 2;
+        else
+            throw new IllegalArgumentException("Unknown face embedding format " + format);
+
+        float[] vector = new float[(data.length - 1) / width];
+        for (int i = 0; i < vector.length; i++)
+            vector[i] = format == FORMAT_FLOAT16 ? fromHalf(buffer.getShort()) : buffer.getFloat();
+        return vector;
+    }
+
+    /**
+     * Parses the legacy text representation, e.g. "[0.12, -0.4]"
+     */
+    public static float[] parseText(String text) {
+        if (text == null)
+            return null;
+        String trimmed = text.replaceAll("[\\[\\]]", "").trim();
+        if (trimmed.isEmpty())
+            return new float[0];
+        String[] parts = trimmed.split(",\\s*");
+        float[] vector = new float[parts.length];
+        for (int i = 0; i < parts.length; i++)
+            vector[i] = Float.parseFloat(parts[i].trim());
+        return vector;
+    }
+
+    public static float[] toArray(List<Float> embedding) {
+        if (embedding == null)
+            return null;
+        float[] vector = new float[embedding.size()];
+        for (int i = 0; i < vector.length; i++)
+            vector[i] = embedding.get(i) != null ? embedding.get(i) : 0f;
+        return vector;
+    }
+
+    public static List<Float> toList(float[] vector) {
+        List<Float> list = new ArrayList<>(vector.length);
+        for (float value : vector)
+            list.add(value);
+        return list;
+    }
+
+    static short toHalf(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = ((bits >>> 23) & 0xff) - 127 + 15;
+        int mantissa = bits & 0x7fffff;
+
+        if (exponent <= 0) {
+            // subnormal or zero in half precision
+            if (exponent < -10)
+                return (short) sign;
+            mantissa = (mantissa | 0x800000) >> (1 - exponent);
+            return (short) (sign | ((mantissa + 0x1000) >> 13));
+        }
+        if (exponent >= 0x1f) {
+            // overflow, infinity or NaN
+            boolean nan = ((bits >>> 23) & 0xff) == 0xff && mantissa != 0;
+            return (short) (sign | 0x7c00 | (nan ? 0x200 : 0));
+        }
+        int half = sign | (exponent << 10) | ((mantissa + 0x1000) >> 13);
+        return (short) half;
+    }
+
+    static float fromHalf(short half) {
+        int bits = half & 0xffff;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1f;
+        int mantissa = bits & 0x3ff;
+
+        if (exponent == 0) {
+            if (mantissa == 0)
+                return Float.intBitsToFloat(sign);
+            // normalise the subnormal value
+            while ((mantissa & 0x400) == 0) {
+                mantissa <<= 1;
+                exponent--;
+            }
+            exponent++;
+            mantissa &= 0x3ff;
+        } else if (exponent == 0x1f) {
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        }
+        return Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+    }
+}
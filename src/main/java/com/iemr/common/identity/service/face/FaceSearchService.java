@@ -0,0 +1,180 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.service.face;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.iemr.common.identity.repo.BenDetailRepo;
+
+/**
+ * Keeps an in-process HNSW index of beneficiary face embeddings and answers
+ * nearest-neighbour queries against it.
+ *
+ * The index is built in the background once the application is ready. While
+ * loading, rows that still only carry the legacy text embedding get their
+ * binary column filled in, so the load doubles as the text-to-binary migration.
+ */
+@Service
+public class FaceSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FaceSearchService.class);
+
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    @Autowired
+    private BenDetailRepo benDetailRepo;
+
+    @Value("${face.search.enabled:false}")
+    private boolean enabled;
+
+    @Value("${face.search.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${face.search.hnsw.efConstruction:200}")
+    private int efConstruction;
+
+    @Value("${face.search.hnsw.efSearch:64}")
+    private int efSearch;
+
+    private volatile HnswIndex index;
+    private volatile boolean ready;
+
+    @Async("taskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        if (!enabled) {
+            logger.info("Face search index disabled");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        HnswIndex newIndex = new HnswIndex(hnswM, efConstruction);
+        index = newIndex;
+        BigInteger after = BigInteger.ZERO;
+        int migrated = 0;
+        int skipped = 0;
+        try {
+            while (true) {
+                List<Object[]> rows = benDetailRepo.getFaceEmbeddingsAfter(after, LOAD_BATCH_SIZE);
+                if (rows.isEmpty())
+                    break;
+                for (Object[] row : rows) {
+                    BigInteger benRegId = toBigInteger(row[0]);
+                    after = benRegId;
+                    float[] vector;
+                    try {
+                        vector = FaceEmbeddingCodec.decode((byte[]) row[1]);
+                        if (vector == null && row[2] != null) {
+                            vector = FaceEmbeddingCodec.parseText(row[2].toString());
+                            benDetailRepo.updateFaceEmbeddingBin(benRegId,
+                                    FaceEmbeddingCodec.encode(vector, FaceEmbeddingCodec.FORMAT_FLOAT32));
+                            migrated++;
+                        }
+                    } catch (IllegalArgumentException e) {
+                        // one malformed row must not keep the whole index from loading
+                        logger.warn("Skipping unreadable face embedding for benRegId {}: {}", benRegId,
+                                e.getMessage());
+                        skipped++;
+                        continue;
+                    }
+                    addQuietly(newIndex, benRegId, vector);
+                }
+            }
+            ready = true;
+            logger.info("Face search index ready: {} embeddings, {} migrated from text, {} skipped, {} ms",
+                    newIndex.size(), migrated, skipped, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Error while building face search index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds or replaces the embedding of a beneficiary, called during
+     * registration. Inside a transaction the vector is only added once it
+     * commits, so a rolled back registration never becomes a search result.
+     */
+    public void index(BigInteger benRegId, List<Float> embedding) {
+        if (benRegId == null || embedding == null)
+            return;
+        float[] vector = FaceEmbeddingCodec.toArray(embedding);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addToCurrentIndex(benRegId, vector);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                addToCurrentIndex(benRegId, vector);
+            }
+        });
+    }
+
+    private void addToCurrentIndex(BigInteger benRegId, float[] vector) {
+        HnswIndex current = index;
+        if (current != null)
+            addQuietly(current, benRegId, vector);
+    }
+
+    /**
+     * BenRegIds of the closest faces, most similar first
+     */
+    public List<BigInteger> search(List<Float> embedding, int topK, Float minSimilarity) {
+        if (!enabled)
+            throw new IllegalStateException("Face search is not enabled on this server");
+        if (!ready)
+            throw new IllegalStateException("Face search index is still loading, please retry later");
+
+        List<BigInteger> benRegIds = new ArrayList<>();
+        for (HnswIndex.Match match : index.search(FaceEmbeddingCodec.toArray(embedding), topK, efSearch)) {
+            if (minSimilarity != null && match.getSimilarity() < minSimilarity)
+                break;
+            benRegIds.add(BigInteger.valueOf(match.getId()));
+        }
+        return benRegIds;
+    }
+
+    private void addQuietly(HnswIndex target, BigInteger benRegId, float[] vector) {
+        try {
+            target.add(benRegId.longValue(), vector);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Skipping face embedding of benRegId {}: {}", benRegId, e.getMessage());
+        }
+    }
+
+    private static BigInteger toBigInteger(Object value) {
+        if (value instanceof BigInteger)
+            return (BigInteger) value;
+        return BigInteger.valueOf(((Number) value).longValue());
+    }
+}
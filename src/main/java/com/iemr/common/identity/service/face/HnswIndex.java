@@ -0,0 +1,294 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.service.face;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory Hierarchical Navigable Small World graph for approximate nearest
+ * neighbour search over face embeddings, using cosine similarity.
+ *
+ * Vectors are L2-normalised on insert so similarity is a plain dot product.
+ * Re-adding an id replaces its vector: the old node stays in the graph as a
+ * routing point but is never returned. Inserts take the write lock, searches
+ * share the read lock.
+ */
+class HnswIndex {
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+
+    private final Map<Long, Node> liveNodes = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node entryPoint;
+    private int dimensions = -1;
+
+    static final class Node {
+        final long id;
+        final float[] vector;
+        final List<List<Node>> links;
+        volatile boolean deleted;
+
+        Node(long id, float[] vector, int level) {
+            this.id = id;
+            this.vector = vector;
+            this.links = new ArrayList<>(level + 1);
+            for (int i = 0; i <= level; i++)
+                links.add(new ArrayList<>());
+        }
+
+        int level() {
+            return links.size() - 1;
+        }
+    }
+
+    static final class Match {
+        final long id;
+        final float similarity;
+
+        Match(long id, float similarity) {
+            this.id = id;
+            this.similarity = similarity;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        float getSimilarity() {
+            return similarity;
+        }
+    }
+
+    private static final class Candidate {
+        final Node node;
+        final float distance;
+
+        Candidate(Node node, float distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+
+    HnswIndex(int m, int efConstruction) {
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveNodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    void add(long id, float[] rawVector) {
+        float[] vector = normalise(rawVector);
+        if (vector == null)
+            return;
+
+        lock.writeLock().lock();
+        try {
+            if (dimensions < 0)
+                dimensions = vector.length;
+            else if (dimensions != vector.length)
+                throw new IllegalArgumentException(
+                        "Embedding has " + vector.length + " dimensions, index expects " + dimensions);
+
+            Node previous = liveNodes.get(id);
+            if (previous != null)
+                previous.deleted = true;
+
+            int level = (int) Math.floor(-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * levelMultiplier);
+            Node node = new Node(id, vector, level);
+            liveNodes.put(id, node);
+
+            if (entryPoint == null) {
+                entryPoint = node;
+                return;
+            }
+
+            Node current = entryPoint;
+            for (int l = entryPoint.level(); l > level; l--)
+                current = greedyClosest(current, vector, l);
+
+            for (int l = Math.min(level, entryPoint.level()); l >= 0; l--) {
+                List<Candidate> candidates = searchLayer(current, vector, efConstruction, l);
+                int maxLinks = l == 0 ? maxM0 : m;
+                List<Node> neighbours = node.links.get(l);
+                for (int i = 0; i < candidates.size() && neighbours.size() < m; i++)
+                    neighbours.add(candidates.get(i).node);
+
+                for (Node neighbour : neighbours) {
+                    List<Node> back = neighbour.links.get(l);
+                    back.add(node);
+                    if (back.size() > maxLinks)
+                        shrink(neighbour, back, maxLinks);
+                }
+                current = candidates.get(0).node;
+            }
+
+            if (level > entryPoint.level())
+                entryPoint = node;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Node node = liveNodes.remove(id);
+            if (node != null)
+                node.deleted = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<Match> search(float[] rawVector, int k, int ef) {
+        float[] vector = normalise(rawVector);
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (entryPoint == null || vector == null || vector.length != dimensions)
+                return matches;
+
+            Node current = entryPoint;
+            for (int l = entryPoint.level(); l > 0; l--)
+                current = greedyClosest(current, vector, l);
+
+            for (Candidate candidate : searchLayer(current, vector, Math.max(ef, k), 0)) {
+                if (candidate.node.deleted)
+                    continue;
+                matches.add(new Match(candidate.node.id, 1 - candidate.distance));
+                if (matches.size() == k)
+                    break;
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Node greedyClosest(Node start, float[] vector, int level) {
+        Node current = start;
+        float best = distance(vector, current.vector);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (Node neighbour : current.links.get(level)) {
+                float d = distance(vector, neighbour.vector);
+                if (d < best) {
+                    best = d;
+                    current = neighbour;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer, returns up to ef candidates closest first
+     */
+    private List<Candidate> searchLayer(Node start, float[] vector, int ef, int level) {
+        Set<Node> visited = new HashSet<>();
+        PriorityQueue<Candidate> toVisit = new PriorityQueue<>(Comparator.comparingDouble(c -> c.distance));
+        PriorityQueue<Candidate> results = new PriorityQueue<>(
+                Comparator.comparingDouble((Candidate c) -> c.distance).reversed());
+
+        Candidate first = new Candidate(start, distance(vector, start.vector));
+        visited.add(start);
+        toVisit.add(first);
+        results.add(first);
+
+        while (!toVisit.isEmpty()) {
+            Candidate closest = toVisit.poll();
+            if (closest.distance > results.peek().distance && results.size() >= ef)
+                break;
+            for (Node neighbour : closest.node.links.get(level)) {
+                if (!visited.add(neighbour))
+                    continue;
+                float d = distance(vector, neighbour.vector);
+                if (results.size() < ef || d < results.peek().distance) {
+                    Candidate candidate = new Candidate(neighbour, d);
+                    toVisit.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef)
+                        results.poll();
+                }
+            }
+        }
+
+        List<Candidate> ordered = new ArrayList<>(results);
+        ordered.sort(Comparator.comparingDouble(c -> c.distance));
+        return ordered;
+    }
+
+    private void shrink(Node owner, List<Node> links, int maxLinks) {
+        links.sort(Comparator.comparingDouble(n -> distance(owner.vector, n.vector)));
+        while (links.size() > maxLinks)
+            links.remove(links.size() - 1);
+    }
+
+    private static float distance(float[] a, float[] b) {
+        float dot = 0f;
+        for (int i = 0; i < a.length; i++)
+            dot += a[i] * b[i];
+        return 1 - dot;
+    }
+
+    private static float[] normalise(float[] vector) {
+        if (vector == null || vector.length == 0)
+            return null;
+        double norm = 0;
+        for (float value : vector)
+            norm += value * value;
+        if (norm == 0)
+            return null;
+        float scale = (float) (1 / Math.sqrt(norm));
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++)
+            unit[i] = vector[i] * scale;
+        return unit;
+    }
+}
@@ -25,13 +25,14 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -44,7 +45,9 @@ import com.iemr.common.identity.exception.IEMRException;
 import com.iemr.common.identity.repo.BenDetailRepo;
 import com.iemr.common.identity.repo.BenMappingRepo;
 import com.iemr.common.identity.repo.familyTag.FamilyTagRepo;
+import com.iemr.common.identity.service.elasticsearch.EsOutboxService;
 import com.iemr.common.identity.utils.mapper.InputMapper;
+import com.iemr.common.identity.utils.mapper.JsonMappers;
 
 @Service
 public class FamilyTagServiceImpl implements FamilyTagService {
@@ -55,8 +58,11 @@ public class FamilyTagServiceImpl implements FamilyTagService {
 	private BenDetailRepo benDetailRepo;
 	@Autowired
 	private BenMappingRepo benMappingRepo;
+	@Autowired
+	private EsOutboxService outboxService;
 
 	@Override
+	@Transactional(rollbackFor = Exception.class)
 	public String addTag(String request) throws IEMRException {
 		try {
 			BenFamilyMapping benFamilyObj = InputMapper.gson().fromJson(request, BenFamilyMapping.class);
@@ -66,24 +72,17 @@ public class FamilyTagServiceImpl implements FamilyTagService {
 				benDetailRepo.updateFamilyDetails(benFamilyObj.getFamilyId(),
 						benFamilyObj.getHeadofFamily_RelationID(), benFamilyObj.getHeadofFamily_Relation(),
 						benFamilyObj.getOther(), benMapping.getBenDetailsId(), benMapping.getVanID());
+				outboxService.enqueue(BigInteger.valueOf(benFamilyObj.getBeneficiaryRegId()), "FAMILY_TAG");
 			} else
 				throw new IEMRException(
 						"Beneficiary is not found while doing family tagging. Please contact the adminstrator");
-			BenFamilyMapping benFamilyRS = familyTagRepo.searchFamilyByFamilyId(benFamilyObj.getFamilyId());
-
-			if (benFamilyRS != null) {
-				if (benFamilyRS.getNoOfmembers() != null)
-					benFamilyRS.setNoOfmembers(benFamilyRS.getNoOfmembers() + 1);
-				else
-					benFamilyRS.setNoOfmembers(1);
-
-				benFamilyRS.setModifiedBy(benFamilyObj.getModifiedBy());
-
-				if (Boolean.TRUE.equals(benFamilyObj.getIsHeadOfTheFamily()) && benFamilyObj.getMemberName() != null)
-					benFamilyRS.setFamilyHeadName(benFamilyObj.getMemberName());
-
-				familyTagRepo.save(benFamilyRS);
+			String familyHeadName = Boolean.TRUE.equals(benFamilyObj.getIsHeadOfTheFamily())
+					? benFamilyObj.getMemberName()
+					: null;
+			int updated = familyTagRepo.updateMemberCount(benFamilyObj.getFamilyId(), 1, familyHeadName,
+					benFamilyObj.getModifiedBy());
 
+			if (updated > 0) {
 				return "Family tagging completed successfully";
 
 			} else
@@ -96,6 +95,7 @@ public class FamilyTagServiceImpl implements FamilyTagService {
 	}
 
 	@Override
+	@Transactional(rollbackFor = Exception.class)
 	public String doFamilyUntag(String request) throws IEMRException {
 
 		try {
@@ -113,32 +113,49 @@ public class FamilyTagServiceImpl implements FamilyTagService {
 
 			if (!benFamilyList.isEmpty()) {
 				for (BenFamilyMapping obj : benFamilyList) {
-					if (obj.getFamilyId() != null) {
-						MBeneficiarymapping benMapping = benMappingRepo
-								.getBenDetailsId(BigInteger.valueOf(obj.getBeneficiaryRegId()));
-
-						benDetailRepo.untagFamily(obj.getModifiedBy(), benMapping.getBenDetailsId(),
-								benMapping.getVanID());
-
-						BenFamilyMapping benFamilyRS = familyTagRepo.searchFamilyByFamilyId(obj.getFamilyId());
-
-						if (benFamilyRS != null) {
-							if (benFamilyRS.getNoOfmembers() != null && benFamilyRS.getNoOfmembers() > 0)
-								benFamilyRS.setNoOfmembers(benFamilyRS.getNoOfmembers() - 1);
-
-							if (obj != null && obj.getIsHeadOfTheFamily() != null && Boolean.TRUE.equals(obj.getIsHeadOfTheFamily()))
-								benFamilyRS.setFamilyHeadName("");
-
-							benFamilyRS.setModifiedBy(obj.getModifiedBy());
-							familyTagRepo.save(benFamilyRS);
-
-						} else
-							throw new IEMRException("Invalid family ID while searching family");
-
-					} else
+					if (obj.getFamilyId() == null)
 						throw new IEMRException("Invalid family ID / NULL");
 				}
 
+				// resolve all members' detail ids with one IN query
+				List<BigInteger> benRegIds = new ArrayList<>();
+				for (BenFamilyMapping obj : benFamilyList)
+					benRegIds.add(BigInteger.valueOf(obj.getBeneficiaryRegId()));
+				Map<BigInteger, Object[]> mappingByRegId = new HashMap<>();
+				for (Object[] row : benMappingRepo.getBenDetailsIdsByRegIDList(benRegIds))
+					mappingByRegId.put((BigInteger) row[0], row);
+
+				// one bulk UPDATE per (vanID, modifiedBy) group
+				Map<List<Object>, List<BigInteger>> untagGroups = new LinkedHashMap<>();
+				Map<String, List<BenFamilyMapping>> membersByFamily = new LinkedHashMap<>();
+				for (BenFamilyMapping obj : benFamilyList) {
+					Object[] mapping = mappingByRegId.get(BigInteger.valueOf(obj.getBeneficiaryRegId()));
+					if (mapping == null || mapping[1] == null)
+						throw new IEMRException("Beneficiary not found for ben_reg_id " + obj.getBeneficiaryRegId());
+					untagGroups.computeIfAbsent(Arrays.asList(mapping[2], obj.getModifiedBy()), k -> new ArrayList<>())
+							.add((BigInteger) mapping[1]);
+					membersByFamily.computeIfAbsent(obj.getFamilyId(), k -> new ArrayList<>()).add(obj);
+				}
+				for (Map.Entry<List<Object>, List<BigInteger>> group : untagGroups.entrySet()) {
+					benDetailRepo.untagFamilyMembers((String) group.getKey().get(1), group.getValue(),
+							(Integer) group.getKey().get(0));
+				}
+				outboxService.enqueueAll(benRegIds, "FAMILY_TAG");
+
+				// atomic decrement per family, no read of the current count
+				for (Map.Entry<String, List<BenFamilyMapping>> family : membersByFamily.entrySet()) {
+					List<BenFamilyMapping> members = family.getValue();
+					String familyHeadName = null;
+					for (BenFamilyMapping obj : members) {
+						if (Boolean.TRUE.equals(obj.getIsHeadOfTheFamily()))
+							familyHeadName = "";
+					}
+					int updated = familyTagRepo.updateMemberCount(family.getKey(), -members.size(), familyHeadName,
+							members.get(members.size() - 1).getModifiedBy());
+					if (updated == 0)
+						throw new IEMRException("Invalid family ID while searching family");
+				}
+
 			} else
 				throw new IEMRException("Invalid request object");
 		} catch (Exception e) {
@@ -149,6 +166,7 @@ public class FamilyTagServiceImpl implements FamilyTagService {
 
 // edit family
 	@Override
+	@Transactional(rollbackFor = Exception.class)
 	public String editFamilyDetails(String request) throws IEMRException {
 
 		try {
@@ -175,6 +193,7 @@ public class FamilyTagServiceImpl implements FamilyTagService {
 				benDetailRepo.editFamilyDetails(benFamilyObj.getHeadofFamily_RelationID(),
 						benFamilyObj.getHeadofFamily_Relation(), benFamilyObj.getOther(), benMapping.getBenDetailsId(),
 						benMapping.getVanID(), benFamilyObj.getFamilyId());
+				outboxService.enqueue(BigInteger.valueOf(benFamilyObj.getBeneficiaryRegId()), "FAMILY_TAG");
 			} else
 				throw new IEMRException(
 						"Error in getting beneficiary details. No mapping data found in DB for this ben_reg_id");
@@ -198,7 +217,7 @@ public class FamilyTagServiceImpl implements FamilyTagService {
 						benFamilyObj.getVillageId());
 			
 			if (list != null && !list.isEmpty())
-				return new Gson().toJson(list);
+				return JsonMappers.plainGson().toJson(list);
 			else
 				return "No records found";
 		} catch (Exception e) {
@@ -222,7 +241,7 @@ public class FamilyTagServiceImpl implements FamilyTagService {
 						benFamilyObj.getOther(), benMapping.getBenDetailsId(), benMapping.getVanID());
 			}
 			if (benFamilyObj.getBenFamilyTagId() != null)
-				return new Gson().toJson(benFamilyObj);
+				return JsonMappers.plainGson().toJson(benFamilyObj);
 			else
 				throw new IEMRException("Error while creating family");
 		} catch (Exception e) {
@@ -258,7 +277,7 @@ public class FamilyTagServiceImpl implements FamilyTagService {
 				addFamilyMembersToList(list,responseList);
 				Map<String, Object> map = new HashMap<>();
 				map.put("familyMembers", responseList);
-				return new Gson().toJson(map);
+				return JsonMappers.plainGson().toJson(map);
 			} else
 				throw new IEMRException("Error while fetching family member details");
 		} catch (Exception e) {
@@ -298,7 +317,7 @@ public class FamilyTagServiceImpl implements FamilyTagService {
 			addFamilyMembersToList(memberList, memberResponseList);
 			resp.setFamilyMembers(memberResponseList);
 
-			return new Gson().toJson(resp);
+			return JsonMappers.plainGson().toJson(resp);
 		} catch (Exception e) {
 			throw new IEMRException(
 					"Error while fetching family details by beneficiary ID : " + e.getLocalizedMessage());
@@ -306,10 +325,21 @@ public class FamilyTagServiceImpl implements FamilyTagService {
 	}
 
 	private void addFamilyMembersToList(List<MBeneficiarydetail> list, List<FamilyMembers> responseList) {
+		if (list == null || list.isEmpty())
+			return;
+
+		// resolve every member's BenRegId with a single IN query
+		List<BigInteger> benDetailsIds = new ArrayList<>();
+		for (MBeneficiarydetail obj : list)
+			benDetailsIds.add(obj.getBeneficiaryDetailsId());
+		Map<List<Object>, BigInteger> regIdByDetail = new HashMap<>();
+		for (Object[] row : benMappingRepo.getBenRegIdsByBenDetailsIds(benDetailsIds))
+			regIdByDetail.put(Arrays.asList(row[0], row[1]), (BigInteger) row[2]);
+
 		for (MBeneficiarydetail obj : list) {
 			StringBuilder name = new StringBuilder("");
 			FamilyMembers famObj = new FamilyMembers();
-			BigInteger benRegId = benMappingRepo.getBenRegId(obj.getBeneficiaryDetailsId(), obj.getVanID());
+			BigInteger benRegId = regIdByDetail.get(Arrays.asList(obj.getBeneficiaryDetailsId(), obj.getVanID()));
 			if (benRegId != null)
 				famObj.setMemberId(benRegId.longValue());
 			name = name.append((obj.getTitle() != null ? obj.getTitle() : "")).append( " ").append(
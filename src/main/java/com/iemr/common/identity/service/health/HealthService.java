@@ -27,6 +27,7 @@ import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.Instant;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -59,6 +60,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
+import com.iemr.common.identity.utils.mapper.JsonMappers;
 
 @Service
 public class HealthService {
@@ -116,7 +118,7 @@ public class HealthService {
     private final boolean                          elasticsearchEnabled;
     private final boolean                          elasticsearchIndexingRequired;
     private final String                           elasticsearchTargetIndex;
-    private static final ObjectMapper              objectMapper = new ObjectMapper();
+    private static final ObjectMapper              objectMapper = JsonMappers.objectMapper();
 
     private RestClient elasticsearchRestClient;
     private boolean    elasticsearchClientReady = false;
@@ -659,6 +661,16 @@ public class HealthService {
         }
     }
 
+    /**
+     * Outcome of the most recent advanced MySQL check (lock waits, slow queries,
+     * pool exhaustion) without running a new one. False when nothing recent is cached.
+     */
+    public boolean isDatabaseRecentlyDegraded() {
+        AdvancedCheckResult result = cachedAdvancedCheckResult;
+        long age = System.currentTimeMillis() - lastAdvancedCheckTime;
+        return result != null && result.isDegraded && age < ADVANCED_CHECKS_THROTTLE_SECONDS * 2_000L;
+    }
+
     private AdvancedCheckResult performAdvancedMySQLChecks() {
         try (Connection connection = dataSource.getConnection()) {
             return executeAdvancedCheckAsync(connection);
@@ -752,7 +764,9 @@ public class HealthService {
     }
 
     private boolean hasConnectionPoolExhaustion() {
-        if (dataSource instanceof HikariDataSource hikariDataSource) {
+        // the application DataSource routes per workload; on this thread it resolves to the interactive pool
+        HikariDataSource hikariDataSource = unwrapHikari();
+        if (hikariDataSource != null) {
             try {
                 HikariPoolMXBean poolMXBean = hikariDataSource.getHikariPoolMXBean();
                 if (poolMXBean != null) {
@@ -768,6 +782,14 @@ public class HealthService {
         return checkPoolMetricsViaJMX();
     }
 
+    private HikariDataSource unwrapHikari() {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
     private boolean checkPoolMetricsViaJMX() {
         try {
             MBeanServer  mBeanServer = ManagementFactory.getPlatformMBeanServer();
@@ -45,7 +45,6 @@ import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -74,10 +73,12 @@ import com.iemr.common.identity.repo.rmnch.RMNCHCBACDetailsRepo;
 import com.iemr.common.identity.repo.rmnch.RMNCHHouseHoldDetailsRepo;
 import com.iemr.common.identity.repo.rmnch.RMNCHMBenMappingRepo;
 import com.iemr.common.identity.repo.rmnch.RMNCHMBenRegIdMapRepo;
+import com.iemr.common.identity.service.elasticsearch.EsOutboxService;
 import com.iemr.common.identity.utils.config.ConfigProperties;
 import com.iemr.common.identity.utils.exception.IEMRException;
 import com.iemr.common.identity.utils.http.HttpUtils;
 import com.iemr.common.identity.utils.mapper.InputMapper;
+import com.iemr.common.identity.utils.mapper.JsonMappers;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
@@ -113,6 +114,8 @@ public class RmnchDataSyncServiceImpl implements RmnchDataSyncService {
 	private RMNCHBenContactRepo rMNCHBenContactRepo;
 	@Autowired
 	private RMNCHMBenRegIdMapRepo rMNCHMBenRegIdMapRepo;
+	@Autowired
+	private EsOutboxService outboxService;
 
 	@Value("${fhir-url}")
 	private String fhirUrl;
@@ -152,6 +155,7 @@ public class RmnchDataSyncServiceImpl implements RmnchDataSyncService {
 //
 //						if (benRegID != null) {
 						
+							List<BigInteger> updatedBenRegIds = new ArrayList<>();
 							for (RMNCHBeneficiaryDetailsRmnch obj : benDetailsExtraList) {
 								benRegID = rMNCHMBenRegIdMapRepo.getRegID(obj.getBenficieryid());
 								obj.setBenRegId(benRegID);
@@ -197,6 +201,7 @@ public class RmnchDataSyncServiceImpl implements RmnchDataSyncService {
 
 										}
 										benDetailsList.add(rmnchmBeneficiarydetail);
+										updatedBenRegIds.add(obj.getBenRegId());
 										if (obj.getAbhaId()!=null && !obj.getAbhaId().isEmpty()) {
 											mapHealthIDToBeneficiary(authorization,obj.getBenRegId().longValue(),obj.getBenficieryid().longValue(),obj.getAbhaId(),obj.getCreatedBy(),obj.getFirstName(),obj.getLastName(),obj.getDob().toString(),obj.getProviderServiceMapID());
 
@@ -214,6 +219,7 @@ public class RmnchDataSyncServiceImpl implements RmnchDataSyncService {
 							benDetailsExtraList.forEach((n) -> beneficiaryDetailsIds.add(n.getId()));
 							// update beneficiary data in i_beneficiarydetails table
 							rMNCHBenDetailsRepo.saveAll(benDetailsList);
+							outboxService.enqueueAll(updatedBenRegIds, "RMNCH_SYNC");
 
 						// born birth details
 						if (jsnOBJ != null && jsnOBJ.has("bornBirthDeatils")) {
@@ -303,7 +309,7 @@ public class RmnchDataSyncServiceImpl implements RmnchDataSyncService {
 		resultMap.put("cBACDetails", cBACDetailsIds);
 		resultMap.put("houseHoldDetails", houseHoldDetailsIds);
 
-		return new Gson().toJson(resultMap);
+		return JsonMappers.plainGson().toJson(resultMap);
 	}
 
 	/**
@@ -367,7 +373,7 @@ public class RmnchDataSyncServiceImpl implements RmnchDataSyncService {
 
 		  requestMap.put("ABHAProfile", abhaProfile);
 
-		  String requestBody = new Gson().toJson(requestMap);
+		  String requestBody = JsonMappers.plainGson().toJson(requestMap);
 
 		  String url = fhirUrl
 				  + ConfigProperties.getPropertyByName("mapHealthIDToBeneficiary");
@@ -423,7 +429,7 @@ public class RmnchDataSyncServiceImpl implements RmnchDataSyncService {
 
 		try {
 
-			JsonObject requestObj = new Gson().fromJson(comingRequest, JsonObject.class);
+			JsonObject requestObj = JsonMappers.plainGson().fromJson(comingRequest, JsonObject.class);
 			logger.info("Request Parsed Successfully");
 
 			List<RMNCHBeneficiaryDetailsRmnch> list =
@@ -948,7 +954,7 @@ public class RmnchDataSyncServiceImpl implements RmnchDataSyncService {
 		response.put("data", resultList);
 		response.put("pageSize", Integer.parseInt(door_to_door_page_size));
 		response.put("totalPage", totalPage);
-		return new Gson().toJson(response);
+		return JsonMappers.plainGson().toJson(response);
 	}
 
 	public List<String> fetchHealthIdByBenRegID(Long benRegID, String authorization) {
@@ -962,14 +968,14 @@ public class RmnchDataSyncServiceImpl implements RmnchDataSyncService {
 			HashMap<String, Object> header = new HashMap<String, Object>();
 			header.put("Authorization", authorization);
 			String responseStr = utils.post(ConfigProperties.getPropertyByName("fhir-url")
-					+ ConfigProperties.getPropertyByName("getHealthID"), new Gson().toJson(requestMap), header);
+					+ ConfigProperties.getPropertyByName("getHealthID"), JsonMappers.plainGson().toJson(requestMap), header);
 			JsonElement jsnElmnt = jsnParser.parse(responseStr);
 			JsonObject jsnOBJ = new JsonObject();
 			jsnOBJ = jsnElmnt.getAsJsonObject();
 			if (jsnOBJ.get("data") != null && jsnOBJ.get("data").getAsJsonObject().get("BenHealthDetails") != null) {
 				result = new ArrayList<String>();
 				BenHealthIDDetails[] ben = InputMapper.gson().fromJson(
-						new Gson().toJson(jsnOBJ.get("data").getAsJsonObject().get("BenHealthDetails")),
+						JsonMappers.plainGson().toJson(jsnOBJ.get("data").getAsJsonObject().get("BenHealthDetails")),
 						BenHealthIDDetails[].class);
 				for (BenHealthIDDetails value : ben) {
 					if (value.getHealthId() != null)
@@ -1056,7 +1062,7 @@ public class RmnchDataSyncServiceImpl implements RmnchDataSyncService {
 				String responseStr = utils.post(
 						ConfigProperties.getPropertyByName("tm-url")
 								+ ConfigProperties.getPropertyByName("get-HRP-Status"),
-						new Gson().toJson(requestMap), header);
+						JsonMappers.plainGson().toJson(requestMap), header);
 				JsonElement jsnElmnt = jsnParser.parse(responseStr);
 				JsonObject jsnOBJ = new JsonObject();
 				jsnOBJ = jsnElmnt.getAsJsonObject();
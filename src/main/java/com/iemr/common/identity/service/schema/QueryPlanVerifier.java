@@ -0,0 +1,169 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.service.schema;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs EXPLAIN on the hot identity queries and reports any table the plan
+ * reads with a full scan (type ALL) or without an index.
+ *
+ * The statements mirror the repository queries with sample literals. MySQL
+ * may still choose a scan on small tables, so the report is only meaningful
+ * against a database with production-sized data.
+ */
+@Service
+public class QueryPlanVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryPlanVerifier.class);
+
+    private static final String VILLAGE_SYNC = "SELECT u.BenRegId FROM ( "
+            + " SELECT m.BenRegId FROM i_beneficiaryaddress a "
+            + " JOIN i_beneficiarymapping m ON m.BenAddressId = a.BenAddressID "
+            + " WHERE a.LastModDate > NOW() - INTERVAL 1 DAY AND a.PermVillageId IN (1, 2) AND m.BenRegId > 0 "
+            + " UNION "
+            + " SELECT m.BenRegId FROM i_beneficiarycontacts c "
+            + " JOIN i_beneficiarymapping m ON m.BenContactsId = c.BenContactsID "
+            + " JOIN i_beneficiaryaddress a ON a.BenAddressID = m.BenAddressId "
+            + " WHERE c.LastModDate > NOW() - INTERVAL 1 DAY AND a.PermVillageId IN (1, 2) AND m.BenRegId > 0 "
+            + " UNION "
+            + " SELECT m.BenRegId FROM i_beneficiarydetails d "
+            + " JOIN i_beneficiarymapping m ON m.BenDetailsId = d.BeneficiaryDetailsId "
+            + " JOIN i_beneficiaryaddress a ON a.BenAddressID = m.BenAddressId "
+            + " WHERE d.LastModDate > NOW() - INTERVAL 1 DAY AND a.PermVillageId IN (1, 2) AND m.BenRegId > 0 "
+            + ") u ORDER BY u.BenRegId LIMIT 1000";
+
+    private static final List<PlanCheck> CHECKS = List.of(
+            new PlanCheck("mappingByBenRegId",
+                    "SELECT BenMapId FROM i_beneficiarymapping WHERE BenRegId = 1", "i_beneficiarymapping"),
+            new PlanCheck("mappingByVanSerialNo",
+                    "SELECT BenMapId FROM i_beneficiarymapping WHERE VanSerialNo = 1 AND VanID = 1",
+                    "i_beneficiarymapping"),
+            new PlanCheck("addressByVanSerialNo",
+                    "SELECT BenAddressID FROM i_beneficiaryaddress WHERE VanSerialNo = 1 AND VanID = 1",
+                    "i_beneficiaryaddress"),
+            new PlanCheck("contactByVanSerialNo",
+                    "SELECT BenContactsID FROM i_beneficiarycontacts WHERE VanSerialNo = 1 AND VanID = 1",
+                    "i_beneficiarycontacts"),
+            new PlanCheck("detailByVanSerialNo",
+                    "SELECT BeneficiaryDetailsId FROM i_beneficiarydetails WHERE VanSerialNo = 1 AND VanID = 1",
+                    "i_beneficiarydetails"),
+            new PlanCheck("accountByVanSerialNo",
+                    "SELECT BenAccountID FROM i_beneficiaryaccount WHERE VanSerialNo = 1 AND VanID = 1",
+                    "i_beneficiaryaccount"),
+            new PlanCheck("imageByVanSerialNo",
+                    "SELECT BenImageId FROM i_beneficiaryimage WHERE VanSerialNo = 1 AND VanID = 1",
+                    "i_beneficiaryimage"),
+            new PlanCheck("villageSyncByLastModDate", VILLAGE_SYNC, "a", "c", "d", "m"),
+            new PlanCheck("regIdClaim",
+                    "SELECT BenRegId FROM m_beneficiaryregidmapping WHERE Provisioned = false AND Reserved = false "
+                            + "ORDER BY BenRegId ASC LIMIT 1",
+                    "m_beneficiaryregidmapping"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * EXPLAINs every check. The overall status is OK when every checked table
+     * is read through an index, WARN when any is scanned, and ERROR when a
+     * statement could not be explained (for example a missing table).
+     */
+    public Map<String, Object> verify() {
+        List<Map<String, Object>> results = new ArrayList<>();
+        String overall = "OK";
+        for (PlanCheck check : CHECKS) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("name", check.name);
+            try {
+                List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + check.sql);
+                List<Map<String, Object>> findings = new ArrayList<>();
+                boolean scan = false;
+                for (Map<String, Object> row : plan) {
+                    String table = (String) row.get("table");
+                    if (table == null || !check.tables.contains(table)) {
+                        continue;
+                    }
+                    String type = (String) row.get("type");
+                    Object key = row.get("key");
+                    Map<String, Object> finding = new LinkedHashMap<>();
+                    finding.put("table", table);
+                    finding.put("type", type);
+                    finding.put("key", key);
+                    finding.put("rows", row.get("rows"));
+                    findings.add(finding);
+                    if ("ALL".equalsIgnoreCase(type) || key == null) {
+                        scan = true;
+                    }
+                }
+                result.put("status", scan ? "WARN" : "OK");
+                result.put("plan", findings);
+                if (scan && "OK".equals(overall)) {
+                    overall = "WARN";
+                }
+            } catch (Exception e) {
+                result.put("status", "ERROR");
+                result.put("error", e.getMessage());
+                overall = "ERROR";
+            }
+            results.add(result);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("status", overall);
+        report.put("checks", results);
+        return report;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void logReport() {
+        Map<String, Object> report = verify();
+        for (Map<String, Object> check : (List<Map<String, Object>>) report.get("checks")) {
+            if ("OK".equals(check.get("status"))) {
+                logger.debug("Query plan {} uses indexes: {}", check.get("name"), check.get("plan"));
+            } else {
+                logger.warn("Query plan {} is {}: {}", check.get("name"), check.get("status"),
+                        check.containsKey("error") ? check.get("error") : check.get("plan"));
+            }
+        }
+        logger.info("Query plan verification finished with status {}", report.get("status"));
+    }
+
+    private static final class PlanCheck {
+        final String name;
+        final String sql;
+        final List<String> tables;
+
+        PlanCheck(String name, String sql, String... tables) {
+            this.name = name;
+            this.sql = sql;
+            this.tables = List.of(tables);
+        }
+    }
+}
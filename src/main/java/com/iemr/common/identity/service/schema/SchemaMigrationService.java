@@ -0,0 +1,408 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.service.schema;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+/**
+ * Applies the versioned SQL scripts under db/migration (V{n}__{description}.sql)
+ * and records each applied version in t_schema_version.
+ *
+ * Runs while the application context starts, before any request is served,
+ * unless schema.migration.enabled=false. Entities depend on these objects, so
+ * a migration that fails fails startup. If another instance holds the lock,
+ * e.g. during a rolling deploy, this instance starts without migrating and
+ * leaves the work to that instance. With the runner disabled, versions missing
+ * from t_schema_version are logged instead.
+ *
+ * Versions listed in schema.migration.deferred-versions (index builds and
+ * backfills that can run for minutes on large tables) are not applied at
+ * startup. They are applied in the background once the application is ready
+ * when schema.migration.apply-deferred-on-ready=true, so an operator can run
+ * them on one instance at a quiet time with a user that has the privileges.
+ * Nothing else depends on them being present.
+ * Most of these objects already exist on deployed databases, so "already
+ * exists" errors are treated as applied, and a CREATE INDEX is skipped when an
+ * index with the same leading columns is already present under another name.
+ * A MySQL named lock keeps two instances from migrating at the same time.
+ */
+@Service
+public class SchemaMigrationService implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrationService.class);
+
+    private static final String LOCATION = "classpath:db/migration/V*__*.sql";
+    private static final String LOCK_NAME = "identity_schema_migration";
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+            "CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+\\w+\\s+ON\\s+(\\w+)\\s*\\(([^)]+)\\)", Pattern.CASE_INSENSITIVE);
+
+    // table exists, duplicate column, duplicate key name
+    private static final Set<Integer> ALREADY_APPLIED_ERRORS = Set.of(1050, 1060, 1061);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QueryPlanVerifier queryPlanVerifier;
+
+    @Value("${schema.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${schema.migration.lock-timeout-seconds:60}")
+    private int lockTimeoutSeconds;
+
+    @Value("${schema.migration.deferred-versions:6,7}")
+    private Set<Integer> deferredVersions;
+
+    @Value("${schema.migration.apply-deferred-on-ready:false}")
+    private boolean applyDeferredOnReady;
+
+    @Value("${schema.verify-plans-on-startup:false}")
+    private boolean verifyPlansOnStartup;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            migrate();
+        } else {
+            warnPending();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (verifyPlansOnStartup) {
+            queryPlanVerifier.logReport();
+        }
+    }
+
+    @Async("taskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void applyDeferredOnReady() {
+        if (!enabled || !applyDeferredOnReady) {
+            return;
+        }
+        try {
+            migrateDeferred();
+        } catch (RuntimeException e) {
+            logger.error("Deferred schema migration failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Applies every script newer than the versions recorded in t_schema_version,
+     * except the deferred versions. Stops at the first failing script so later
+     * versions are not applied out of order. Returns the versions applied in
+     * this run; none when another instance holds the migration lock.
+     *
+     * @throws IllegalStateException when the scripts cannot be read or a script
+     *                               fails
+     */
+    public List<Integer> migrate() {
+        List<Integer> applied = migrate(false);
+        List<Integer> pending = pendingDeferred();
+        if (!pending.isEmpty() && !applyDeferredOnReady) {
+            logger.warn("Deferred migration versions {} are not applied; set "
+                    + "schema.migration.apply-deferred-on-ready=true on one instance to apply them", pending);
+        }
+        return applied;
+    }
+
+    /**
+     * Applies the deferred versions not yet recorded in t_schema_version.
+     *
+     * @throws IllegalStateException when the scripts cannot be read or a script
+     *                               fails
+     */
+    public List<Integer> migrateDeferred() {
+        return migrate(true);
+    }
+
+    private List<Integer> migrate(boolean deferred) {
+        List<Script> scripts = new ArrayList<>();
+        for (Script script : readScripts()) {
+            if (deferredVersions.contains(script.version) == deferred) {
+                scripts.add(script);
+            }
+        }
+        return jdbcTemplate.execute((ConnectionCallback<List<Integer>>) con -> {
+            if (!acquireLock(con)) {
+                logger.warn("Schema migration lock is held by another instance after {}s; "
+                        + "continuing without applying {}", lockTimeoutSeconds,
+                        deferred ? "the deferred versions" : "migrations");
+                return new ArrayList<>();
+            }
+            try {
+                return applyPending(con, scripts);
+            } finally {
+                releaseLock(con);
+            }
+        });
+    }
+
+    private List<Integer> pendingDeferred() {
+        List<Integer> pending = new ArrayList<>();
+        Set<Integer> applied;
+        try {
+            applied = new HashSet<>(
+                    jdbcTemplate.queryForList("SELECT version FROM t_schema_version", Integer.class));
+        } catch (RuntimeException e) {
+            // not created yet when another instance held the lock on a fresh database
+            logger.debug("t_schema_version could not be read: {}", e.getMessage());
+            return pending;
+        }
+        for (Script script : readScripts()) {
+            if (deferredVersions.contains(script.version) && !applied.contains(script.version)) {
+                pending.add(script.version);
+            }
+        }
+        return pending;
+    }
+
+    private void warnPending() {
+        List<Integer> pending = new ArrayList<>();
+        try {
+            Set<Integer> applied = new HashSet<>(
+                    jdbcTemplate.queryForList("SELECT version FROM t_schema_version", Integer.class));
+            for (Script script : readScripts()) {
+                if (!applied.contains(script.version)) {
+                    pending.add(script.version);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Schema migration is disabled and t_schema_version could not be read: {}", e.getMessage());
+            return;
+        }
+        if (!pending.isEmpty()) {
+            logger.warn("Schema migration is disabled and versions {} are not recorded in t_schema_version; "
+                    + "apply them before using the features that need them", pending);
+        }
+    }
+
+    private List<Script> readScripts() {
+        try {
+            return loadScripts();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read migration scripts: " + e.getMessage(), e);
+        }
+    }
+
+    private List<Integer> applyPending(Connection con, List<Script> scripts) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS t_schema_version ("
+                    + " version INT NOT NULL PRIMARY KEY,"
+                    + " description VARCHAR(200) NOT NULL,"
+                    + " checksum BIGINT NOT NULL,"
+                    + " execution_ms BIGINT NOT NULL,"
+                    + " installed_on DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        }
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement st = con.createStatement();
+                ResultSet rs = st.executeQuery("SELECT version, checksum FROM t_schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getLong(2));
+            }
+        }
+
+        List<Integer> done = new ArrayList<>();
+        for (Script script : scripts) {
+            Long checksum = applied.get(script.version);
+            if (checksum != null) {
+                if (checksum != script.checksum) {
+                    logger.warn("Migration V{} ({}) changed after it was applied", script.version,
+                            script.description);
+                }
+                continue;
+            }
+            long start = System.currentTimeMillis();
+            try {
+                for (String sql : script.statements) {
+                    execute(con, sql);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("Migration V" + script.version + " (" + script.description
+                        + ") failed, later versions not applied: " + e.getMessage(), e);
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            try (PreparedStatement ps = con.prepareStatement(
+                    "INSERT INTO t_schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+                ps.setInt(1, script.version);
+                ps.setString(2, script.description);
+                ps.setLong(3, script.checksum);
+                ps.setLong(4, elapsed);
+                ps.executeUpdate();
+            }
+            logger.info("Applied migration V{} ({}) in {} ms", script.version, script.description, elapsed);
+            done.add(script.version);
+        }
+        if (done.isEmpty()) {
+            logger.info("Schema is up to date");
+        }
+        return done;
+    }
+
+    private void execute(Connection con, String sql) throws SQLException {
+        Matcher index = CREATE_INDEX.matcher(sql);
+        if (index.find() && hasIndexOn(con, index.group(1), index.group(2))) {
+            logger.info("Skipping, an index with the same leading columns exists: {}", sql);
+            return;
+        }
+        try (Statement st = con.createStatement()) {
+            st.execute(sql);
+        } catch (SQLException e) {
+            if (!ALREADY_APPLIED_ERRORS.contains(e.getErrorCode())) {
+                throw e;
+            }
+            logger.info("Already applied: {} ({})", sql, e.getMessage());
+        }
+    }
+
+    /**
+     * True if some index on the table starts with exactly the given columns,
+     * in order. Column names are compared case-insensitively, as MySQL does.
+     */
+    private boolean hasIndexOn(Connection con, String table, String columnList) throws SQLException {
+        List<String> wanted = new ArrayList<>();
+        for (String column : columnList.split(",")) {
+            wanted.add(column.trim().toLowerCase(Locale.ROOT));
+        }
+        Map<String, List<String>> indexes = new HashMap<>();
+        try (PreparedStatement ps = con.prepareStatement("SELECT INDEX_NAME, COLUMN_NAME FROM information_schema.STATISTICS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? ORDER BY INDEX_NAME, SEQ_IN_INDEX")) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    indexes.computeIfAbsent(rs.getString(1), k -> new ArrayList<>())
+                            .add(rs.getString(2).toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        for (List<String> columns : indexes.values()) {
+            if (columns.size() >= wanted.size() && columns.subList(0, wanted.size()).equals(wanted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean acquireLock(Connection con) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.setInt(2, lockTimeoutSeconds);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private void releaseLock(Connection con) {
+        try (PreparedStatement ps = con.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.executeQuery().close();
+        } catch (SQLException e) {
+            logger.warn("Could not release schema migration lock: {}", e.getMessage());
+        }
+    }
+
+    private List<Script> loadScripts() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver(getClass().getClassLoader())
+                .getResources(LOCATION);
+        List<Script> scripts = new ArrayList<>();
+        Set<Integer> versions = new HashSet<>();
+        for (Resource resource : resources) {
+            Matcher m = SCRIPT_NAME.matcher(resource.getFilename());
+            if (!m.matches()) {
+                continue;
+            }
+            int version = Integer.parseInt(m.group(1));
+            if (!versions.add(version)) {
+                throw new IOException("Duplicate migration version V" + version);
+            }
+            String text;
+            try (InputStream in = resource.getInputStream()) {
+                text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            scripts.add(new Script(version, m.group(2).replace('_', ' '), text));
+        }
+        scripts.sort((a, b) -> Integer.compare(a.version, b.version));
+        return scripts;
+    }
+
+    private static final class Script {
+        final int version;
+        final String description;
+        final long checksum;
+        final List<String> statements = new ArrayList<>();
+
+        Script(int version, String description, String text) {
+            this.version = version;
+            this.description = description;
+            CRC32 crc = new CRC32();
+            crc.update(text.getBytes(StandardCharsets.UTF_8));
+            this.checksum = crc.getValue();
+            StringBuilder body = new StringBuilder();
+            for (String line : text.split("\\R")) {
+                if (!line.trim().startsWith("--")) {
+                    body.append(line).append('\n');
+                }
+            }
+            Arrays.stream(body.toString().split(";"))
+                    .map(String::trim)
+                    .filter(s -> !s.isEmpty())
+                    .forEach(statements::add);
+        }
+    }
+}
@@ -27,13 +27,12 @@ import java.util.Date;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
-import com.google.gson.LongSerializationPolicy;
 import com.google.gson.annotations.Expose;
+import com.iemr.common.identity.utils.mapper.JsonMappers;
 
 import lombok.Data;
 
@@ -193,10 +192,6 @@ public class OutputResponse {
 
 	@Override
 	public String toString() {
-		GsonBuilder builder = new GsonBuilder();
-		builder.excludeFieldsWithoutExposeAnnotation();
-		builder.setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
-				.setLongSerializationPolicy(LongSerializationPolicy.STRING);
-		return builder.create().toJson(this);
+		return JsonMappers.exposedDatedGson().toJson(this);
 	}
 }
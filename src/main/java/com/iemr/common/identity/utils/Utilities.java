@@ -26,6 +26,7 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.iemr.common.identity.controller.IdentityController;
+import com.iemr.common.identity.utils.mapper.JsonMappers;
 
 public class Utilities {
 	/**
@@ -37,7 +38,7 @@ public class Utilities {
 	private Logger logger = LoggerFactory.getLogger(IdentityController.class);
 
 	public String getJsonAsString(Object obj) {
-		ObjectMapper mapper = new ObjectMapper();
+		ObjectMapper mapper = JsonMappers.objectMapper();
 		StringBuilder sb = new StringBuilder();
 		try {
 			sb.append(mapper.writeValueAsString(obj));
@@ -0,0 +1,75 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.utils;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Kind of work running on the current thread. The DataSource uses it to pick
+ * the connection pool, so background sync cannot take connections from
+ * interactive requests. Threads that never set it count as INTERACTIVE.
+ */
+public class WorkloadContext {
+
+	public enum Workload {
+		INTERACTIVE, ES_SYNC, MOBILE_SYNC
+	}
+
+	private static final ThreadLocal<Workload> workloadHolder = new ThreadLocal<>();
+
+	public static Workload get() {
+		Workload workload = workloadHolder.get();
+		return workload != null ? workload : Workload.INTERACTIVE;
+	}
+
+	public static void set(Workload workload) {
+		workloadHolder.set(workload);
+	}
+
+	public static void clear() {
+		workloadHolder.remove();
+	}
+
+	/**
+	 * Runs the task under the given workload and restores the previous one.
+	 */
+	public static void run(Workload workload, Runnable task) {
+		Workload previous = workloadHolder.get();
+		workloadHolder.set(workload);
+		try {
+			task.run();
+		} finally {
+			if (previous != null) {
+				workloadHolder.set(previous);
+			} else {
+				workloadHolder.remove();
+			}
+		}
+	}
+
+	/**
+	 * Executor decorator that runs every task under the given workload.
+	 */
+	public static TaskDecorator decorator(Workload workload) {
+		return task -> () -> run(workload, task);
+	}
+}
@@ -0,0 +1,55 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.utils.http;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.iemr.common.identity.utils.WorkloadContext;
+import com.iemr.common.identity.utils.WorkloadContext.Workload;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Tags the request thread with a workload so its database work uses that
+ * workload's connection pool. Registered per path in InterceptorConfig.
+ */
+public class WorkloadInterceptor implements HandlerInterceptor {
+
+	private final Workload workload;
+
+	public WorkloadInterceptor(Workload workload) {
+		this.workload = workload;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		WorkloadContext.set(workload);
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		WorkloadContext.clear();
+	}
+}
@@ -0,0 +1,204 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.utils.mapper;
+
+import java.lang.annotation.Annotation;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+
+/**
+ * Converts application DTOs to the {@code Map<String, Object>} that
+ * serializing with the shared ObjectMapper and reading the JSON back as a Map
+ * would give, without building the intermediate JSON.
+ *
+ * Property names and order come from Jackson's own introspection and are
+ * cached per class. Values are normalised the way the JSON round trip does:
+ * integral numbers become the smallest of Integer, Long or BigInteger,
+ * decimals become Double, dates become epoch millis and nested beans become
+ * maps. Types outside the application packages, and classes carrying
+ * serialization annotations, are handed to the ObjectMapper as before.
+ */
+public final class BeanMapConverter {
+
+	private static final String APP_PACKAGE = "com.iemr.";
+
+	private static final List<Class<? extends Annotation>> CUSTOM_SERIALIZATION = List.of(JsonSerialize.class,
+			JsonFormat.class, JsonInclude.class, JsonUnwrapped.class, JsonAnyGetter.class, JsonValue.class);
+
+	private static final BigInteger INT_MIN = BigInteger.valueOf(Integer.MIN_VALUE);
+	private static final BigInteger INT_MAX = BigInteger.valueOf(Integer.MAX_VALUE);
+	private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+	private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+	/**
+	 * Readable properties per class; an empty list marks a class that has to
+	 * go through the ObjectMapper
+	 */
+	private static final Map<Class<?>, List<Property>> PROPERTIES = new ConcurrentHashMap<>();
+
+	private BeanMapConverter() {
+	}
+
+	@SuppressWarnings("unchecked")
+	public static Map<String, Object> toMap(Object bean) {
+		if (bean == null) {
+			return null;
+		}
+		Object converted = convert(bean);
+		if (converted instanceof Map) {
+			return (Map<String, Object>) converted;
+		}
+		throw new IllegalArgumentException(bean.getClass().getName() + " does not serialize to a JSON object");
+	}
+
+	private static Object convert(Object value) {
+		if (value == null || value instanceof String || value instanceof Boolean) {
+			return value;
+		}
+		if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+			return integral(((Number) value).longValue());
+		}
+		if (value instanceof BigInteger) {
+			return integral((BigInteger) value);
+		}
+		if (value instanceof Float || value instanceof Double || value instanceof BigDecimal) {
+			// parse the textual form, as reading the JSON number back does
+			return Double.valueOf(value.toString());
+		}
+		if (value instanceof Character || value instanceof Enum) {
+			return value instanceof Enum ? ((Enum<?>) value).name() : value.toString();
+		}
+		if (value instanceof Date) {
+			return integral(((Date) value).getTime());
+		}
+		if (value instanceof Collection) {
+			List<Object> list = new ArrayList<>(((Collection<?>) value).size());
+			for (Object item : (Collection<?>) value) {
+				list.add(convert(item));
+			}
+			return list;
+		}
+		if (value instanceof Map) {
+			Map<String, Object> map = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				map.put(String.valueOf(entry.getKey()), convert(entry.getValue()));
+			}
+			return map;
+		}
+
+		List<Property> properties = value.getClass().getName().startsWith(APP_PACKAGE)
+				? PROPERTIES.computeIfAbsent(value.getClass(), BeanMapConverter::introspect)
+				: Collections.emptyList();
+		if (properties.isEmpty()) {
+			return mapper().convertValue(value, Object.class);
+		}
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (Property property : properties) {
+			map.put(property.name, convert(property.accessor.getValue(value)));
+		}
+		return map;
+	}
+
+	private static List<Property> introspect(Class<?> type) {
+		ObjectMapper mapper = mapper();
+		BeanDescription description = mapper.getSerializationConfig().introspect(mapper.constructType(type));
+		if (hasCustomSerialization(description)) {
+			return Collections.emptyList();
+		}
+
+		List<Property> properties = new ArrayList<>();
+		for (BeanPropertyDefinition definition : description.findProperties()) {
+			AnnotatedMember accessor = definition.getAccessor();
+			if (accessor == null) {
+				continue;
+			}
+			for (Class<? extends Annotation> annotation : CUSTOM_SERIALIZATION) {
+				if (accessor.hasAnnotation(annotation)
+						|| (definition.getField() != null && definition.getField().hasAnnotation(annotation))) {
+					return Collections.emptyList();
+				}
+			}
+			accessor.fixAccess(true);
+			properties.add(new Property(definition.getName(), accessor));
+		}
+		return properties;
+	}
+
+	private static boolean hasCustomSerialization(BeanDescription description) {
+		for (Class<? extends Annotation> annotation : CUSTOM_SERIALIZATION) {
+			if (description.getClassAnnotations().has(annotation)) {
+				return true;
+			}
+		}
+		return description.findJsonValueAccessor() != null || description.findAnyGetter() != null;
+	}
+
+	private static Object integral(long value) {
+		if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+			return (int) value;
+		}
+		return value;
+	}
+
+	private static Object integral(BigInteger value) {
+		if (value.compareTo(INT_MIN) >= 0 && value.compareTo(INT_MAX) <= 0) {
+			return value.intValue();
+		}
+		if (value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0) {
+			return value.longValue();
+		}
+		return value;
+	}
+
+	private static ObjectMapper mapper() {
+		return JsonMappers.objectMapper();
+	}
+
+	private static final class Property {
+		private final String name;
+		private final AnnotatedMember accessor;
+
+		private Property(String name, AnnotatedMember accessor) {
+			this.name = name;
+			this.accessor = accessor;
+		}
+	}
+}
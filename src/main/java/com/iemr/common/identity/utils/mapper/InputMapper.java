@@ -26,7 +26,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import com.google.gson.ExclusionStrategy;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.iemr.common.identity.utils.exception.IEMRException;
 
@@ -40,15 +39,10 @@ import com.iemr.common.identity.utils.exception.IEMRException;
  */
 @Service
 public class InputMapper {
-	static GsonBuilder builder;
 	ExclusionStrategy strategy;
 	Logger logger = LoggerFactory.getLogger(this.getClass().getSimpleName());
 
 	public InputMapper() {
-		if (builder == null) {
-			builder = new GsonBuilder();
-			builder.setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
-		}
 	}
 
 	/**
@@ -65,11 +59,11 @@ public class InputMapper {
 	 * @throws IEMRException
 	 */
 	public <T> T fromJson(String json, Class<T> classOfT) throws IEMRException {
-		return builder.create().fromJson(json, classOfT);
+		return JsonMappers.localDateGson().fromJson(json, classOfT);
 	}
 
 	public <T> T fromJson(JsonElement json, Class<T> classOfT) throws IEMRException {
-		return builder.create().fromJson(json, classOfT);
+		return JsonMappers.localDateGson().fromJson(json, classOfT);
 	}
 
 }
\ No newline at end of file
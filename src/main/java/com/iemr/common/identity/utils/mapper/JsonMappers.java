@@ -0,0 +1,122 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.utils.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.LongSerializationPolicy;
+
+/**
+ * Shared, pre-configured serializers.
+ *
+ * Gson and ObjectMapper are thread-safe once built, but building them is not
+ * cheap: each new instance starts with empty reflective type caches. Callers
+ * take the instance matching the configuration they used to build by hand
+ * instead of creating one per call.
+ */
+public final class JsonMappers {
+
+	public static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+
+	private static final Gson GSON = new GsonBuilder().setDateFormat(DATE_FORMAT).serializeNulls()
+			.setLongSerializationPolicy(LongSerializationPolicy.STRING).create();
+
+	private static final Gson PLAIN_GSON = new Gson();
+
+	private static final Gson LONG_AS_STRING_GSON = new GsonBuilder()
+			.setLongSerializationPolicy(LongSerializationPolicy.STRING).create();
+
+	private static final Gson EXPOSED_GSON = new GsonBuilder().excludeFieldsWithoutExposeAnnotation()
+			.setLongSerializationPolicy(LongSerializationPolicy.STRING).create();
+
+	private static final Gson EXPOSED_GSON_WITH_NULLS = new GsonBuilder().excludeFieldsWithoutExposeAnnotation()
+			.serializeNulls().setLongSerializationPolicy(LongSerializationPolicy.STRING).create();
+
+	private static final Gson EXPOSED_DATED_GSON = new GsonBuilder().excludeFieldsWithoutExposeAnnotation()
+			.setDateFormat(DATE_FORMAT).setLongSerializationPolicy(LongSerializationPolicy.STRING).create();
+
+	private static final Gson EXPOSED_DATED_GSON_WITH_NULLS = new GsonBuilder().setDateFormat(DATE_FORMAT)
+			.excludeFieldsWithoutExposeAnnotation().serializeNulls().create();
+
+	private static final Gson LOCAL_DATE_GSON = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS")
+			.create();
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private JsonMappers() {
+	}
+
+	/**
+	 * Nulls kept, longs as strings, ISO dates: request and response bodies
+	 */
+	public static Gson gson() {
+		return GSON;
+	}
+
+	/**
+	 * Same as {@code new Gson()}
+	 */
+	public static Gson plainGson() {
+		return PLAIN_GSON;
+	}
+
+	public static Gson longAsStringGson() {
+		return LONG_AS_STRING_GSON;
+	}
+
+	/**
+	 * Only {@code @Expose} fields, longs as strings
+	 */
+	public static Gson exposedGson() {
+		return EXPOSED_GSON;
+	}
+
+	public static Gson exposedGsonWithNulls() {
+		return EXPOSED_GSON_WITH_NULLS;
+	}
+
+	/**
+	 * Only {@code @Expose} fields, longs as strings, ISO dates
+	 */
+	public static Gson exposedDatedGson() {
+		return EXPOSED_DATED_GSON;
+	}
+
+	/**
+	 * Only {@code @Expose} fields, nulls kept, ISO dates
+	 */
+	public static Gson exposedDatedGsonWithNulls() {
+		return EXPOSED_DATED_GSON_WITH_NULLS;
+	}
+
+	/**
+	 * Parses timestamps without the zone suffix
+	 */
+	public static Gson localDateGson() {
+		return LOCAL_DATE_GSON;
+	}
+
+	public static ObjectMapper objectMapper() {
+		return OBJECT_MAPPER;
+	}
+}
@@ -22,21 +22,10 @@
 package com.iemr.common.identity.utils.mapper;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
 public class OutputMapper {
-	static GsonBuilder builder;
-
-	public OutputMapper() {
-		if (builder == null) {
-			builder = new GsonBuilder();
-			builder.setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-			builder.excludeFieldsWithoutExposeAnnotation();
-			builder.serializeNulls();
-		}
-	}
 
 	public static Gson gson() {
-		return builder.create();
+		return JsonMappers.exposedDatedGsonWithNulls();
 	}
 }
\ No newline at end of file
@@ -29,12 +29,11 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import com.google.gson.LongSerializationPolicy;
 import com.google.gson.annotations.Expose;
+import com.iemr.common.identity.utils.mapper.JsonMappers;
 
 public class OutputResponse {
 	@Expose
@@ -180,16 +179,11 @@ public class OutputResponse {
 
 	@Override
 	public String toString() {
-		GsonBuilder builder = new GsonBuilder();
-		builder.excludeFieldsWithoutExposeAnnotation().setLongSerializationPolicy(LongSerializationPolicy.STRING);
-		return builder.create().toJson(this);
+		return JsonMappers.exposedGson().toJson(this);
 	}
 
 	public String toStringWithSerialization() {
-		GsonBuilder builder = new GsonBuilder();
-		builder.excludeFieldsWithoutExposeAnnotation();
-		builder.serializeNulls().setLongSerializationPolicy(LongSerializationPolicy.STRING);
-		return builder.create().toJson(this);
+		return JsonMappers.exposedGsonWithNulls().toJson(this);
 	}
 
 }
@@ -0,0 +1,14 @@
+-- Normalized phone lookup used by getBeneficiariesByPhoneNum and findByAllPhoneNum
+CREATE TABLE beneficiary_phone_index (
+  PhoneIndexID BIGINT AUTO_INCREMENT PRIMARY KEY,
+  PhoneNum VARCHAR(15) NOT NULL,
+  BenRegId BIGINT NOT NULL,
+  PhoneSlot VARCHAR(15) NOT NULL,
+  BenContactsID BIGINT NULL,
+  VanID INT NULL,
+  CreatedDate DATETIME NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_phone_index_phonenum ON beneficiary_phone_index (PhoneNum, BenRegId);
+
+CREATE INDEX idx_phone_index_benregid ON beneficiary_phone_index (BenRegId);
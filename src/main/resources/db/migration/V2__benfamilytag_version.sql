@@ -0,0 +1,2 @@
+-- Optimistic lock column for family member count updates
+ALTER TABLE i_benfamilytag ADD COLUMN Version BIGINT NOT NULL DEFAULT 0;
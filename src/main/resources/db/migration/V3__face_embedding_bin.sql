@@ -0,0 +1,2 @@
+-- Binary face embedding (format byte followed by little-endian values)
+ALTER TABLE i_beneficiarydetails ADD COLUMN FaceEmbeddingBin BLOB NULL;
@@ -0,0 +1,10 @@
+-- Transactional outbox drained by EsOutboxPoller
+CREATE TABLE t_es_outbox (
+  outbox_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  ben_reg_id BIGINT NOT NULL,
+  source VARCHAR(50),
+  attempts INT NOT NULL DEFAULT 0,
+  last_error TEXT,
+  created_date DATETIME NOT NULL,
+  KEY idx_es_outbox_attempts (attempts, outbox_id)
+);
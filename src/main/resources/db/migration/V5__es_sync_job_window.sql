@@ -0,0 +1,2 @@
+-- Maintenance window for sync and reconcile jobs
+ALTER TABLE t_elasticsearch_sync_job ADD COLUMN window_cron VARCHAR(100) NULL;
@@ -0,0 +1,26 @@
+-- Indexes behind the hot identity lookups. QueryPlanVerifier checks that
+-- each of these queries is served by an index.
+
+-- Mapping lookups by BenRegId (getBeneficiariesBy*, complete data batches, ES sync)
+CREATE INDEX idx_benmapping_benregid ON i_beneficiarymapping (BenRegId);
+
+-- Mapping joins used by the village sync branches
+CREATE INDEX idx_benmapping_address ON i_beneficiarymapping (BenAddressId);
+CREATE INDEX idx_benmapping_contacts ON i_beneficiarymapping (BenContactsId);
+CREATE INDEX idx_benmapping_details ON i_beneficiarymapping (BenDetailsId);
+
+-- findIdByVanSerialNoAndVanID on the mapping and each child table
+CREATE INDEX idx_benmapping_van ON i_beneficiarymapping (VanSerialNo, VanID);
+CREATE INDEX idx_benaddress_van ON i_beneficiaryaddress (VanSerialNo, VanID);
+CREATE INDEX idx_bencontacts_van ON i_beneficiarycontacts (VanSerialNo, VanID);
+CREATE INDEX idx_bendetails_van ON i_beneficiarydetails (VanSerialNo, VanID);
+CREATE INDEX idx_benaccount_van ON i_beneficiaryaccount (VanSerialNo, VanID);
+CREATE INDEX idx_benimage_van ON i_beneficiaryimage (VanSerialNo, VanID);
+
+-- Village incremental sync: one seek per LastModDate branch
+CREATE INDEX idx_benaddress_village_lastmod ON i_beneficiaryaddress (PermVillageId, LastModDate);
+CREATE INDEX idx_bencontacts_lastmod ON i_beneficiarycontacts (LastModDate);
+CREATE INDEX idx_bendetails_lastmod ON i_beneficiarydetails (LastModDate);
+
+-- Reg-ID claim: first free id in BenRegId order
+CREATE INDEX idx_benregidmapping_claim ON m_beneficiaryregidmapping (Provisioned, Reserved, BenRegId);
@@ -0,0 +1,32 @@
+-- Index the phone slots of contacts saved before beneficiary_phone_index existed.
+-- Numbers are normalized like BeneficiaryPhoneIndexService.normalize: digits only,
+-- last 10 kept. Beneficiaries already indexed on create/edit are left as they are.
+-- Mappings point at contacts by (VanSerialNo, VanID), as getBenMappingByBenContactIdListNew does;
+-- for van-synced rows VanSerialNo is not the contact's primary key.
+INSERT INTO beneficiary_phone_index (PhoneNum, BenRegId, PhoneSlot, BenContactsID, VanID, CreatedDate)
+SELECT s.PhoneNum, s.BenRegId, s.PhoneSlot, s.BenContactsID, s.VanID, NOW()
+FROM (
+  SELECT RIGHT(REGEXP_REPLACE(c.PreferredPhoneNum, '[^0-9]', ''), 10) AS PhoneNum, m.BenRegId,
+    'preferred' AS PhoneSlot, c.BenContactsID, c.VanID
+  FROM i_beneficiarycontacts c JOIN i_beneficiarymapping m ON m.BenContactsId = c.VanSerialNo AND m.VanID = c.VanID
+  UNION ALL
+  SELECT RIGHT(REGEXP_REPLACE(c.PhoneNum1, '[^0-9]', ''), 10), m.BenRegId, 'phone1', c.BenContactsID, c.VanID
+  FROM i_beneficiarycontacts c JOIN i_beneficiarymapping m ON m.BenContactsId = c.VanSerialNo AND m.VanID = c.VanID
+  UNION ALL
+  SELECT RIGHT(REGEXP_REPLACE(c.PhoneNum2, '[^0-9]', ''), 10), m.BenRegId, 'phone2', c.BenContactsID, c.VanID
+  FROM i_beneficiarycontacts c JOIN i_beneficiarymapping m ON m.BenContactsId = c.VanSerialNo AND m.VanID = c.VanID
+  UNION ALL
+  SELECT RIGHT(REGEXP_REPLACE(c.PhoneNum3, '[^0-9]', ''), 10), m.BenRegId, 'phone3', c.BenContactsID, c.VanID
+  FROM i_beneficiarycontacts c JOIN i_beneficiarymapping m ON m.BenContactsId = c.VanSerialNo AND m.VanID = c.VanID
+  UNION ALL
+  SELECT RIGHT(REGEXP_REPLACE(c.PhoneNum4, '[^0-9]', ''), 10), m.BenRegId, 'phone4', c.BenContactsID, c.VanID
+  FROM i_beneficiarycontacts c JOIN i_beneficiarymapping m ON m.BenContactsId = c.VanSerialNo AND m.VanID = c.VanID
+  UNION ALL
+  SELECT RIGHT(REGEXP_REPLACE(c.PhoneNum5, '[^0-9]', ''), 10), m.BenRegId, 'phone5', c.BenContactsID, c.VanID
+  FROM i_beneficiarycontacts c JOIN i_beneficiarymapping m ON m.BenContactsId = c.VanSerialNo AND m.VanID = c.VanID
+  UNION ALL
+  SELECT RIGHT(REGEXP_REPLACE(c.EmergencyContactNum, '[^0-9]', ''), 10), m.BenRegId, 'emergency', c.BenContactsID, c.VanID
+  FROM i_beneficiarycontacts c JOIN i_beneficiarymapping m ON m.BenContactsId = c.VanSerialNo AND m.VanID = c.VanID
+) s
+WHERE s.PhoneNum IS NOT NULL AND s.PhoneNum <> ''
+  AND NOT EXISTS (SELECT 1 FROM beneficiary_phone_index p WHERE p.BenRegId = s.BenRegId);
@@ -0,0 +1,2 @@
+-- Retry time for outbox events, so failed events back off instead of being re-locked every poll
+ALTER TABLE t_es_outbox ADD COLUMN next_attempt_at DATETIME NULL AFTER last_error;
@@ -0,0 +1,70 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.service.elasticsearch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.iemr.common.identity.service.elasticsearch.ElasticsearchService.QueryType;
+
+class ElasticsearchServiceClassifyTest {
+
+    @Test
+    void mobileNumbersWithPrefixesAndSeparatorsArePhones() {
+        assertEquals(QueryType.PHONE, ElasticsearchService.classify("9876543210"));
+        assertEquals(QueryType.PHONE, ElasticsearchService.classify("+91 98765-43210"));
+        assertEquals(QueryType.PHONE, ElasticsearchService.classify("919876543210"));
+        assertEquals(QueryType.PHONE, ElasticsearchService.classify("09876543210"));
+        assertEquals(QueryType.PHONE, ElasticsearchService.classify("  6123456789 "));
+    }
+
+    @Test
+    void fourteenDigitsAreAbhaNumbers() {
+        assertEquals(QueryType.ABHA_NUMBER, ElasticsearchService.classify("91-1234-5678-9012"));
+        assertEquals(QueryType.ABHA_NUMBER, ElasticsearchService.classify("91123456789012"));
+    }
+
+    @Test
+    void handlesAreAbhaAddresses() {
+        assertEquals(QueryType.ABHA_ADDRESS, ElasticsearchService.classify("ravi.kumar@abdm"));
+        assertEquals(QueryType.ABHA_ADDRESS, ElasticsearchService.classify("ravi_1990@sbx"));
+    }
+
+    @Test
+    void otherDigitStringsAreNumericIds() {
+        // ten digits not starting with 6-9 cannot be an Indian mobile number
+        assertEquals(QueryType.NUMERIC_ID, ElasticsearchService.classify("5876543210"));
+        assertEquals(QueryType.NUMERIC_ID, ElasticsearchService.classify("123456"));
+        assertEquals(QueryType.NUMERIC_ID, ElasticsearchService.classify("1234 5678 9012"));
+    }
+
+    @Test
+    void namesAndEmptyInputAreFreeText() {
+        assertEquals(QueryType.FREE_TEXT, ElasticsearchService.classify("Ravi Kumar"));
+        assertEquals(QueryType.FREE_TEXT, ElasticsearchService.classify("ravi 98765"));
+        assertEquals(QueryType.FREE_TEXT, ElasticsearchService.classify("user@mail.com"));
+        assertEquals(QueryType.FREE_TEXT, ElasticsearchService.classify(""));
+        assertEquals(QueryType.FREE_TEXT, ElasticsearchService.classify("   "));
+        assertEquals(QueryType.FREE_TEXT, ElasticsearchService.classify(null));
+    }
+}
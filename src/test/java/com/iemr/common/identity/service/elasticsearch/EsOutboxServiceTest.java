@@ -0,0 +1,193 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+
+package com.iemr.common.identity.service.elasticsearch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.ErrorCause;
+import co.elastic.clients.elasticsearch._types.ErrorResponse;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.bulk.OperationType;
+
+import com.iemr.common.identity.data.elasticsearch.BeneficiaryDocument;
+import com.iemr.common.identity.data.elasticsearch.EsOutboxEvent;
+import com.iemr.common.identity.repo.elasticsearch.EsOutboxRepo;
+import com.iemr.common.identity.service.elasticsearch.BeneficiaryDocumentDataService.IndexBatch;
+
+@ExtendWith(MockitoExtension.class)
+class EsOutboxServiceTest {
+
+    private static final int MAX_ATTEMPTS = 10;
+    private static final int BASE_DELAY = 30;
+    private static final int MAX_DELAY = 3600;
+
+    @Mock
+    private EsOutboxRepo outboxRepo;
+
+    @Mock
+    private ElasticsearchClient esClient;
+
+    @Mock
+    private BeneficiaryDocumentDataService dataService;
+
+    @Mock
+    private SearchResultCache searchResultCache;
+
+    @InjectMocks
+    private EsOutboxService service;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "beneficiaryIndex", "beneficiary_index");
+        ReflectionTestUtils.setField(service, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(service, "retryBaseDelaySeconds", BASE_DELAY);
+        ReflectionTestUtils.setField(service, "retryMaxDelaySeconds", MAX_DELAY);
+    }
+
+    @Test
+    void splitsBatchIntoDoneRejectedAndUnmapped() throws IOException {
+        // 1 indexed, 2 gone from the database, 3 present but not mapped, 4 rejected by Elasticsearch
+        when(outboxRepo.lockPendingBatch(MAX_ATTEMPTS, 10)).thenReturn(List.of(
+                event(11L, 1), event(12L, 1), event(21L, 2), event(31L, 3), event(41L, 4)));
+        when(dataService.fetchForIndexing(anyList())).thenReturn(new IndexBatch(
+                new ArrayList<>(List.of(doc(1), doc(4))),
+                Set.of(BigInteger.valueOf(1), BigInteger.valueOf(3), BigInteger.valueOf(4))));
+        when(esClient.bulk(any(BulkRequest.class))).thenReturn(BulkResponse.of(b -> b
+                .errors(true)
+                .took(1)
+                .items(accepted("B1"), rejected("B4"))));
+
+        int published = service.drainBatch(10);
+
+        assertEquals(3, published);
+        verify(outboxRepo).deleteByOutboxIds(sameIds(List.of(11L, 12L, 21L)));
+        verify(outboxRepo).markFailed(eq(List.of(41L)), eq("Bulk index rejected the document"),
+                eq(BASE_DELAY), eq(MAX_DELAY));
+        verify(outboxRepo).markFailed(eq(List.of(31L)), eq("Beneficiary row could not be mapped to a document"),
+                eq(BASE_DELAY), eq(MAX_DELAY));
+        verify(outboxRepo, never()).defer(anyList(), anyString(), anyInt());
+    }
+
+    @Test
+    void databaseFailureDefersWholeBatch() {
+        when(outboxRepo.lockPendingBatch(MAX_ATTEMPTS, 10)).thenReturn(List.of(event(11L, 1), event(21L, 2)));
+        when(dataService.fetchForIndexing(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        assertEquals(0, service.drainBatch(10));
+        verify(outboxRepo).defer(sameIds(List.of(11L, 21L)), eq("connection refused"), eq(BASE_DELAY));
+        verify(outboxRepo, never()).deleteByOutboxIds(anyList());
+        verify(outboxRepo, never()).markFailed(anyList(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void clientErrorFromClusterCountsAnAttempt() throws IOException {
+        when(outboxRepo.lockPendingBatch(MAX_ATTEMPTS, 10)).thenReturn(List.of(event(11L, 1)));
+        when(dataService.fetchForIndexing(anyList()))
+                .thenReturn(new IndexBatch(new ArrayList<>(List.of(doc(1))), Set.of(BigInteger.ONE)));
+        when(esClient.bulk(any(BulkRequest.class))).thenThrow(esError(400));
+
+        assertEquals(0, service.drainBatch(10));
+        verify(outboxRepo).markFailed(eq(List.of(11L)), anyString(), eq(BASE_DELAY), eq(MAX_DELAY));
+        verify(outboxRepo, never()).defer(anyList(), anyString(), anyInt());
+        verify(outboxRepo, never()).deleteByOutboxIds(anyList());
+    }
+
+    @Test
+    void transientClassification() {
+        assertTrue(EsOutboxService.isTransient(new IOException("connection reset")));
+        assertTrue(EsOutboxService.isTransient(esError(503)));
+        assertTrue(EsOutboxService.isTransient(esError(429)));
+        assertFalse(EsOutboxService.isTransient(esError(400)));
+    }
+
+    private static EsOutboxEvent event(long outboxId, long benRegId) {
+        EsOutboxEvent event = new EsOutboxEvent();
+        event.setOutboxId(outboxId);
+        event.setBenRegId(BigInteger.valueOf(benRegId));
+        event.setAttempts(0);
+        return event;
+    }
+
+    private static BeneficiaryDocument doc(long benRegId) {
+        BeneficiaryDocument doc = new BeneficiaryDocument();
+        doc.setBenRegId(benRegId);
+        doc.setBenId("B" + benRegId);
+        return doc;
+    }
+
+    private static BulkResponseItem accepted(String id) {
+        return BulkResponseItem.of(i -> i.operationType(OperationType.Index).index("beneficiary_index").id(id)
+                .status(201));
+    }
+
+    private static BulkResponseItem rejected(String id) {
+        return BulkResponseItem.of(i -> i.operationType(OperationType.Index).index("beneficiary_index").id(id)
+                .status(400).error(ErrorCause.of(e -> e.type("mapper_parsing_exception").reason("bad field"))));
+    }
+
+    private static ElasticsearchException esError(int status) {
+        return new ElasticsearchException("bulk", ErrorResponse.of(r -> r
+                .status(status)
+                .error(e -> e.type("error").reason("status " + status))));
+    }
+
+    /**
+     * Matches a list of outbox ids in any order; the drain groups
+     * events in a hash map.
+     */
+    private static List<Long> sameIds(List<Long> expected) {
+        return argThat(actual -> actual != null
+                && actual.size() == expected.size() && actual.containsAll(expected));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.service.elasticsearch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+
+class SearchPageTest {
+
+    @Test
+    void cursorRoundTripKeepsModeAndSortValues() {
+        String token = SearchPage.encodeCursor("S", List.of(FieldValue.of(12.75), FieldValue.of(987654321L)));
+        assertNotNull(token);
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), "cursor must be URL safe: " + token);
+
+        SearchPage.Cursor cursor = SearchPage.decodeCursor(token);
+        assertEquals("S", cursor.getMode());
+        assertEquals(12.75, cursor.getSearchAfter().get(0).doubleValue());
+        assertEquals(987654321L, cursor.getSearchAfter().get(1).longValue());
+    }
+
+    @Test
+    void cursorRoundTripOfIntegralScore() {
+        // term-only queries score every hit the same, the score still survives as a double
+        String token = SearchPage.encodeCursor("I", List.of(FieldValue.of(1.0), FieldValue.of(42L)));
+        SearchPage.Cursor cursor = SearchPage.decodeCursor(token);
+        assertEquals(1.0, cursor.getSearchAfter().get(0).doubleValue());
+        assertEquals(42L, cursor.getSearchAfter().get(1).longValue());
+    }
+
+    @Test
+    void encodeRequiresScoreAndBenRegId() {
+        assertNull(SearchPage.encodeCursor("S", null));
+        assertNull(SearchPage.encodeCursor("S", List.of(FieldValue.of(1.0))));
+        assertNull(SearchPage.encodeCursor("S", List.of(FieldValue.of(1.0), FieldValue.of(2L), FieldValue.of(3L))));
+    }
+
+    @Test
+    void blankTokenMeansFirstPage() {
+        assertNull(SearchPage.decodeCursor(null));
+        assertNull(SearchPage.decodeCursor(""));
+        assertNull(SearchPage.decodeCursor("  "));
+    }
+
+    @Test
+    void tamperedTokensAreRejected() {
+        assertInvalid("not a cursor!");
+        assertInvalid(encode("S:1.0"));
+        assertInvalid(encode("S:1.0:2:3"));
+        assertInvalid(encode("SX:1.0:2"));
+        assertInvalid(encode("S:abc:2"));
+        assertInvalid(encode("S:1.0:2.5"));
+        assertInvalid(encode("S:1.0:99999999999999999999"));
+    }
+
+    private static void assertInvalid(String token) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> SearchPage.decodeCursor(token));
+        assertEquals("Invalid search cursor", e.getMessage());
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.service.elasticsearch;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+class SyncJobWindowSchedulerTest {
+
+    private static final String NIGHT_WINDOW = "0 * 22-23,0-5 * * *";
+
+    @Test
+    void windowIncludesEveryMinuteOfMatchingHours() {
+        assertTrue(SyncJobWindowScheduler.isWithinWindow(NIGHT_WINDOW, at(22, 0, 0)));
+        assertTrue(SyncJobWindowScheduler.isWithinWindow(NIGHT_WINDOW, at(23, 59, 59)));
+        assertTrue(SyncJobWindowScheduler.isWithinWindow(NIGHT_WINDOW, at(0, 0, 0)));
+        assertTrue(SyncJobWindowScheduler.isWithinWindow(NIGHT_WINDOW, at(5, 59, 30)));
+    }
+
+    @Test
+    void windowExcludesMinutesOutsideIt() {
+        assertFalse(SyncJobWindowScheduler.isWithinWindow(NIGHT_WINDOW, at(6, 0, 0)));
+        assertFalse(SyncJobWindowScheduler.isWithinWindow(NIGHT_WINDOW, at(12, 30, 0)));
+        assertFalse(SyncJobWindowScheduler.isWithinWindow(NIGHT_WINDOW, at(21, 59, 59)));
+    }
+
+    @Test
+    void secondsWithinAMatchingMinuteStayInside() {
+        // the window is matched per minute, so a check late in the minute still counts
+        String oneMinute = "0 30 2 * * *";
+        assertTrue(SyncJobWindowScheduler.isWithinWindow(oneMinute, at(2, 30, 0)));
+        assertTrue(SyncJobWindowScheduler.isWithinWindow(oneMinute, LocalDateTime.of(2024, 3, 10, 2, 30, 59, 999_000_000)));
+        assertFalse(SyncJobWindowScheduler.isWithinWindow(oneMinute, at(2, 31, 0)));
+        assertFalse(SyncJobWindowScheduler.isWithinWindow(oneMinute, at(2, 29, 59)));
+    }
+
+    @Test
+    void dayOfWeekRestrictsWindow() {
+        String weekends = "0 * * * * SAT,SUN";
+        // 2024-03-09 is a Saturday, 2024-03-11 a Monday
+        assertTrue(SyncJobWindowScheduler.isWithinWindow(weekends, LocalDateTime.of(2024, 3, 9, 14, 0)));
+        assertFalse(SyncJobWindowScheduler.isWithinWindow(weekends, LocalDateTime.of(2024, 3, 11, 14, 0)));
+    }
+
+    @Test
+    void validateWindowRejectsInvalidCron() {
+        assertThrows(IllegalArgumentException.class, () -> SyncJobWindowScheduler.validateWindow("not a cron"));
+        assertDoesNotThrow(() -> SyncJobWindowScheduler.validateWindow(NIGHT_WINDOW));
+        assertDoesNotThrow(() -> SyncJobWindowScheduler.validateWindow(null));
+    }
+
+    private static LocalDateTime at(int hour, int minute, int second) {
+        return LocalDateTime.of(2024, 3, 10, hour, minute, second);
+    }
+}
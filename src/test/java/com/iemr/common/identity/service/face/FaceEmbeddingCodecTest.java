@@ -0,0 +1,95 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.service.face;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class FaceEmbeddingCodecTest {
+
+    @Test
+    void float32RoundTripIsExact() {
+        float[] vector = { 0.125f, -0.4f, 1e-6f, 3.5f, 0f };
+        byte[] data = FaceEmbeddingCodec.encode(vector, FaceEmbeddingCodec.FORMAT_FLOAT32);
+
+        assertEquals(1 + vector.length * 4, data.length);
+        assertEquals(FaceEmbeddingCodec.FORMAT_FLOAT32, data[0]);
+        assertArrayEquals(vector, FaceEmbeddingCodec.decode(data));
+    }
+
+    @Test
+    void float16RoundTripIsWithinHalfPrecision() {
+        float[] vector = { 0.125f, -0.4f, 0.0312f, 3.5f, -1f };
+        byte[] data = FaceEmbeddingCodec.encode(vector, FaceEmbeddingCodec.FORMAT_FLOAT16);
+
+        assertEquals(1 + vector.length * 2, data.length);
+        assertArrayEquals(vector, FaceEmbeddingCodec.decode(data), 1e-3f);
+    }
+
+    @Test
+    void halfPrecisionEdgeValues() {
+        assertEquals(0f, FaceEmbeddingCodec.fromHalf(FaceEmbeddingCodec.toHalf(0f)));
+        assertEquals(Float.POSITIVE_INFINITY, FaceEmbeddingCodec.fromHalf(FaceEmbeddingCodec.toHalf(1e6f)));
+        assertEquals(Float.NEGATIVE_INFINITY, FaceEmbeddingCodec.fromHalf(FaceEmbeddingCodec.toHalf(-1e6f)));
+        assertEquals(Float.NaN, FaceEmbeddingCodec.fromHalf(FaceEmbeddingCodec.toHalf(Float.NaN)));
+        // smallest half subnormal survives, values far below it flush to zero
+        float subnormal = (float) Math.pow(2, -24);
+        assertEquals(subnormal, FaceEmbeddingCodec.fromHalf(FaceEmbeddingCodec.toHalf(subnormal)));
+        assertEquals(0f, FaceEmbeddingCodec.fromHalf(FaceEmbeddingCodec.toHalf(1e-10f)));
+    }
+
+    @Test
+    void decodeRejectsUnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> FaceEmbeddingCodec.decode(new byte[] { 9, 0, 0, 0, 0 }));
+    }
+
+    @Test
+    void decodeOfEmptyIsNull() {
+        assertNull(FaceEmbeddingCodec.decode(null));
+        assertNull(FaceEmbeddingCodec.decode(new byte[0]));
+    }
+
+    @Test
+    void parseTextReadsLegacyFormat() {
+        assertArrayEquals(new float[] { 0.12f, -0.4f, 3f }, FaceEmbeddingCodec.parseText("[0.12, -0.4,3]"));
+        assertEquals(0, FaceEmbeddingCodec.parseText("[]").length);
+        assertNull(FaceEmbeddingCodec.parseText(null));
+    }
+
+    @Test
+    void parseTextRejectsMalformedText() {
+        assertThrows(IllegalArgumentException.class, () -> FaceEmbeddingCodec.parseText("[0.1, abc]"));
+    }
+
+    @Test
+    void listConversionMapsNullsToZero() {
+        float[] vector = FaceEmbeddingCodec.toArray(Arrays.asList(1f, null, -2f));
+        assertArrayEquals(new float[] { 1f, 0f, -2f }, vector);
+        assertEquals(Arrays.asList(1f, 0f, -2f), FaceEmbeddingCodec.toList(vector));
+    }
+}
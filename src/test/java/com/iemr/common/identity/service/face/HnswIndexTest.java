@@ -0,0 +1,149 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.service.face;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 32;
+
+    @Test
+    void findsStoredVectorFirst() {
+        HnswIndex index = new HnswIndex(16, 100);
+        List<float[]> vectors = randomVectors(500, new Random(1));
+        for (int i = 0; i < vectors.size(); i++)
+            index.add(i, vectors.get(i));
+
+        List<HnswIndex.Match> matches = index.search(vectors.get(42), 5, 64);
+
+        assertEquals(5, matches.size());
+        assertEquals(42L, matches.get(0).getId());
+        assertEquals(1f, matches.get(0).getSimilarity(), 1e-5f);
+        for (int i = 1; i < matches.size(); i++)
+            assertTrue(matches.get(i - 1).getSimilarity() >= matches.get(i).getSimilarity());
+    }
+
+    @Test
+    void recallAgainstBruteForce() {
+        Random random = new Random(7);
+        List<float[]> vectors = randomVectors(2000, random);
+        HnswIndex index = new HnswIndex(16, 200);
+        for (int i = 0; i < vectors.size(); i++)
+            index.add(i, vectors.get(i));
+
+        int k = 10;
+        int found = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVectors(1, random).get(0);
+            Set<Long> expected = bruteForce(vectors, query, k);
+            for (HnswIndex.Match match : index.search(query, k, 64))
+                if (expected.contains(match.getId()))
+                    found++;
+        }
+        double recall = (double) found / (queries * k);
+        assertTrue(recall >= 0.9, "recall@10 was " + recall);
+    }
+
+    @Test
+    void readdingReplacesVector() {
+        HnswIndex index = new HnswIndex(8, 50);
+        index.add(1, new float[] { 1f, 0f });
+        index.add(2, new float[] { 0f, 1f });
+        index.add(1, new float[] { -1f, 0f });
+
+        assertEquals(2, index.size());
+        List<HnswIndex.Match> matches = index.search(new float[] { -1f, 0f }, 1, 10);
+        assertEquals(1L, matches.get(0).getId());
+        assertEquals(1f, matches.get(0).getSimilarity(), 1e-5f);
+        for (HnswIndex.Match match : index.search(new float[] { 1f, 0f }, 3, 10))
+            assertFalse(match.getId() == 1L && match.getSimilarity() > 0.5f, "stale vector returned");
+    }
+
+    @Test
+    void removedIdIsNotReturned() {
+        HnswIndex index = new HnswIndex(8, 50);
+        index.add(1, new float[] { 1f, 0f, 0f });
+        index.add(2, new float[] { 0.9f, 0.1f, 0f });
+        index.remove(1);
+
+        List<HnswIndex.Match> matches = index.search(new float[] { 1f, 0f, 0f }, 2, 10);
+        assertEquals(1, matches.size());
+        assertEquals(2L, matches.get(0).getId());
+    }
+
+    @Test
+    void rejectsDimensionMismatchAndIgnoresZeroVector() {
+        HnswIndex index = new HnswIndex(8, 50);
+        index.add(1, new float[] { 1f, 0f });
+        index.add(2, new float[] { 0f, 0f });
+
+        assertEquals(1, index.size());
+        assertThrows(IllegalArgumentException.class, () -> index.add(3, new float[] { 1f, 0f, 0f }));
+        assertTrue(index.search(new float[] { 1f, 0f, 0f }, 1, 10).isEmpty());
+    }
+
+    private static List<float[]> randomVectors(int count, Random random) {
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float[] vector = new float[DIMENSIONS];
+            for (int d = 0; d < DIMENSIONS; d++)
+                vector[d] = (float) random.nextGaussian();
+            vectors.add(vector);
+        }
+        return vectors;
+    }
+
+    private static Set<Long> bruteForce(List<float[]> vectors, float[] query, int k) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < vectors.size(); i++)
+            ids.add(i);
+        ids.sort(Comparator.comparingDouble(i -> -cosine(vectors.get(i), query)));
+        Set<Long> nearest = new HashSet<>();
+        for (int i = 0; i < k; i++)
+            nearest.add((long) ids.get(i));
+        return nearest;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return dot / Math.sqrt(na * nb);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+* AMRIT – Accessible Medical Records via Integrated Technology 
+* Integrated EHR (Electronic Health Records) Solution 
+*
+* Copyright (C) "Piramal Swasthya Management and Research Institute" 
+*
+* This file is part of AMRIT.
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see https://www.gnu.org/licenses/.
+*/
+package com.iemr.common.identity.utils.mapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iemr.common.identity.dto.BeneficiariesDTO;
+
+class BeanMapConverterTest {
+
+    private final ObjectMapper mapper = JsonMappers.objectMapper();
+
+    private int counter;
+
+    @Test
+    void populatedDtoMatchesJsonRoundTrip() throws Exception {
+        BeneficiariesDTO dto = populate(BeneficiariesDTO.class, 0);
+
+        Map<String, Object> map = BeanMapConverter.toMap(dto);
+        assertEquals(roundTrip(dto), map);
+        // the comparison covers nested beans and lists, not just top-level values
+        assertTrue(map.get("beneficiaryDetails") instanceof Map);
+        assertTrue(map.get("currentAddress") instanceof Map);
+        assertEquals(2, ((List<?>) map.get("beneficiaryFamilyTags")).size());
+    }
+
+    @Test
+    void keyOrderMatchesJsonRoundTrip() throws Exception {
+        BeneficiariesDTO dto = populate(BeneficiariesDTO.class, 0);
+
+        assertEquals(new ArrayList<>(roundTrip(dto).keySet()), new ArrayList<>(BeanMapConverter.toMap(dto).keySet()));
+    }
+
+    @Test
+    void emptyDtoMatchesJsonRoundTrip() throws Exception {
+        BeneficiariesDTO dto = new BeneficiariesDTO();
+
+        assertEquals(roundTrip(dto), BeanMapConverter.toMap(dto));
+    }
+
+    @Test
+    void numbersAreNormalisedLikeParsedJson() throws Exception {
+        BeneficiariesDTO dto = new BeneficiariesDTO();
+        dto.setBenRegId(BigInteger.valueOf(42));
+        dto.setBenId(new BigInteger("123456789012"));
+        dto.setBenMapId(new BigInteger("123456789012345678901234"));
+        dto.setCreatedDate(new Timestamp(1700000000123L));
+        dto.setFaceEmbedding(List.of(0.1f, -2.5f));
+
+        Map<String, Object> map = BeanMapConverter.toMap(dto);
+        assertEquals(roundTrip(dto), map);
+        assertEquals(42, map.get("benRegId"));
+        assertEquals(123456789012L, map.get("benId"));
+        assertEquals(1700000000123L, map.get("createdDate"));
+        assertEquals(List.of(0.1d, -2.5d), map.get("faceEmbedding"));
+    }
+
+    @Test
+    void nullBeanIsNull() {
+        assertNull(BeanMapConverter.toMap(null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> roundTrip(Object bean) throws Exception {
+        return mapper.readValue(mapper.writeValueAsString(bean), Map.class);
+    }
+
+    /**
+     * Fills every writable property with a distinct value, nesting
+     * application beans and lists of them a couple of levels deep
+     */
+    private <T> T populate(Class<T> type, int depth) throws Exception {
+        T bean = type.getDeclaredConstructor().newInstance();
+        for (PropertyDescriptor property : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+            Method setter = property.getWriteMethod();
+            if (setter == null) {
+                continue;
+            }
+            Object value = valueFor(setter.getGenericParameterTypes()[0], depth);
+            if (value != null) {
+                setter.invoke(bean, value);
+            }
+        }
+        return bean;
+    }
+
+    private Object valueFor(Type type, int depth) throws Exception {
+        int n = ++counter;
+        if (type instanceof ParameterizedType parameterized) {
+            if (parameterized.getRawType() == List.class) {
+                List<Object> list = new ArrayList<>();
+                for (int i = 0; i < 2; i++) {
+                    Object item = valueFor(parameterized.getActualTypeArguments()[0], depth);
+                    if (item != null) {
+                        list.add(item);
+                    }
+                }
+                return list;
+            }
+            return null;
+        }
+        Class<?> raw = (Class<?>) type;
+        if (raw == String.class) {
+            return "value" + n;
+        }
+        if (raw == Integer.class || raw == int.class) {
+            return n;
+        }
+        if (raw == Long.class || raw == long.class) {
+            return 5_000_000_000L + n;
+        }
+        if (raw == Short.class || raw == short.class) {
+            return (short) n;
+        }
+        if (raw == BigInteger.class) {
+            return n % 2 == 0 ? BigInteger.valueOf(n) : BigInteger.valueOf(9_000_000_000L + n);
+        }
+        if (raw == BigDecimal.class) {
+            return new BigDecimal(n + ".25");
+        }
+        if (raw == Boolean.class || raw == boolean.class) {
+            return n % 2 == 0;
+        }
+        if (raw == Float.class || raw == float.class) {
+            return n + 0.1f;
+        }
+        if (raw == Double.class || raw == double.class) {
+            return n + 0.3d;
+        }
+        if (raw == Timestamp.class) {
+            return new Timestamp(1_700_000_000_000L + n);
+        }
+        if (raw == Date.class) {
+            return new Date(1_700_000_000_000L + n);
+        }
+        if (raw.getName().startsWith("com.iemr.") && depth < 2 && !raw.isInterface() && !raw.isEnum()) {
+            try {
+                return populate(raw, depth + 1);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}